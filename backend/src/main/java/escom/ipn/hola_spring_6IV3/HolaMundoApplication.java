@@ -2,8 +2,10 @@ package escom.ipn.hola_spring_6IV3;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class HolaMundoApplication {
 
     public static void main(String[] args) {
@@ -6,27 +6,36 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import escom.ipn.hola_spring_6IV3.domain.entity.User;
+
 import escom.ipn.hola_spring_6IV3.exception.UserNotFoundException;
 import escom.ipn.hola_spring_6IV3.repository.UserRepository;
 import escom.ipn.hola_spring_6IV3.service.JwtService;
+import escom.ipn.hola_spring_6IV3.service.PasswordHashingService;
+import escom.ipn.hola_spring_6IV3.service.UsernameFilter;
 import lombok.RequiredArgsConstructor;
 
 /* 
 UserDetailsService:
 -> Este bean se encarga de cargar los detalles del usuario desde el repositorio de usuarios (UserRepository).
+-> Los nombres que el filtro de Bloom (UsernameFilter) descarta se rechazan sin consultar la base de datos.
+
+UserDetailsPasswordService:
+-> Este bean guarda el nuevo hash cuando DaoAuthenticationProvider vuelve a cifrar la contraseña al iniciar sesión (hash antiguo o con un costo menor al calibrado).
 
 AuthenticationProvider:
 -> Este bean configura el proveedor de autenticación utilizando DaoAuthenticationProvider, que se encarga de autenticar al usuario utilizando los detalles del usuario y el codificador de contraseñas.
+-> La verificación (y el recifrado) con BCrypt se envía al pool de hashing (PasswordHashingService); la carga del usuario se queda en el hilo de la petición.
 
 AuthenticationManager:
 -> Este bean proporciona el AuthenticationManager, que es el componente principal de Spring Security para manejar la autenticación.
 
 PasswordEncoder:
--> Este bean configura el codificador de contraseñas utilizando BCryptPasswordEncoder, que es un algoritmo de hashing seguro para contraseñas.
+-> Se define en PasswordEncoderConfig (BCrypt con costo calibrado al arrancar).
 */
 
 @Configuration
@@ -34,20 +43,40 @@ PasswordEncoder:
 public class ApplicationConfig {
 
     private final UserRepository userRepository;
+    private final UsernameFilter usernameFilter;
     @SuppressWarnings("unused")
     private final JwtService jwtService;
 
     @Bean
     public UserDetailsService userDetailsService() {
-        return username -> userRepository.findByUsername(username)
-                .orElseThrow(() -> new UserNotFoundException(username));
+        return username -> {
+            if (!usernameFilter.mightExist(username)) {
+                throw new UserNotFoundException(username);
+            }
+            return userRepository.findByUsername(username)
+                    .orElseThrow(() -> new UserNotFoundException(username));
+        };
+    }
+
+    @Bean
+    public UserDetailsPasswordService userDetailsPasswordService() {
+        return (userDetails, newPassword) -> {
+            // Solo se reemplaza si el hash no cambió mientras tanto (p. ej. por un cambio de contraseña)
+            if (userDetails instanceof User user
+                    && userRepository.updatePasswordIfUnchanged(user.getId(), user.getPassword(), newPassword) == 1) {
+                user.setPassword(newPassword);
+            }
+            return userDetails;
+        };
     }
 
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder,
+            PasswordHashingService passwordHashingService) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService());
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(new HashingPoolPasswordEncoder(passwordEncoder, passwordHashingService));
+        authProvider.setUserDetailsPasswordService(userDetailsPasswordService());
         return authProvider;
     }
 
@@ -55,9 +84,4 @@ public class ApplicationConfig {
     public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
         return config.getAuthenticationManager();
     }
-
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
 }
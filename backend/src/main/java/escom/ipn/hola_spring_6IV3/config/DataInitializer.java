@@ -3,16 +3,18 @@ package escom.ipn.hola_spring_6IV3.config;
 import escom.ipn.hola_spring_6IV3.domain.entity.Role;
 import escom.ipn.hola_spring_6IV3.domain.entity.User;
 import escom.ipn.hola_spring_6IV3.repository.UserRepository;
+import escom.ipn.hola_spring_6IV3.service.UsernameFilter;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Configuration
 public class DataInitializer {
 
     @Bean
-    CommandLineRunner initDatabase(UserRepository userRepository) {
+    CommandLineRunner initDatabase(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                                   UsernameFilter usernameFilter) {
         return args -> {
             // Verificar si ya existe el usuario administrador
             if (userRepository.findByUsername("sudo").isEmpty()) {
@@ -22,10 +24,11 @@ public class DataInitializer {
                         .lastname("user")
                         .firstname("super")
                         .country("not defined")
-                        .password(new BCryptPasswordEncoder().encode("password"))
+                        .password(passwordEncoder.encode("password"))
                         .role(Role.ROLE_ADMIN)
                         .build();
                 userRepository.save(user);
+                usernameFilter.add(user.getUsername());
                 System.out.println("Usuario administrador creado");
             } else {
                 System.out.println("Usuario administrador ya existe");
@@ -0,0 +1,36 @@
+package escom.ipn.hola_spring_6IV3.config;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import escom.ipn.hola_spring_6IV3.service.PasswordHashingService;
+
+/**
+ * Decorador que ejecuta las operaciones de BCrypt en el pool de hashing.
+ * Lo usa DaoAuthenticationProvider: así la carga del usuario (JDBC) se queda en el hilo
+ * de la petición y el pool, dimensionado a los núcleos, solo ocupa sus hilos en trabajo de CPU.
+ */
+class HashingPoolPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final PasswordHashingService passwordHashingService;
+
+    HashingPoolPasswordEncoder(PasswordEncoder delegate, PasswordHashingService passwordHashingService) {
+        this.delegate = delegate;
+        this.passwordHashingService = passwordHashingService;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return passwordHashingService.execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return passwordHashingService.execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
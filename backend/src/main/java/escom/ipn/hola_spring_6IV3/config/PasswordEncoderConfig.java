@@ -0,0 +1,106 @@
+package escom.ipn.hola_spring_6IV3.config;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Codificador de contraseñas con costo de BCrypt calibrado al arrancar.
+ * Se mide BCrypt con el costo mínimo y, como cada punto de costo duplica el tiempo, se elige
+ * el mayor costo cuyo tiempo estimado no supera el objetivo configurado. Así la latencia del
+ * login es parecida en cualquier servidor y el costo sube solo cuando el hardware es más rápido.
+ *
+ * Los hashes se guardan con prefijo ({bcrypt}) mediante DelegatingPasswordEncoder. Los que
+ * tienen un costo menor al calibrado (o no tienen prefijo) se vuelven a cifrar al iniciar
+ * sesión con éxito, a través del UserDetailsPasswordService de ApplicationConfig.
+ */
+@Configuration
+@Slf4j
+public class PasswordEncoderConfig {
+
+    private static final String BCRYPT = "bcrypt";
+    private static final int CALIBRATION_ROUNDS = 3;
+    private static final int MIN_BCRYPT_STRENGTH = 4;
+    private static final int MAX_BCRYPT_STRENGTH = 31;
+
+    @Bean
+    public PasswordEncoder passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${auth.password.bcrypt.strength:0}") int fixedStrength,
+            @Value("${auth.password.target-hash-ms:250}") long targetMillis,
+            @Value("${auth.password.bcrypt.min-strength:10}") int minStrength,
+            @Value("${auth.password.bcrypt.max-strength:14}") int maxStrength) {
+        int strength = fixedStrength > 0
+                ? requireValidStrength(fixedStrength)
+                : calibrate(targetMillis, requireValidStrength(minStrength), requireValidStrength(maxStrength));
+
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(BCRYPT, Map.of(BCRYPT, bcrypt));
+        // Hashes guardados antes de usar prefijos: se verifican con BCrypt y se actualizan al iniciar sesión
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        Gauge.builder("auth.password.bcrypt.strength", () -> strength)
+                .description("Costo de BCrypt usado para las contraseñas nuevas")
+                .register(meterRegistry);
+        return new TimedPasswordEncoder(delegating, meterRegistry);
+    }
+
+    /**
+     * Mide BCrypt con el costo mínimo (mediana de varias rondas tras calentar) y elige el costo
+     */
+    static int calibrate(long targetMillis, int minStrength, int maxStrength) {
+        if (minStrength > maxStrength) {
+            throw new IllegalArgumentException("El costo mínimo de BCrypt (" + minStrength
+                    + ") es mayor que el máximo (" + maxStrength + ")");
+        }
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minStrength);
+        String sample = "calibracion-de-bcrypt";
+        probe.encode(sample); // Calentamiento del JIT
+
+        long[] nanos = new long[CALIBRATION_ROUNDS];
+        for (int i = 0; i < nanos.length; i++) {
+            long start = System.nanoTime();
+            probe.encode(sample);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        double millisAtMin = nanos[nanos.length / 2] / 1_000_000.0;
+
+        int strength = strengthFor(millisAtMin, minStrength, targetMillis, maxStrength);
+        log.info("Costo de BCrypt calibrado: {} ({} ms con costo {}, objetivo {} ms, estimado {} ms)",
+                strength, Math.round(millisAtMin), minStrength, targetMillis,
+                Math.round(millisAtMin * (1L << (strength - minStrength))));
+        return strength;
+    }
+
+    /**
+     * Mayor costo (entre el mínimo y el máximo) cuyo tiempo estimado no supera el objetivo;
+     * si ni el mínimo lo cumple se usa el mínimo
+     */
+    static int strengthFor(double millisAtMin, int minStrength, long targetMillis, int maxStrength) {
+        int strength = minStrength;
+        double estimate = millisAtMin;
+        while (strength < maxStrength && estimate * 2 <= targetMillis) {
+            strength++;
+            estimate *= 2;
+        }
+        return strength;
+    }
+
+    private static int requireValidStrength(int strength) {
+        if (strength < MIN_BCRYPT_STRENGTH || strength > MAX_BCRYPT_STRENGTH) {
+            throw new IllegalArgumentException("Costo de BCrypt fuera de rango (4-31): " + strength);
+        }
+        return strength;
+    }
+}
@@ -0,0 +1,116 @@
+package escom.ipn.hola_spring_6IV3.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import escom.ipn.hola_spring_6IV3.service.storage.ImageStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Migración única de las imágenes de perfil al ImageStore.
+ * Las imágenes pudieron quedar guardadas como BLOB en dos lugares de esquemas
+ * anteriores: la columna user.profile_image y la columna
+ * user_profile_image.image_data. Si alguna de esas columnas sigue existiendo,
+ * sus bytes se copian al almacenamiento, en la BD se deja solo el hash y la
+ * columna se elimina. Así, en los siguientes arranques la migración no hace nada.
+ * Los BLOB se leen por páginas ordenadas por id para no cargarlos todos en memoria
+ * (el driver de MySQL guarda el resultado completo de una consulta).
+ */
+@Component
+@Order(0)
+@RequiredArgsConstructor
+@Slf4j
+public class ProfileImageMigration implements CommandLineRunner {
+
+    private static final int PAGE_SIZE = 20;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ImageStore imageStore;
+
+    @Override
+    public void run(String... args) {
+        if (columnExists("user_profile_image", "image_data")) {
+            migrateImageTable();
+        }
+        if (columnExists("user", "profile_image")) {
+            migrateUserColumn();
+        }
+    }
+
+    /**
+     * Mueve al ImageStore los BLOB de user_profile_image.image_data
+     */
+    private void migrateImageTable() {
+        int migrated = 0;
+        int[] lastId = {0};
+        int page;
+        do {
+            page = jdbcTemplate.query("SELECT user_id, image_data FROM user_profile_image " +
+                    "WHERE image_data IS NOT NULL AND user_id > ? ORDER BY user_id LIMIT ?", rs -> {
+                int count = 0;
+                while (rs.next()) {
+                    String hash = store(rs.getBinaryStream("image_data"));
+                    lastId[0] = rs.getInt("user_id");
+                    jdbcTemplate.update("UPDATE user_profile_image SET image_hash = ? WHERE user_id = ?", hash, lastId[0]);
+                    count++;
+                }
+                return count;
+            }, lastId[0], PAGE_SIZE);
+            migrated += page;
+        } while (page == PAGE_SIZE);
+        jdbcTemplate.execute("ALTER TABLE user_profile_image DROP COLUMN image_data");
+        log.info("Migradas {} imágenes de user_profile_image al almacenamiento", migrated);
+    }
+
+    /**
+     * Mueve al ImageStore los BLOB de la columna antigua user.profile_image
+     */
+    private void migrateUserColumn() {
+        int migrated = 0;
+        int[] lastId = {0};
+        int page;
+        do {
+            page = jdbcTemplate.query("SELECT id, profile_image, profile_image_type FROM `user` " +
+                    "WHERE profile_image IS NOT NULL AND id > ? ORDER BY id LIMIT ?", rs -> {
+                int count = 0;
+                while (rs.next()) {
+                    String hash = store(rs.getBinaryStream("profile_image"));
+                    lastId[0] = rs.getInt("id");
+                    jdbcTemplate.update("INSERT IGNORE INTO user_profile_image (user_id, image_hash, content_type) VALUES (?, ?, ?)",
+                            lastId[0], hash, rs.getString("profile_image_type"));
+                    count++;
+                }
+                return count;
+            }, lastId[0], PAGE_SIZE);
+            migrated += page;
+        } while (page == PAGE_SIZE);
+        jdbcTemplate.execute("ALTER TABLE `user` DROP COLUMN profile_image, DROP COLUMN profile_image_type");
+        log.info("Migradas {} imágenes de perfil de la tabla user al almacenamiento", migrated);
+    }
+
+    private String store(InputStream content) {
+        try (content) {
+            return imageStore.store(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al migrar imagen de perfil", e);
+        }
+    }
+
+    /**
+     * Verifica si una columna existe en el esquema actual
+     */
+    private boolean columnExists(String table, String column) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.COLUMNS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?",
+                Integer.class, table, column);
+        return count != null && count > 0;
+    }
+}
@@ -1,20 +1,32 @@
 package escom.ipn.hola_spring_6IV3.config;
 
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
 import escom.ipn.hola_spring_6IV3.jwt.JwtAuthenticationFilter;
+import escom.ipn.hola_spring_6IV3.ratelimit.RateLimitFilter;
+import escom.ipn.hola_spring_6IV3.ratelimit.RateLimitRule;
+import escom.ipn.hola_spring_6IV3.ratelimit.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 
 /**
  * Configuración de seguridad para la aplicación.
- * Define reglas de acceso, políticas de sesión y filtros de autenticación.
+ * Define reglas de acceso, políticas de sesión, filtros de autenticación y los límites
+ * de peticiones (token bucket) de los endpoints costosos.
  */
 @Configuration
 @EnableWebSecurity
@@ -23,6 +35,24 @@ public class SecurityConfig {
 
     private final AuthenticationProvider authProvider;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${ratelimit.enabled:true}")
+    private boolean rateLimitEnabled;
+    @Value("${ratelimit.max-keys:100000}")
+    private int rateLimitMaxKeys;
+    @Value("${ratelimit.auth.capacity:10}")
+    private int authCapacity;
+    @Value("${ratelimit.auth.refill-per-minute:10}")
+    private int authRefillPerMinute;
+    @Value("${ratelimit.profile-image-upload.capacity:5}")
+    private int uploadCapacity;
+    @Value("${ratelimit.profile-image-upload.refill-per-minute:5}")
+    private int uploadRefillPerMinute;
+    @Value("${ratelimit.admin-users.capacity:30}")
+    private int adminUsersCapacity;
+    @Value("${ratelimit.admin-users.refill-per-minute:60}")
+    private int adminUsersRefillPerMinute;
 
     /**
      * Configura el filtro de seguridad HTTP
@@ -33,7 +63,7 @@ public class SecurityConfig {
      */
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
-        return http
+        http
             // Deshabilitar CSRF (Cross-Site Request Forgery definida por defecto by SpringSecurity) para APIs REST con autenticación sin estado
             .csrf(csrf -> csrf.disable())
             
@@ -49,8 +79,12 @@ public class SecurityConfig {
                     // Permitir acceso a todas las páginas web para que JavaScript maneje la autenticación
                     .requestMatchers("/", "/inicio", "/my-profile", "/libro-detalle", "/libro/**", "/admin/**").permitAll()
                     
-                    // Solo las APIs administrativas requieren rol ADMIN a nivel de Spring Security
-                    .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                    // La imagen de perfil con URL versionada (?v=hash) se puede cargar desde <img src>
+                    // sin token: el hash SHA-256 del contenido actúa como credencial
+                    .requestMatchers(versionedProfileImage()).permitAll()
+                    
+                    // Solo las APIs administrativas y las métricas requieren rol ADMIN a nivel de Spring Security
+                    .requestMatchers("/api/admin/**", "/actuator/**").hasRole("ADMIN")
                     
                     // Solo las APIs requieren autenticación a nivel de Spring Security
                     .requestMatchers("/api/**").authenticated()
@@ -67,9 +101,45 @@ public class SecurityConfig {
             .authenticationProvider(authProvider)
             
             // Añadir filtro JWT antes del filtro estándar de autenticación
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
-            
-            // Construir la configuración
-            .build();
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+
+        if (rateLimitEnabled) {
+            // Después del filtro JWT (ya registrado arriba), para limitar por usuario cuando hay token
+            http.addFilterAfter(rateLimitFilter(), JwtAuthenticationFilter.class);
+        }
+
+        // Construir la configuración
+        return http.build();
+    }
+
+    /**
+     * GET de la imagen de perfil de un usuario que incluye la versión (?v=hash).
+     * El controlador solo la sirve a peticiones anónimas si el hash es el de la imagen actual.
+     */
+    private RequestMatcher versionedProfileImage() {
+        RequestMatcher path = AntPathRequestMatcher.antMatcher(HttpMethod.GET, "/api/profile-image/*");
+        return request -> path.matches(request) && request.getParameter("v") != null;
+    }
+
+    /**
+     * Límites por ruta: inicio de sesión y registro (BCrypt) por IP; subida de imagen de
+     * perfil y lecturas administrativas (cualquier GET bajo /api/admin, no solo el listado
+     * paginado) por usuario autenticado.
+     * No es un bean para que Spring Boot no lo registre además como filtro del servlet.
+     */
+    private RateLimitFilter rateLimitFilter() {
+        return new RateLimitFilter(List.of(
+                RateLimitRule.perIp("auth",
+                        new OrRequestMatcher(
+                                AntPathRequestMatcher.antMatcher(HttpMethod.POST, "/auth/login"),
+                                AntPathRequestMatcher.antMatcher(HttpMethod.POST, "/auth/register")),
+                        new TokenBucketRateLimiter(authCapacity, authRefillPerMinute, rateLimitMaxKeys)),
+                RateLimitRule.perUser("profile-image-upload",
+                        AntPathRequestMatcher.antMatcher(HttpMethod.POST, "/api/profile-image/upload"),
+                        new TokenBucketRateLimiter(uploadCapacity, uploadRefillPerMinute, rateLimitMaxKeys)),
+                RateLimitRule.perUser("admin-users",
+                        AntPathRequestMatcher.antMatcher(HttpMethod.GET, "/api/admin/**"),
+                        new TokenBucketRateLimiter(adminUsersCapacity, adminUsersRefillPerMinute, rateLimitMaxKeys))),
+                meterRegistry);
     }
 }
@@ -0,0 +1,26 @@
+package escom.ipn.hola_spring_6IV3.config;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import escom.ipn.hola_spring_6IV3.jwt.AuthenticatedUserArgumentResolver;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Configuración de Spring MVC: registra el resolvedor que inyecta el usuario autenticado
+ * en los controladores.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final AuthenticatedUserArgumentResolver authenticatedUserArgumentResolver;
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(authenticatedUserArgumentResolver);
+    }
+}
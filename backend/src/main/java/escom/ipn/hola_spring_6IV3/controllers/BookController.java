@@ -0,0 +1,67 @@
+package escom.ipn.hola_spring_6IV3.controllers;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import escom.ipn.hola_spring_6IV3.domain.dto.BookPopularityDTO;
+import escom.ipn.hola_spring_6IV3.domain.dto.BookSearchResultDTO;
+import escom.ipn.hola_spring_6IV3.service.BookPopularityService;
+import escom.ipn.hola_spring_6IV3.service.BookSearchService;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Controlador REST con información agregada de libros
+ */
+@RestController
+@RequestMapping("/api/books")
+@RequiredArgsConstructor
+public class BookController {
+
+    private final BookPopularityService bookPopularityService;
+    private final BookSearchService bookSearchService;
+
+    /**
+     * Libros más añadidos a favoritos, en total o en la última semana/mes.
+     * El ranking se sirve desde memoria; se actualiza cada vez que se guardan los contadores.
+     */
+    @GetMapping("/popular")
+    public ResponseEntity<?> getPopularBooks(
+            @RequestParam(defaultValue = "all") String window,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            BookPopularityService.Window popularityWindow = BookPopularityService.Window.from(window);
+            int size = Math.max(1, Math.min(limit, bookPopularityService.getTopK()));
+            List<BookPopularityDTO> books = bookPopularityService.getTopBooks(popularityWindow, size);
+            
+            return ResponseEntity.ok(Map.of("window", popularityWindow.name().toLowerCase(), "books", books));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Búsqueda por título, autor o materia; la última palabra se toma como prefijo para
+     * el autocompletado. Solo se consulta OpenLibrary si el índice local no tiene resultados.
+     * Si OpenLibrary no responde, GlobalExceptionHandler devuelve 503.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchBooks(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            BookSearchResultDTO result = bookSearchService.search(q, limit);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package escom.ipn.hola_spring_6IV3.controllers;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import escom.ipn.hola_spring_6IV3.service.BookCatalogService;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Controlador REST que expone el catálogo de OpenLibrary a través del proxy con caché.
+ * Los cuerpos son el JSON original de OpenLibrary, para que el frontend no cambie de formato.
+ * Los errores del catálogo (404 / 503) los maneja GlobalExceptionHandler.
+ */
+@RestController
+@RequestMapping("/api/catalog")
+@RequiredArgsConstructor
+public class CatalogController {
+
+    private final BookCatalogService bookCatalogService;
+
+    @GetMapping("/works/{workId}")
+    public ResponseEntity<?> getWork(@PathVariable String workId) {
+        return respond(() -> bookCatalogService.getWork(workId));
+    }
+
+    @GetMapping("/authors/{authorId}")
+    public ResponseEntity<?> getAuthor(@PathVariable String authorId) {
+        return respond(() -> bookCatalogService.getAuthor(authorId));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> search(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
+        return respond(() -> bookCatalogService.search(q, limit));
+    }
+
+    @GetMapping("/subjects/{subject}")
+    public ResponseEntity<?> getSubject(
+            @PathVariable String subject,
+            @RequestParam(defaultValue = "20") int limit) {
+        return respond(() -> bookCatalogService.getSubject(subject, limit));
+    }
+
+    private ResponseEntity<?> respond(Supplier<String> json) {
+        try {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .cacheControl(CacheControl.maxAge(1, TimeUnit.HOURS).cachePrivate())
+                    .body(json.get());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+}
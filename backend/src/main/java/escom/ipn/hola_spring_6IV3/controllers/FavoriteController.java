@@ -1,17 +1,26 @@
 package escom.ipn.hola_spring_6IV3.controllers;
 
 import escom.ipn.hola_spring_6IV3.domain.dto.FavoriteDTO;
+import escom.ipn.hola_spring_6IV3.domain.request.FavoriteCheckRequest;
 import escom.ipn.hola_spring_6IV3.domain.request.FavoriteRequest;
+import escom.ipn.hola_spring_6IV3.domain.response.FavoriteImportResponse;
+import escom.ipn.hola_spring_6IV3.domain.response.FavoritePageResponse;
+import escom.ipn.hola_spring_6IV3.jwt.AuthenticatedUser;
 import escom.ipn.hola_spring_6IV3.service.FavoriteService;
-import escom.ipn.hola_spring_6IV3.service.JwtService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Controlador REST para operaciones de favoritos.
@@ -23,41 +32,105 @@ import java.util.Map;
 public class FavoriteController {
 
     private final FavoriteService favoriteService;
-    private final JwtService jwtService;
+    private final ObjectMapper objectMapper;
+
+    private static final int MAX_CHECK_BATCH = 100;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_IMPORT_SIZE = 5000;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
     /**
-     * Obtiene todos los favoritos del usuario autenticado
+     * Obtiene una página de favoritos del usuario autenticado, del más reciente al más antiguo.
+     * Usa paginación por keyset: el cliente envía como cursor el nextCursor de la página anterior.
+     * Como antes de paginar, count es el total de favoritos del usuario, no el tamaño de la página.
      */
     @GetMapping
-    public ResponseEntity<?> getUserFavorites(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<?> getUserFavorites(
+            AuthenticatedUser currentUser,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "24") int size) {
         try {
-            String username = extractUsernameFromToken(token);
-            List<FavoriteDTO> favorites = favoriteService.getUserFavorites(username);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("favorites", favorites);
-            response.put("count", favorites.size());
+            Integer userId = currentUser.id();
+            int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+            FavoritePageResponse page = favoriteService.getFavoritesPage(userId, cursor, pageSize);
             
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Error al obtener favoritos: " + e.getMessage()));
         }
     }
 
+    /**
+     * Importa favoritos de forma masiva (p. ej. listas de lectura de otros servicios)
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<?> importFavorites(
+            AuthenticatedUser currentUser,
+            @RequestBody List<FavoriteRequest> favorites) {
+        try {
+            if (favorites.size() > MAX_IMPORT_SIZE) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Máximo " + MAX_IMPORT_SIZE + " favoritos por importación"));
+            }
+            Integer userId = currentUser.id();
+            FavoriteImportResponse result = favoriteService.importFavorites(userId, favorites);
+            
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Error al importar favoritos: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Exporta todos los favoritos como NDJSON (un objeto JSON por línea).
+     * Se escriben en streaming por lotes, sin construir la lista completa en memoria.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportFavorites(AuthenticatedUser currentUser) {
+        Integer userId = currentUser.id();
+        StreamingResponseBody body = out -> {
+            try {
+                favoriteService.forEachFavorite(userId, favorite -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(favorite));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"favoritos.ndjson\"")
+                .body(body);
+    }
+
     /**
      * Añade un libro a favoritos
      */
     @PostMapping
     public ResponseEntity<?> addToFavorites(
-            @RequestHeader("Authorization") String token,
+            AuthenticatedUser currentUser,
             @RequestBody FavoriteRequest request) {
         try {
-            String username = extractUsernameFromToken(token);
-            FavoriteDTO favorite = favoriteService.addToFavorites(username, request);
+            Integer userId = currentUser.id();
+            Optional<FavoriteDTO> favorite = favoriteService.addToFavorites(userId, request);
+            if (favorite.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of("error", "El libro ya está en favoritos"));
+            }
             
             return ResponseEntity.status(HttpStatus.CREATED)
-                    .body(Map.of("message", "Libro añadido a favoritos", "favorite", favorite));
+                    .body(Map.of("message", "Libro añadido a favoritos", "favorite", favorite.get()));
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", e.getMessage()));
@@ -72,11 +145,14 @@ public class FavoriteController {
      */
     @DeleteMapping("/{bookId}")
     public ResponseEntity<?> removeFromFavorites(
-            @RequestHeader("Authorization") String token,
+            AuthenticatedUser currentUser,
             @PathVariable String bookId) {
         try {
-            String username = extractUsernameFromToken(token);
-            favoriteService.removeFromFavorites(username, bookId);
+            Integer userId = currentUser.id();
+            if (!favoriteService.removeFromFavorites(userId, bookId)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of("error", "El libro no está en favoritos"));
+            }
             
             return ResponseEntity.ok(Map.of("message", "Libro eliminado de favoritos"));
         } catch (RuntimeException e) {
@@ -93,11 +169,11 @@ public class FavoriteController {
      */
     @GetMapping("/check/{bookId}")
     public ResponseEntity<?> checkIfFavorite(
-            @RequestHeader("Authorization") String token,
+            AuthenticatedUser currentUser,
             @PathVariable String bookId) {
         try {
-            String username = extractUsernameFromToken(token);
-            boolean isFavorite = favoriteService.isBookInFavorites(username, bookId);
+            Integer userId = currentUser.id();
+            boolean isFavorite = favoriteService.isBookInFavorites(userId, bookId);
             
             return ResponseEntity.ok(Map.of("isFavorite", isFavorite));
         } catch (Exception e) {
@@ -106,16 +182,39 @@ public class FavoriteController {
         }
     }
 
+    /**
+     * Verifica en lote si varios libros están en favoritos (para las cuadrículas de libros)
+     */
+    @PostMapping("/check")
+    public ResponseEntity<?> checkFavorites(
+            AuthenticatedUser currentUser,
+            @RequestBody FavoriteCheckRequest request) {
+        try {
+            List<String> bookIds = request.getBookIds();
+            if (bookIds != null && bookIds.size() > MAX_CHECK_BATCH) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Máximo " + MAX_CHECK_BATCH + " libros por consulta"));
+            }
+            Integer userId = currentUser.id();
+            Map<String, Boolean> favorites = favoriteService.checkFavorites(userId, bookIds);
+            
+            return ResponseEntity.ok(Map.of("favorites", favorites));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Error al verificar favoritos: " + e.getMessage()));
+        }
+    }
+
     /**
      * Alterna el estado de favorito (añadir/eliminar)
      */
     @PostMapping("/toggle")
     public ResponseEntity<?> toggleFavorite(
-            @RequestHeader("Authorization") String token,
+            AuthenticatedUser currentUser,
             @RequestBody FavoriteRequest request) {
         try {
-            String username = extractUsernameFromToken(token);
-            boolean isNowFavorite = favoriteService.toggleFavorite(username, request);
+            Integer userId = currentUser.id();
+            boolean isNowFavorite = favoriteService.toggleFavorite(userId, request);
             
             String message = isNowFavorite ? "Libro añadido a favoritos" : "Libro eliminado de favoritos";
             
@@ -133,10 +232,10 @@ public class FavoriteController {
      * Obtiene el número de favoritos del usuario
      */
     @GetMapping("/count")
-    public ResponseEntity<?> getFavoritesCount(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<?> getFavoritesCount(AuthenticatedUser currentUser) {
         try {
-            String username = extractUsernameFromToken(token);
-            long count = favoriteService.getUserFavoritesCount(username);
+            Integer userId = currentUser.id();
+            long count = favoriteService.getUserFavoritesCount(userId);
             
             return ResponseEntity.ok(Map.of("count", count));
         } catch (Exception e) {
@@ -144,14 +243,4 @@ public class FavoriteController {
                     .body(Map.of("error", "Error al obtener contador de favoritos: " + e.getMessage()));
         }
     }
-
-    /**
-     * Extrae el nombre de usuario del token JWT
-     */
-    private String extractUsernameFromToken(String token) {
-        if (token != null && token.startsWith("Bearer ")) {
-            token = token.substring(7);
-        }
-        return jwtService.extractUsername(token);
-    }
 }
@@ -1,24 +1,34 @@
 package escom.ipn.hola_spring_6IV3.controllers;
 
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import escom.ipn.hola_spring_6IV3.domain.entity.ProfileImageRendition;
+import escom.ipn.hola_spring_6IV3.jwt.AuthenticatedUser;
+import escom.ipn.hola_spring_6IV3.service.ImageRenditionService;
 import escom.ipn.hola_spring_6IV3.service.UserService;
+import escom.ipn.hola_spring_6IV3.service.storage.InvalidImageException;
+import escom.ipn.hola_spring_6IV3.service.storage.ValidatingImageInputStream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.security.Principal;
 import java.util.Base64;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Controlador REST para el manejo de imágenes de perfil de usuario.
- * Las imágenes se almacenan como BLOB en la base de datos.
+ * Las imágenes se guardan en el ImageStore (direccionado por hash SHA-256)
+ * y se sirven en streaming directamente desde el almacenamiento.
  */
 @RestController
 @RequestMapping("/api/profile-image")
@@ -27,6 +37,7 @@ import java.util.Map;
 public class ProfileImageController {
 
     private final UserService userService;
+    private final ImageRenditionService imageRenditionService;
     
     // Tipos de archivo permitidos
     private static final String[] ALLOWED_EXTENSIONS = {"jpg", "jpeg", "png", "gif", "webp"};
@@ -41,10 +52,10 @@ public class ProfileImageController {
     @PostMapping("/upload")
     public ResponseEntity<?> uploadProfileImage(
             @RequestParam("file") MultipartFile file,
-            Authentication authentication) {
+            AuthenticatedUser currentUser) {
         
         try {
-            String username = authentication.getName();
+            String username = currentUser.username();
             
             // Validar el archivo
             String validationError = validateFile(file);
@@ -53,25 +64,27 @@ public class ProfileImageController {
                     .body(Map.of("error", validationError));
             }
             
-            // Convertir archivo a bytes
-            byte[] imageBytes = file.getBytes();
-            String contentType = file.getContentType();
-            
-            // Actualizar usuario en la base de datos
-            userService.updateProfileImage(username, imageBytes, contentType);
+            // Guardar la imagen en streaming (sin cargarla completa en memoria), validando
+            // la firma del formato y el tamaño mientras se copia al almacenamiento
+            String imageHash;
+            try (ValidatingImageInputStream imageStream =
+                    new ValidatingImageInputStream(file.getInputStream(), MAX_FILE_SIZE)) {
+                imageHash = userService.updateProfileImage(username, imageStream);
+            }
             
-            // Crear imagen en formato Base64 para respuesta
-            String base64Image = Base64.getEncoder().encodeToString(imageBytes);
-            String imageDataUrl = "data:" + contentType + ";base64," + base64Image;
+            String imageUrl = userService.getProfileImageUrl(username, imageHash);
             
             log.info("Imagen de perfil subida exitosamente para usuario {}", username);
             
             return ResponseEntity.ok(Map.of(
                 "success", true,
                 "message", "Imagen de perfil actualizada correctamente",
-                "imageUrl", imageDataUrl
+                "imageUrl", imageUrl
             ));
             
+        } catch (InvalidImageException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
         } catch (IOException e) {
             log.error("Error al procesar imagen de perfil", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -81,29 +94,84 @@ public class ProfileImageController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(Map.of("error", "Error inesperado: " + e.getMessage()));
         }
-    }    /**
-     * Obtener imagen de perfil del usuario especificado (devuelve bytes para img src)
+    }
+
+    /**
+     * Obtener imagen de perfil del usuario especificado.
+     * El ETag es el hash SHA-256 del contenido: si coincide con If-None-Match se
+     * responde 304 sin abrir la imagen. Con la URL versionada (?v=hash) la respuesta
+     * se marca como inmutable; sin versión el cliente debe revalidar con el ETag.
+     * Con el parámetro size se sirve la miniatura más cercana (48, 128, 512 px) si ya
+     * fue generada; si no, la imagen original con no-cache, para que el navegador no
+     * fije la original en esa URL y pida la miniatura cuando exista.
+     * La imagen se devuelve como Resource para enviarla en streaming; Spring atiende
+     * las cabeceras Range respondiendo 206 con las regiones solicitadas.
+     * La URL versionada no requiere token (para usarla en &lt;img src&gt;): sin usuario
+     * autenticado solo se responde si el hash coincide con la imagen actual, y 404 si no.
      */
     @GetMapping("/{username}")
-    public ResponseEntity<byte[]> getProfileImage(@PathVariable String username) {
+    public ResponseEntity<Resource> getProfileImage(
+            @PathVariable String username,
+            @RequestParam(name = "v", required = false) String version,
+            @RequestParam(name = "size", required = false) Integer size,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            Principal principal) {
         try {
-            // Obtener imagen desde el servicio
-            var imageData = userService.getProfileImage(username);
+            // Obtener solo los metadatos de la imagen
+            var imageInfo = userService.getProfileImageInfo(username);
+            
+            if (imageInfo == null) {
+                return ResponseEntity.notFound().build();
+            }
             
-            if (imageData == null || imageData.getImageBytes() == null) {
+            // Sin token, el hash de la URL es la única credencial: un hash antiguo no da acceso
+            if (principal == null && !imageInfo.getImageHash().equals(version)) {
+                return ResponseEntity.notFound().build();
+            }
+            
+            // Elegir la miniatura solicitada si ya está disponible
+            String imageHash = imageInfo.getImageHash();
+            String contentType = imageInfo.getContentType();
+            boolean servingRequested = true;
+            if (size != null && size > 0) {
+                Optional<ProfileImageRendition> rendition =
+                    imageRenditionService.findRendition(imageInfo.getImageHash(), size);
+                if (rendition.isPresent()) {
+                    imageHash = rendition.get().getImageHash();
+                    contentType = rendition.get().getContentType();
+                } else {
+                    servingRequested = false;
+                }
+            }
+            
+            String etag = "\"" + imageHash + "\"";
+            CacheControl cacheControl = servingRequested && imageInfo.getImageHash().equals(version)
+                ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable()
+                : CacheControl.noCache().cachePrivate();
+            
+            if (matchesEtag(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .build();
+            }
+            
+            Resource image = userService.loadProfileImage(imageHash);
+            if (image == null) {
                 return ResponseEntity.notFound().build();
             }
             
             // Determinar el tipo de contenido
-            String contentType = imageData.getContentType();
             if (contentType == null || contentType.trim().isEmpty()) {
                 contentType = "image/jpeg"; // Fallback por defecto
             }
             
             return ResponseEntity.ok()
                 .contentType(MediaType.parseMediaType(contentType))
-                .header(HttpHeaders.CACHE_CONTROL, "max-age=31536000") // Cache por 1 año
-                .body(imageData.getImageBytes());
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .body(image);
                 
         } catch (Exception e) {
             log.error("Error al obtener imagen de perfil para usuario: {}", username, e);
@@ -112,7 +180,32 @@ public class ProfileImageController {
     }
 
     /**
-     * Obtener imagen de perfil como JSON con Base64 (para JavaScript)
+     * Obtener la URL versionada de la imagen de perfil, sin leer la imagen.
+     * El cliente la asigna a &lt;img src&gt; y el navegador la guarda en caché.
+     */
+    @GetMapping("/{username}/url")
+    public ResponseEntity<?> getProfileImageUrl(@PathVariable String username) {
+        var imageInfo = userService.getProfileImageInfo(username);
+        if (imageInfo == null) {
+            return ResponseEntity.ok(Map.of(
+                "success", false,
+                "message", "Usuario no tiene imagen de perfil"
+            ));
+        }
+        String contentType = imageInfo.getContentType();
+        if (contentType == null || contentType.trim().isEmpty()) {
+            contentType = "image/jpeg";
+        }
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "imageUrl", userService.getProfileImageUrl(username, imageInfo.getImageHash()),
+            "contentType", contentType
+        ));
+    }
+
+    /**
+     * Obtener imagen de perfil como JSON con Base64 (para JavaScript).
+     * Se mantiene por compatibilidad; el frontend usa la URL versionada de /{username}/url.
      */
     @GetMapping("/{username}/data")
     public ResponseEntity<?> getProfileImageData(@PathVariable String username) {
@@ -120,7 +213,7 @@ public class ProfileImageController {
             // Obtener imagen desde el servicio
             var imageData = userService.getProfileImage(username);
             
-            if (imageData == null || imageData.getImageBytes() == null) {
+            if (imageData == null || imageData.getImage() == null) {
                 return ResponseEntity.ok(Map.of(
                     "success", false,
                     "message", "Usuario no tiene imagen de perfil"
@@ -128,7 +221,7 @@ public class ProfileImageController {
             }
             
             // Convertir a Base64
-            String base64Image = Base64.getEncoder().encodeToString(imageData.getImageBytes());
+            String base64Image = Base64.getEncoder().encodeToString(imageData.getImage().getContentAsByteArray());
             String contentType = imageData.getContentType();
             if (contentType == null || contentType.trim().isEmpty()) {
                 contentType = "image/jpeg";
@@ -139,6 +232,7 @@ public class ProfileImageController {
             return ResponseEntity.ok(Map.of(
                 "success", true,
                 "imageData", imageDataUrl,
+                "imageUrl", userService.getProfileImageUrl(username, imageData.getImageHash()),
                 "contentType", contentType
             ));
                 
@@ -153,13 +247,13 @@ public class ProfileImageController {
      * Eliminar imagen de perfil del usuario autenticado
      */
     @DeleteMapping
-    public ResponseEntity<?> deleteProfileImage(Authentication authentication) {
+    public ResponseEntity<?> deleteProfileImage(AuthenticatedUser currentUser) {
         try {
-            String username = authentication.getName();
+            String username = currentUser.username();
             log.info("Usuario {} eliminando imagen de perfil", username);
             
-            // Eliminar imagen de la base de datos
-            userService.updateProfileImage(username, null, null);
+            // Eliminar imagen del usuario
+            userService.deleteProfileImage(username);
             
             return ResponseEntity.ok(Map.of(
                 "success", true,
@@ -225,6 +319,23 @@ public class ProfileImageController {
         return null; // Sin errores
     }
 
+    /**
+     * Verifica si alguna de las etiquetas de If-None-Match coincide con el ETag actual
+     * (comparación débil, como exige RFC 9110 para If-None-Match)
+     */
+    private boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Obtener extensión del archivo
      */
@@ -0,0 +1,47 @@
+package escom.ipn.hola_spring_6IV3.controllers;
+
+import escom.ipn.hola_spring_6IV3.domain.dto.RecommendationDTO;
+import escom.ipn.hola_spring_6IV3.jwt.AuthenticatedUser;
+import escom.ipn.hola_spring_6IV3.service.RecommendationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controlador REST de recomendaciones personalizadas
+ */
+@RestController
+@RequestMapping("/api/recommendations")
+@RequiredArgsConstructor
+public class RecommendationController {
+
+    private final RecommendationService recommendationService;
+
+    private static final int MAX_RECOMMENDATIONS = 50;
+
+    /**
+     * Recomendaciones para el usuario autenticado a partir de sus favoritos.
+     * Se sirven desde el índice en memoria, sin consultar la base de datos.
+     */
+    @GetMapping
+    public ResponseEntity<?> getRecommendations(
+            AuthenticatedUser currentUser,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            int size = Math.max(1, Math.min(limit, MAX_RECOMMENDATIONS));
+            List<RecommendationDTO> recommendations = recommendationService.getRecommendations(currentUser.id(), size);
+
+            return ResponseEntity.ok(Map.of("recommendations", recommendations));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Error al obtener recomendaciones: " + e.getMessage()));
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package escom.ipn.hola_spring_6IV3.controllers;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import org.springframework.http.HttpStatus;
@@ -13,16 +12,20 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import escom.ipn.hola_spring_6IV3.domain.dto.UserDTO;
 import escom.ipn.hola_spring_6IV3.domain.entity.User;
+import escom.ipn.hola_spring_6IV3.domain.response.UserPageResponse;
+import escom.ipn.hola_spring_6IV3.exception.RoleNotFoundException;
 import escom.ipn.hola_spring_6IV3.exception.UserNotFoundException;
+import escom.ipn.hola_spring_6IV3.jwt.AuthenticatedUser;
 import escom.ipn.hola_spring_6IV3.service.JwtService;
 import escom.ipn.hola_spring_6IV3.service.UserService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * Controlador REST para operaciones de usuario.
@@ -31,21 +34,25 @@ import lombok.RequiredArgsConstructor;
 @RestController
 @RequestMapping("/api")
 @RequiredArgsConstructor
+@Slf4j
 public class UserRestController {
 
     private final UserService userService;
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
 
+    private static final int MAX_PAGE_SIZE = 200;
+
     /**
      * Obtiene información del usuario autenticado
      */
     @GetMapping("/info")
-    public ResponseEntity<?> getUserInfo(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<?> getUserInfo(AuthenticatedUser currentUser) {
         try {
-            String username = userService.extractUsernameFromToken(token);
-            User user = userService.getUserByUsername(username);
-            Map<String, Object> claims = userService.extractAllInfoFromToken(token);
+            User user = userService.getUserByUsername(currentUser.username());
+            Map<String, Object> claims = new HashMap<>(currentUser.claims());
+            claims.put("username", currentUser.username());
+            claims.put("roles", currentUser.roles());
             return ResponseEntity.ok(Map.of("claims", claims, "usuario", user));
         } catch (UserNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Error: " + e.getMessage());
@@ -55,13 +62,22 @@ public class UserRestController {
     }
 
     /**
-     * Obtiene información de todos los usuarios (solo para administradores)
+     * Obtiene una página del listado de usuarios (solo para administradores).
+     * Usa paginación por keyset: el cliente envía como cursor el nextCursor de la página anterior.
      */
-    @GetMapping("/admin/all-info")
-    public ResponseEntity<?> getAllUsersInfo() {
+    @GetMapping("/admin/users")
+    public ResponseEntity<?> getUsersPage(
+            @RequestParam(required = false) Integer cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "asc") String sort,
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) String country) {
         try {
-            List<UserDTO> users = userService.getAllUsersDto();
-            return ResponseEntity.ok(users);
+            int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+            UserPageResponse page = userService.getUsersPage(cursor, pageSize, "desc".equalsIgnoreCase(sort), role, country);
+            return ResponseEntity.ok(page);
+        } catch (RoleNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error: " + e.getMessage());
         }
@@ -71,14 +87,14 @@ public class UserRestController {
      * Actualiza información del usuario autenticado
      */
     @PutMapping("/update")
-    public ResponseEntity<?> updateUser(@RequestHeader("Authorization") String token, @RequestBody UserDTO updatedUserDto) {
+    public ResponseEntity<?> updateUser(AuthenticatedUser currentUser, @RequestBody UserDTO updatedUserDto) {
         try {
-            String username = userService.extractUsernameFromToken(token);
-            User user = userService.getUserByUsername(username);
+            User user = userService.getUserByUsername(currentUser.username());
             
-            // Registrar los datos recibidos para depuración
-            System.out.println("DTO recibido para actualización: " + updatedUserDto);
-            System.out.println("Usuario original: " + user);
+            // Nunca registrar la contraseña: solo si se pide cambiarla
+            log.debug("Actualización del usuario {}: username={}, firstname={}, lastname={}, country={}, cambio de contraseña={}",
+                    user.getUsername(), updatedUserDto.getUsername(), updatedUserDto.getFirstname(),
+                    updatedUserDto.getLastname(), updatedUserDto.getCountry(), hasPassword(updatedUserDto));
             
             // No permitir cambio de rol en la auto-actualización
             updatedUserDto.setRole(user.getRole().getName().replace("ROLE_", ""));
@@ -102,7 +118,7 @@ public class UserRestController {
         } catch (UserNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Error User: " + e.getMessage());
         } catch (Exception e) {
-            e.printStackTrace(); // Imprime el stack trace completo para depuración
+            log.error("Error al actualizar usuario {}", currentUser.username(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error: " + e.getMessage());
         }
     }
@@ -113,27 +129,23 @@ public class UserRestController {
     @PutMapping("/admin/update/{username}")
     public ResponseEntity<?> updateUserByAdmin(@PathVariable String username, @RequestBody UserDTO updatedUserDto) {
         try {
-            // Registrar los datos recibidos para depuración
-            System.out.println("Actualizando usuario: " + username);
-            System.out.println("Datos recibidos: " + updatedUserDto);
+            log.debug("Actualización de {} por un administrador: username={}, firstname={}, lastname={}, country={}, role={}, cambio de contraseña={}",
+                    username, updatedUserDto.getUsername(), updatedUserDto.getFirstname(), updatedUserDto.getLastname(),
+                    updatedUserDto.getCountry(), updatedUserDto.getRole(), hasPassword(updatedUserDto));
             
             User user = userService.getUserByUsername(username);
             User updated = userService.updateUser(user, updatedUserDto);
             
-            // Registrar el resultado
-            System.out.println("Usuario actualizado: " + updated.getUsername());
-            
             return ResponseEntity.ok(Map.of("user", updated));
         } catch (UserNotFoundException e) {
-            System.err.println("Usuario no encontrado: " + e.getMessage());
+            log.debug("Usuario no encontrado: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Error: " + e.getMessage());
         } catch (RuntimeException e) {
             // Capturar específicamente la excepción de nombre de usuario duplicado
-            System.err.println("Error de runtime: " + e.getMessage());
+            log.warn("No se pudo actualizar el usuario {}: {}", username, e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error: " + e.getMessage());
         } catch (Exception e) {
-            System.err.println("Error interno: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error al actualizar usuario {}", username, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error: " + e.getMessage());
         }
     }
@@ -152,4 +164,8 @@ public class UserRestController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error: " + e.getMessage());
         }
     }
+
+    private static boolean hasPassword(UserDTO dto) {
+        return dto.getPassword() != null && !dto.getPassword().isEmpty();
+    }
 }
@@ -1,5 +1,6 @@
 package escom.ipn.hola_spring_6IV3.controllers.auth;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -12,7 +13,7 @@ import escom.ipn.hola_spring_6IV3.domain.request.auth.RegisterRequest;
 import escom.ipn.hola_spring_6IV3.domain.response.JwtResponse;
 import escom.ipn.hola_spring_6IV3.exception.UserAlreadyExistsException;
 import escom.ipn.hola_spring_6IV3.exception.RoleNotFoundException;
-import escom.ipn.hola_spring_6IV3.exception.UserNotFoundException;
+import escom.ipn.hola_spring_6IV3.exception.TooManyRequestsException;
 import escom.ipn.hola_spring_6IV3.service.AuthService;
 import lombok.RequiredArgsConstructor;
 
@@ -42,6 +43,8 @@ public class AuthController {
             return ResponseEntity.status(HttpStatus.CONFLICT).body("Error: " + e.getMessage());
         } catch (RoleNotFoundException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error: " + e.getMessage());
+        } catch (TooManyRequestsException e) {
+            return tooManyRequests(e);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error inesperado: " + e.getMessage());
         }
@@ -58,10 +61,19 @@ public class AuthController {
         try {
             JwtResponse jwtResponse = authService.loginUser(request);
             return ResponseEntity.ok(jwtResponse);
-        } catch (UserNotFoundException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Error: " + e.getMessage());
+        } catch (TooManyRequestsException e) {
+            return tooManyRequests(e);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Error de autenticación: " + e.getMessage());
         }
     }
+
+    /**
+     * Respuesta 429 cuando el pool de hashing de contraseñas está saturado
+     */
+    private ResponseEntity<?> tooManyRequests(TooManyRequestsException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body("Error: " + e.getMessage());
+    }
 }
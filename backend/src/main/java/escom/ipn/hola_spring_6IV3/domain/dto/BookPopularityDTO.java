@@ -0,0 +1,20 @@
+package escom.ipn.hola_spring_6IV3.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Libro del ranking de popularidad con su número de favoritos en la ventana consultada
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookPopularityDTO {
+    private String bookId;
+    private String bookTitle;
+    private String bookCoverId;
+    private long favorites;
+}
@@ -0,0 +1,21 @@
+package escom.ipn.hola_spring_6IV3.domain.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado de una búsqueda de libros. source indica si se respondió con el índice local
+ * ("local") o hubo que consultar OpenLibrary ("openlibrary").
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSearchResultDTO {
+    private String source;
+    private List<BookSummaryDTO> books;
+}
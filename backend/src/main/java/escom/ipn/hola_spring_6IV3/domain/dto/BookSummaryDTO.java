@@ -0,0 +1,23 @@
+package escom.ipn.hola_spring_6IV3.domain.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Metadatos de un libro del catálogo local usados para enriquecer favoritos y recomendaciones
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSummaryDTO {
+    private String bookId;
+    private String title;
+    private String coverId;
+    private List<String> authors;
+    private Integer firstPublishYear;
+}
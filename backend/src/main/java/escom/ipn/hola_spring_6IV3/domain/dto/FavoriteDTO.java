@@ -1,6 +1,7 @@
 package escom.ipn.hola_spring_6IV3.domain.dto;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 public class FavoriteDTO {
     
@@ -10,6 +11,10 @@ public class FavoriteDTO {
     private String bookCoverId;
     private LocalDateTime addedDate;
     
+    // Metadatos del catálogo local (null mientras el libro no se ha descargado)
+    private List<String> authors;
+    private Integer firstPublishYear;
+    
     // Constructor por defecto
     public FavoriteDTO() {}
     
@@ -62,4 +67,20 @@ public class FavoriteDTO {
     public void setAddedDate(LocalDateTime addedDate) {
         this.addedDate = addedDate;
     }
+    
+    public List<String> getAuthors() {
+        return authors;
+    }
+    
+    public void setAuthors(List<String> authors) {
+        this.authors = authors;
+    }
+    
+    public Integer getFirstPublishYear() {
+        return firstPublishYear;
+    }
+    
+    public void setFirstPublishYear(Integer firstPublishYear) {
+        this.firstPublishYear = firstPublishYear;
+    }
 }
@@ -1,18 +1,23 @@
 package escom.ipn.hola_spring_6IV3.domain.dto;
 
+import org.springframework.core.io.Resource;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 /**
- * DTO para transferir datos de imagen de perfil
+ * DTO para transferir datos de imagen de perfil.
+ * La imagen se expone como Resource para poder enviarla en streaming
+ * (incluyendo rangos HTTP) sin cargarla completa en memoria.
  */
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class ProfileImageDTO {
-    private byte[] imageBytes;
+    private Resource image;
+    private String imageHash;
     private String contentType;
 }
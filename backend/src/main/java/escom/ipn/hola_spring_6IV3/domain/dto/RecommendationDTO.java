@@ -0,0 +1,27 @@
+package escom.ipn.hola_spring_6IV3.domain.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Libro recomendado con su puntuación y el favorito del usuario que más influyó.
+ * Si becauseBookId es null la recomendación proviene del ranking de popularidad.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecommendationDTO {
+    private String bookId;
+    private String bookTitle;
+    private String bookCoverId;
+    private List<String> authors;
+    private Integer firstPublishYear;
+    private double score;
+    private String becauseBookId;
+    private String becauseBookTitle;
+}
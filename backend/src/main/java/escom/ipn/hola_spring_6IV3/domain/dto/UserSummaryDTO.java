@@ -0,0 +1,24 @@
+package escom.ipn.hola_spring_6IV3.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO ligero para el listado administrativo de usuarios.
+ * La imagen de perfil se referencia por URL, nunca se incluye en línea.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummaryDTO {
+    private Integer id;
+    private String username;
+    private String firstname;
+    private String lastname;
+    private String country;
+    private String role;
+    private String profileImageUrl;
+}
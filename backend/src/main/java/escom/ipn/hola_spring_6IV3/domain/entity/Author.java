@@ -0,0 +1,29 @@
+package escom.ipn.hola_spring_6IV3.domain.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Autor del catálogo local, identificado por su ID de OpenLibrary
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "authors")
+public class Author {
+
+    @Id
+    @Column(name = "author_id", length = 32)
+    private String authorId; // ID del autor en OpenLibrary (ej: "OL23919A")
+
+    @Column(name = "name")
+    private String name;
+}
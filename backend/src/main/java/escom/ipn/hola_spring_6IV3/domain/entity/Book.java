@@ -0,0 +1,58 @@
+package escom.ipn.hola_spring_6IV3.domain.entity;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.JoinTable;
+import jakarta.persistence.ManyToMany;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Libro del catálogo local con los metadatos que antes se pedían a OpenLibrary en cada
+ * vista (autores, materias y año de publicación). Se llena en segundo plano cuando un
+ * libro se añade a favoritos por primera vez.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "books")
+public class Book {
+
+    @Id
+    @Column(name = "book_id", length = 32)
+    private String bookId; // ID de la obra en OpenLibrary (ej: "OL45804W")
+
+    @Column(name = "title", length = 512)
+    private String title;
+
+    @Column(name = "cover_id")
+    private String coverId;
+
+    @Column(name = "first_publish_year")
+    private Integer firstPublishYear;
+
+    @Column(name = "fetched_at", nullable = false)
+    private LocalDateTime fetchedAt;
+
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(name = "book_authors",
+            joinColumns = @JoinColumn(name = "book_id"),
+            inverseJoinColumns = @JoinColumn(name = "author_id"))
+    private Set<Author> authors = new LinkedHashSet<>();
+
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(name = "book_subjects",
+            joinColumns = @JoinColumn(name = "book_id"),
+            inverseJoinColumns = @JoinColumn(name = "subject_id"))
+    private Set<Subject> subjects = new LinkedHashSet<>();
+}
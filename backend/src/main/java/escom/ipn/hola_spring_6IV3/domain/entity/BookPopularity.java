@@ -0,0 +1,36 @@
+package escom.ipn.hola_spring_6IV3.domain.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Total acumulado de veces que un libro ha sido añadido a favoritos.
+ * Se actualiza por lotes desde los contadores en memoria de BookPopularityService.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "book_popularity")
+public class BookPopularity {
+
+    @Id
+    @Column(name = "book_id")
+    private String bookId; // ID del libro en OpenLibrary
+
+    @Column(name = "favorite_count", nullable = false)
+    private long favoriteCount;
+
+    @Column(name = "book_title")
+    private String bookTitle;
+
+    @Column(name = "book_cover_id")
+    private String bookCoverId;
+}
@@ -0,0 +1,51 @@
+package escom.ipn.hola_spring_6IV3.domain.entity;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cambio neto de favoritos de un libro en un día.
+ * Permite calcular los libros más populares de la última semana o mes.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@IdClass(BookPopularityDaily.Key.class)
+@Table(name = "book_popularity_daily")
+public class BookPopularityDaily {
+
+    @Id
+    @Column(name = "book_id")
+    private String bookId;
+
+    @Id
+    @Column(name = "stat_day")
+    private LocalDate day;
+
+    @Column(name = "favorite_count", nullable = false)
+    private long favoriteCount; // Altas menos bajas del día
+
+    /**
+     * Llave compuesta (libro, día)
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private String bookId;
+        private LocalDate day;
+    }
+}
@@ -5,6 +5,8 @@ import jakarta.persistence.*;
 @Entity
 @Table(name = "favorites", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"user_id", "book_id"})
+}, indexes = {
+    @Index(name = "idx_favorites_user_added_id", columnList = "user_id, added_date, id")
 })
 public class Favorite {
     
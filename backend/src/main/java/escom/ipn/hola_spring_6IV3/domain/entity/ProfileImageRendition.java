@@ -0,0 +1,54 @@
+package escom.ipn.hola_spring_6IV3.domain.entity;
+
+import java.io.Serializable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Versión redimensionada de una imagen de perfil.
+ * Se identifica por el hash de la imagen original y el tamaño (lado en píxeles),
+ * por lo que usuarios con la misma imagen comparten sus miniaturas.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@IdClass(ProfileImageRendition.Key.class)
+@Table(name = "profile_image_rendition")
+public class ProfileImageRendition {
+
+    @Id
+    @Column(name = "source_hash", length = 64)
+    private String sourceHash; // SHA-256 de la imagen original
+
+    @Id
+    @Column(name = "size_px")
+    private Integer size; // Lado del cuadrado en píxeles
+
+    @Column(name = "image_hash", nullable = false, length = 64)
+    private String imageHash; // SHA-256 de la miniatura en el ImageStore
+
+    @Column(name = "content_type", nullable = false)
+    private String contentType;
+
+    /**
+     * Llave compuesta (hash original, tamaño)
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private String sourceHash;
+        private Integer size;
+    }
+}
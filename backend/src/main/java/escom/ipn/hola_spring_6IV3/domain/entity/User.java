@@ -14,19 +14,24 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "user", uniqueConstraints = {@UniqueConstraint(columnNames = {"username"})})
+@Table(name = "user", uniqueConstraints = {@UniqueConstraint(columnNames = {"username"})}, indexes = {
+    @Index(name = "idx_user_role_id", columnList = "role, id"),
+    @Index(name = "idx_user_country_id", columnList = "country, id")
+})
 public class User implements UserDetails {
 
     @Id
@@ -41,17 +46,16 @@ public class User implements UserDetails {
     private String country;    
     
     @Column(nullable = false)
+    @ToString.Exclude
     private String password;
 
-    @Column(name = "profile_image", columnDefinition = "LONGBLOB")
-    private byte[] profileImage; // Binary Large Object (BLOB)
-
-    @Column(name = "profile_image_type")
-    private String profileImageType; // Tipo de contenido (Multipurpose Internet Mail Extensions)
-
     @Enumerated(EnumType.STRING)
     private Role role;
 
+    @Builder.Default
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion = 0; // Se incrementa para revocar los tokens emitidos previamente
+
     /**
      * Returns the authorities granted to the user. This method is used by Spring Security
      * to determine the roles and permissions assigned to the user.
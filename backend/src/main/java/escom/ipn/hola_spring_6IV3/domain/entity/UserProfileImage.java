@@ -0,0 +1,35 @@
+package escom.ipn.hola_spring_6IV3.domain.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Imagen de perfil de un usuario.
+ * Vive en su propia tabla para que cargar un User nunca arrastre datos de la imagen.
+ * Los bytes se guardan en el ImageStore; aquí solo se conserva su hash SHA-256
+ * y el tipo de contenido.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "user_profile_image")
+public class UserProfileImage {
+
+    @Id
+    @Column(name = "user_id")
+    private Integer userId; // Misma llave que el usuario propietario
+
+    @Column(name = "image_hash", nullable = false, length = 64)
+    private String imageHash; // SHA-256 del contenido, llave en el ImageStore
+
+    @Column(name = "content_type")
+    private String contentType; // Tipo de contenido (Multipurpose Internet Mail Extensions)
+}
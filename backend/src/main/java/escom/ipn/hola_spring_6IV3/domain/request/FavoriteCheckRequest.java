@@ -0,0 +1,25 @@
+package escom.ipn.hola_spring_6IV3.domain.request;
+
+import java.util.List;
+
+public class FavoriteCheckRequest {
+    
+    private List<String> bookIds; // IDs de OpenLibrary de los libros mostrados
+    
+    // Constructor por defecto
+    public FavoriteCheckRequest() {}
+    
+    // Constructor con parámetros
+    public FavoriteCheckRequest(List<String> bookIds) {
+        this.bookIds = bookIds;
+    }
+    
+    // Getters y Setters
+    public List<String> getBookIds() {
+        return bookIds;
+    }
+    
+    public void setBookIds(List<String> bookIds) {
+        this.bookIds = bookIds;
+    }
+}
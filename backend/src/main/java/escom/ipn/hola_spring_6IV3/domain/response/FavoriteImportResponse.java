@@ -0,0 +1,19 @@
+package escom.ipn.hola_spring_6IV3.domain.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado de una importación masiva de favoritos
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FavoriteImportResponse {
+    private int requested; // Favoritos recibidos
+    private int imported;  // Favoritos insertados
+    private int skipped;   // Repetidos, inválidos o ya existentes
+}
@@ -0,0 +1,23 @@
+package escom.ipn.hola_spring_6IV3.domain.response;
+
+import java.util.List;
+
+import escom.ipn.hola_spring_6IV3.domain.dto.FavoriteDTO;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Página de favoritos con el cursor opaco para solicitar la siguiente
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FavoritePageResponse {
+    private List<FavoriteDTO> favorites;
+    private String nextCursor; // null si no hay más resultados
+    private boolean hasMore;
+    private long count; // total de favoritos del usuario, no solo los de esta página
+}
@@ -0,0 +1,22 @@
+package escom.ipn.hola_spring_6IV3.domain.response;
+
+import java.util.List;
+
+import escom.ipn.hola_spring_6IV3.domain.dto.UserSummaryDTO;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Página de usuarios con el cursor para solicitar la siguiente
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPageResponse {
+    private List<UserSummaryDTO> users;
+    private Integer nextCursor; // null si no hay más resultados
+    private boolean hasMore;
+}
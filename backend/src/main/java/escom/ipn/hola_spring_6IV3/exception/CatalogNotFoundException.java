@@ -0,0 +1,13 @@
+package escom.ipn.hola_spring_6IV3.exception;
+
+/**
+ * Excepción lanzada cuando el catálogo de libros (OpenLibrary) no tiene el recurso solicitado.
+ */
+public class CatalogNotFoundException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CatalogNotFoundException(String path) {
+        super("El recurso '" + path + "' no existe en el catálogo.");
+    }
+}
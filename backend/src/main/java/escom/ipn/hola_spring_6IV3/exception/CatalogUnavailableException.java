@@ -0,0 +1,18 @@
+package escom.ipn.hola_spring_6IV3.exception;
+
+/**
+ * Excepción lanzada cuando el catálogo de libros (OpenLibrary) no responde a tiempo,
+ * devuelve un error o ya tiene demasiadas peticiones en curso.
+ */
+public class CatalogUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CatalogUnavailableException(String message) {
+        super(message);
+    }
+
+    public CatalogUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,21 @@
+package escom.ipn.hola_spring_6IV3.exception;
+
+/**
+ * Excepción lanzada cuando el servidor no puede aceptar más trabajo de este tipo por ahora.
+ * Lleva los segundos sugeridos para reintentar (encabezado Retry-After de la respuesta 429).
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,67 @@
+package escom.ipn.hola_spring_6IV3.jwt;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import escom.ipn.hola_spring_6IV3.domain.entity.User;
+
+/**
+ * Usuario autenticado de la petición, construido una sola vez por JwtAuthenticationFilter a
+ * partir del token verificado. Es el principal en el modo sin estado y, en ambos modos, se
+ * guarda como atributo de la petición para que los controladores lo reciban como parámetro
+ * (AuthenticatedUserArgumentResolver) sin volver a parsear el encabezado Authorization.
+ *
+ * @param id ID numérico del usuario
+ * @param username Nombre de usuario
+ * @param roles Roles con prefijo "ROLE_"
+ * @param claims Claims completos del token
+ */
+public record AuthenticatedUser(
+        Integer id,
+        String username,
+        List<String> roles,
+        Map<String, Object> claims) implements Principal {
+
+    /**
+     * Atributo de la petición donde el filtro deja al usuario autenticado
+     */
+    public static final String REQUEST_ATTRIBUTE = AuthenticatedUser.class.getName();
+
+    /**
+     * Construye el principal a partir de un token ya verificado
+     */
+    public static AuthenticatedUser from(VerifiedToken token) {
+        return new AuthenticatedUser(token.userId(), token.subject(), token.roles(), token.claims());
+    }
+
+    /**
+     * Construye el usuario a partir del usuario cargado de la base de datos (ID y roles
+     * vigentes) y de los claims del token ya verificado
+     */
+    public static AuthenticatedUser from(UserDetails userDetails, VerifiedToken token) {
+        Integer id = userDetails instanceof User user ? user.getId() : token.userId();
+        List<String> roles = userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+        return new AuthenticatedUser(id, userDetails.getUsername(), roles, token.claims());
+    }
+
+    /**
+     * Autoridades de Spring Security correspondientes a los roles del token
+     */
+    public List<GrantedAuthority> authorities() {
+        return roles.stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
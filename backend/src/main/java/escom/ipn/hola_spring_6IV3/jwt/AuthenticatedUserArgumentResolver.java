@@ -0,0 +1,59 @@
+package escom.ipn.hola_spring_6IV3.jwt;
+
+import java.util.Map;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import escom.ipn.hola_spring_6IV3.domain.entity.User;
+
+/**
+ * Inyecta el AuthenticatedUser de la petición en los parámetros de los controladores.
+ * Lo toma del atributo que deja JwtAuthenticationFilter, así el token se verifica una sola
+ * vez por petición. Si la autenticación no vino del filtro se construye desde el contexto
+ * de seguridad; sin usuario autenticado se responde 401.
+ */
+@Component
+public class AuthenticatedUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(@NonNull MethodParameter parameter) {
+        return AuthenticatedUser.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(
+            @NonNull MethodParameter parameter,
+            ModelAndViewContainer mavContainer,
+            @NonNull NativeWebRequest webRequest,
+            WebDataBinderFactory binderFactory) {
+
+        Object attribute = webRequest.getAttribute(AuthenticatedUser.REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (attribute instanceof AuthenticatedUser user) {
+            return user;
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()) {
+            if (authentication.getPrincipal() instanceof AuthenticatedUser user) {
+                return user;
+            }
+            if (authentication.getPrincipal() instanceof User user) {
+                return new AuthenticatedUser(user.getId(), user.getUsername(),
+                        user.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList(),
+                        Map.of());
+            }
+        }
+        throw new AuthenticationCredentialsNotFoundException("La petición no tiene un usuario autenticado");
+    }
+}
@@ -10,8 +10,11 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.lang.NonNull;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
+import escom.ipn.hola_spring_6IV3.domain.entity.User;
 import escom.ipn.hola_spring_6IV3.service.JwtService;
+import io.jsonwebtoken.JwtException;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -21,7 +24,8 @@ import jakarta.servlet.http.HttpServletResponse;
 /**
  * Filtro de autenticación JWT.
  * Intercepta cada solicitud HTTP para validar el token JWT en el encabezado Authorization.
- * Si el token es válido, establece la autenticación en el contexto de seguridad.
+ * Si el token es válido, establece la autenticación en el contexto de seguridad y deja
+ * el AuthenticatedUser de la petición para los controladores.
  */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -32,6 +36,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    /**
+     * Si está activo, la autenticación se construye a partir de los claims del token
+     * sin consultar al usuario en la base de datos
+     */
+    @Value("${jwt.stateless-principal.enabled:false}")
+    private boolean statelessPrincipal;
+
     /**
      * Extrae el token JWT del encabezado Authorization
      */
@@ -43,6 +57,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         return authorizationHeader.substring(7);
     }
 
+    /**
+     * Comprueba que el token no haya sido revocado al incrementar la versión del usuario
+     */
+    private boolean isCurrentVersion(VerifiedToken verified, UserDetails userDetails) {
+        if (verified.tokenVersion() == null || !(userDetails instanceof User user)) {
+            return true;
+        }
+        return verified.tokenVersion() == user.getTokenVersion();
+    }
+
     /**
      * Procesa cada solicitud para validar el token JWT y establecer la autenticación
      */
@@ -60,12 +84,33 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        // Validar el token y extraer el usuario
-        String username = jwtService.extractUsername(token);
+        // Verificar el token una sola vez (firma + expiración) y extraer el usuario
+        VerifiedToken verified;
+        try {
+            verified = jwtService.verifyToken(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // Modo sin estado: roles, usuario e ID salen del token; la revocación se
+        // comprueba contra la tabla de versiones en memoria
+        if (statelessPrincipal && verified.userId() != null && verified.tokenVersion() != null) {
+            if (tokenVersionRegistry.isCurrent(verified.userId(), verified.tokenVersion())) {
+                AuthenticatedUser principal = AuthenticatedUser.from(verified);
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(principal, null, principal.authorities()));
+                request.setAttribute(AuthenticatedUser.REQUEST_ATTRIBUTE, principal);
+            }
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String username = verified.subject();
         if (username != null) {
             UserDetails userDetails = userDetailsService.loadUserByUsername(username);
             
-            if (jwtService.isTokenValid(token, userDetails)) {
+            if (username.equals(userDetails.getUsername()) && isCurrentVersion(verified, userDetails)) {
                 // Crear un objeto de autenticación y establecerlo en el contexto de seguridad
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(
@@ -74,6 +119,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                 userDetails.getAuthorities());
                 
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+                request.setAttribute(AuthenticatedUser.REQUEST_ATTRIBUTE,
+                        AuthenticatedUser.from(userDetails, verified));
             }
         }
 
@@ -1,18 +1,22 @@
 package escom.ipn.hola_spring_6IV3.jwt;
 
-import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.crypto.SecretKey;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import escom.ipn.hola_spring_6IV3.domain.entity.User;
+
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 
 /**
  * Componente para generación y validación de tokens JWT.
@@ -27,6 +31,21 @@ public class JwtTokenProvider {
     @Value("${jwt.expiration}")
     private long jwtExpirationInMills;
 
+    @Value("${jwt.verified-cache.max-entries:10000}")
+    private int verifiedCacheMaxEntries;
+
+    private SecretKey signingKey;
+    private VerifiedTokenCache verifiedTokenCache;
+
+    /**
+     * Deriva la clave HMAC una sola vez y prepara la caché de tokens verificados
+     */
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.verifiedTokenCache = new VerifiedTokenCache(verifiedCacheMaxEntries);
+    }
+
     /**
      * Genera un token JWT para un usuario sin claims adicionales
      */
@@ -41,14 +60,6 @@ public class JwtTokenProvider {
         return getToken(extraClaims, user);
     }
 
-    /**
-     * Obtiene la clave secreta para firmar el JWT
-     */
-    private Key getKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-
     /**
      * Construye un token JWT con los datos proporcionados
      */
@@ -63,63 +74,54 @@ public class JwtTokenProvider {
                 .map(authority -> authority.getAuthority())
                 .toArray());
         }
+
+        // ID y versión de token para poder autenticar sin consultar la BD y revocar tokens
+        if (user instanceof User entity && entity.getId() != null) {
+            allClaims.put("uid", entity.getId());
+            allClaims.put("ver", entity.getTokenVersion());
+        }
         
         return Jwts.builder()
             .setClaims(allClaims)
             .setSubject(user.getUsername())
             .setIssuedAt(new Date(System.currentTimeMillis()))
             .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationInMills))
-            .signWith(getKey())
+            .signWith(signingKey)
             .compact();
     }
 
     /**
-     * Extrae los claims del token JWT
+     * Verifica firma y expiración del token una sola vez.
+     * Si el mismo token ya fue verificado y sigue vigente se devuelve desde caché
+     * sin repetir la operación criptográfica.
+     *
+     * @throws JwtException si el token es inválido o ha expirado
      */
-    @SuppressWarnings("deprecation")
-    private Claims extractClaims(String token) {
-        return Jwts.parser()
-            .setSigningKey(getKey())
+    public VerifiedToken verify(String token) {
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verifiedTokenCache.get(token, now);
+        if (cached != null) {
+            return cached;
+        }
+
+        VerifiedToken verified = VerifiedToken.from(Jwts.parser()
+            .verifyWith(signingKey)
             .build()
-            .parseClaimsJws(token)
-            .getBody();
-    }
-    
-    /**
-     * Verifica si el token ha expirado
-     */
-    private boolean isTokenExpired(String token) {
-        return extractClaims(token).getExpiration().before(new Date());
-    }
-    
-    /**
-     * Extrae el nombre de usuario del token
-     */
-    public String extractUsername(String token){
-        return extractClaims(token).getSubject();
+            .parseSignedClaims(token)
+            .getPayload());
+        verifiedTokenCache.put(token, verified, now);
+        return verified;
     }
     
-    /**
-     * Extrae toda la información del token
-     */
-    public Map<String, Object> extractAllInfo(String token) {
-        Claims claims = extractClaims(token);
-        Map<String, Object> info = new HashMap<>();
-        info.put("username", claims.getSubject());
-        info.put("issuedAt", claims.getIssuedAt());
-        info.put("expiration", claims.getExpiration());
-        info.putAll(claims);
-        return info;
-    }
-
     /**
      * Valida un token JWT para un usuario específico
      */
     public boolean isTokenValid(String token, UserDetails user) {
         try {
-            final String username = extractUsername(token);
-            return username.equals(user.getUsername()) && !isTokenExpired(token);
-        } catch (Exception e) {
+            VerifiedToken verified = verify(token);
+            return verified.subject().equals(user.getUsername())
+                && !verified.isExpired(System.currentTimeMillis());
+        } catch (JwtException | IllegalArgumentException e) {
             return false;
         }
     }
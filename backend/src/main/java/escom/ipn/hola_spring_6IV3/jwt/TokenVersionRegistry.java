@@ -0,0 +1,106 @@
+package escom.ipn.hola_spring_6IV3.jwt;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import escom.ipn.hola_spring_6IV3.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tabla en memoria con la versión de token vigente de cada usuario.
+ * Un token es válido solo si su claim "ver" coincide con la versión actual;
+ * incrementar la versión de un usuario revoca todos sus tokens anteriores.
+ * La tabla se refresca periódicamente desde la base de datos para reflejar
+ * cambios hechos por otras instancias. Los cambios locales se registran solo
+ * después de confirmar la transacción que los hizo.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TokenVersionRegistry {
+
+    /** Marca para usuarios eliminados: ningún token puede alcanzarla */
+    private static final int REVOKED = Integer.MAX_VALUE;
+
+    private final UserRepository userRepository;
+
+    @Value("${jwt.stateless-principal.enabled:false}")
+    private boolean enabled;
+
+    private volatile Map<Integer, Integer> versions = new ConcurrentHashMap<>();
+
+    /** Cambios locales registrados mientras hay un refresco en curso (null si no lo hay) */
+    private volatile Map<Integer, Integer> writesDuringRefresh;
+
+    /**
+     * Indica si la versión del token sigue vigente para el usuario
+     */
+    public boolean isCurrent(int userId, int tokenVersion) {
+        Integer current = versions.get(userId);
+        if (current == null) {
+            // Usuario registrado después del último refresco (o eliminado)
+            current = userRepository.findTokenVersionById(userId).orElse(REVOKED);
+            versions.merge(userId, current, Math::max);
+        }
+        return tokenVersion == current;
+    }
+
+    /**
+     * Registra la nueva versión de un usuario tras confirmar su modificación en la base de datos
+     */
+    public void update(int userId, int tokenVersion) {
+        recordWrite(userId, tokenVersion);
+        versions.merge(userId, tokenVersion, Math::max);
+    }
+
+    /**
+     * Revoca todos los tokens de un usuario tras confirmar su eliminación
+     */
+    public void revoke(int userId) {
+        recordWrite(userId, REVOKED);
+        versions.put(userId, REVOKED);
+    }
+
+    /**
+     * Se llama antes de tocar la tabla: si el refresco ya aplicó los cambios pendientes,
+     * la tabla que se lee a continuación es la nueva.
+     */
+    private void recordWrite(int userId, int tokenVersion) {
+        Map<Integer, Integer> writes = writesDuringRefresh;
+        if (writes != null) {
+            writes.merge(userId, tokenVersion, Math::max);
+        }
+    }
+
+    /**
+     * Recarga la tabla completa desde la base de datos.
+     * La base de datos manda: de la tabla local solo se conservan (por máximo) los
+     * cambios registrados después de empezar la consulta, que esta pudo no ver.
+     */
+    @Scheduled(fixedDelayString = "${jwt.token-version.refresh-interval-ms:30000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        Map<Integer, Integer> writes = new ConcurrentHashMap<>();
+        writesDuringRefresh = writes;
+        try {
+            Map<Integer, Integer> fresh = new ConcurrentHashMap<>();
+            for (UserRepository.TokenVersionView row : userRepository.findAllTokenVersions()) {
+                fresh.put(row.getId(), row.getTokenVersion());
+            }
+            versions = fresh;
+            // Los cambios que lleguen a partir de aquí ya escriben en la tabla nueva
+            writes.forEach((id, version) -> fresh.computeIfPresent(id, (key, loaded) -> Math.max(loaded, version)));
+        } catch (Exception e) {
+            log.warn("No se pudo refrescar la tabla de versiones de token: {}", e.getMessage());
+        } finally {
+            writesDuringRefresh = null;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package escom.ipn.hola_spring_6IV3.jwt;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Resultado inmutable de verificar un token JWT.
+ * Se construye una sola vez por token (firma y expiración ya comprobadas)
+ * y se reutiliza en lugar de volver a parsear el token.
+ *
+ * @param subject Nombre de usuario (claim "sub")
+ * @param claims Copia inmutable de todos los claims del token
+ * @param issuedAtMillis Fecha de emisión en milisegundos
+ * @param expiresAtMillis Fecha de expiración en milisegundos
+ */
+public record VerifiedToken(
+        String subject,
+        Map<String, Object> claims,
+        long issuedAtMillis,
+        long expiresAtMillis) {
+
+    /**
+     * Construye el token verificado a partir de los claims ya validados por jjwt
+     */
+    static VerifiedToken from(Claims claims) {
+        Date issuedAt = claims.getIssuedAt();
+        Date expiration = claims.getExpiration();
+        return new VerifiedToken(
+                claims.getSubject(),
+                Map.copyOf(claims),
+                issuedAt != null ? issuedAt.getTime() : 0L,
+                expiration != null ? expiration.getTime() : Long.MAX_VALUE);
+    }
+
+    /**
+     * Indica si el token ya expiró en el instante indicado
+     */
+    public boolean isExpired(long nowMillis) {
+        return expiresAtMillis <= nowMillis;
+    }
+
+    /**
+     * Roles incluidos en el claim "roles" del token
+     */
+    public List<String> roles() {
+        Object roles = claims.get("roles");
+        if (roles instanceof Collection<?> collection) {
+            return collection.stream().map(String::valueOf).toList();
+        }
+        return List.of();
+    }
+
+    /**
+     * ID numérico del usuario (claim "uid"), o null si el token no lo incluye
+     */
+    public Integer userId() {
+        return intClaim("uid");
+    }
+
+    /**
+     * Versión de token del usuario al emitirlo (claim "ver"), o null si no la incluye
+     */
+    public Integer tokenVersion() {
+        return intClaim("ver");
+    }
+
+    private Integer intClaim(String name) {
+        return claims.get(name) instanceof Number number ? number.intValue() : null;
+    }
+
+    public Date issuedAt() {
+        return new Date(issuedAtMillis);
+    }
+
+    public Date expiration() {
+        return new Date(expiresAtMillis);
+    }
+}
@@ -0,0 +1,89 @@
+package escom.ipn.hola_spring_6IV3.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Caché acotada de tokens JWT ya verificados.
+ * La llave es el digest SHA-256 del token (no se guarda el token en claro) y cada
+ * entrada se descarta en cuanto pasa el "exp" de su token. Como todos los tokens
+ * se emiten con la misma duración, el orden de inserción coincide con el orden de
+ * expiración y basta una cola FIFO para expulsar primero a los más antiguos.
+ */
+class VerifiedTokenCache {
+
+    private final int maxEntries;
+    private final Map<String, VerifiedToken> entries = new ConcurrentHashMap<>();
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    VerifiedTokenCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Obtiene el token verificado si está en caché y no ha expirado
+     */
+    VerifiedToken get(String token, long nowMillis) {
+        if (maxEntries <= 0) {
+            return null;
+        }
+        String key = digest(token);
+        VerifiedToken cached = entries.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.isExpired(nowMillis)) {
+            entries.remove(key, cached);
+            return null;
+        }
+        return cached;
+    }
+
+    /**
+     * Guarda un token recién verificado, expulsando entradas expiradas o las más antiguas
+     */
+    void put(String token, VerifiedToken verified, long nowMillis) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        String key = digest(token);
+        if (entries.putIfAbsent(key, verified) == null) {
+            insertionOrder.add(key);
+        }
+        evict(nowMillis);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void evict(long nowMillis) {
+        String head;
+        while ((head = insertionOrder.peek()) != null) {
+            VerifiedToken oldest = entries.get(head);
+            boolean stale = oldest == null || oldest.isExpired(nowMillis);
+            if (!stale && entries.size() <= maxEntries) {
+                return;
+            }
+            String evicted = insertionOrder.poll();
+            if (evicted != null) {
+                entries.remove(evicted);
+            }
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
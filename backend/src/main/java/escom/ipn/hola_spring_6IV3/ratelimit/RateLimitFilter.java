@@ -0,0 +1,124 @@
+package escom.ipn.hola_spring_6IV3.ratelimit;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import escom.ipn.hola_spring_6IV3.jwt.AuthenticatedUser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Filtro de control de admisión para endpoints costosos (BCrypt, subidas, listados).
+ * Aplica la primera regla que coincide con la petición; si la cubeta de la clave
+ * (usuario o IP) está vacía responde 429 sin llegar al controlador.
+ *
+ * Las respuestas limitadas llevan los encabezados RateLimit-Limit, RateLimit-Remaining y
+ * RateLimit-Reset (segundos hasta recargar la cubeta) y, en las 429, Retry-After.
+ * Se registra en SecurityConfig después de JwtAuthenticationFilter para conocer al usuario.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    static final String LIMIT_HEADER = "RateLimit-Limit";
+    static final String REMAINING_HEADER = "RateLimit-Remaining";
+    static final String RESET_HEADER = "RateLimit-Reset";
+
+    private static final byte[] TOO_MANY_REQUESTS_BODY =
+            "{\"error\":\"too_many_requests\",\"message\":\"Demasiadas peticiones, intenta de nuevo más tarde\"}"
+                    .getBytes(StandardCharsets.UTF_8);
+
+    private final List<RateLimitRule> rules;
+    private final Counter[] rejectedCounters;
+
+    public RateLimitFilter(List<RateLimitRule> rules, MeterRegistry meterRegistry) {
+        this.rules = List.copyOf(rules);
+        this.rejectedCounters = new Counter[this.rules.size()];
+        for (int i = 0; i < this.rules.size(); i++) {
+            RateLimitRule rule = this.rules.get(i);
+            Gauge.builder("http.ratelimit.keys", rule.limiter(), TokenBucketRateLimiter::size)
+                    .tag("rule", rule.name())
+                    .description("Clientes con cubeta propia en el limitador de peticiones")
+                    .register(meterRegistry);
+            rejectedCounters[i] = Counter.builder("http.ratelimit.rejected")
+                    .tag("rule", rule.name())
+                    .description("Peticiones rechazadas con 429 por el limitador")
+                    .register(meterRegistry);
+            FunctionCounter.builder("http.ratelimit.evicted", rule.limiter(), TokenBucketRateLimiter::evictions)
+                    .tag("rule", rule.name())
+                    .description("Clientes desalojados del limitador por falta de espacio (recuperan su ráfaga)")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        for (int i = 0; i < rules.size(); i++) {
+            RateLimitRule rule = rules.get(i);
+            if (!rule.matcher().matches(request)) {
+                continue;
+            }
+            TokenBucketRateLimiter.Decision decision = rule.limiter().tryAcquire(keyFor(rule, request));
+            response.setHeader(LIMIT_HEADER, String.valueOf(decision.limit()));
+            response.setHeader(REMAINING_HEADER, String.valueOf(decision.remaining()));
+            response.setHeader(RESET_HEADER, String.valueOf(decision.resetSeconds()));
+            if (!decision.allowed()) {
+                rejectedCounters[i].increment();
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(decision.retryAfterSeconds()));
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+                response.getOutputStream().write(TOO_MANY_REQUESTS_BODY);
+                return;
+            }
+            break;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Clave de la cubeta: ID del usuario autenticado (reglas por usuario) o IP del cliente.
+     * Las direcciones IPv6 se agrupan por su prefijo /64, que normalmente controla un solo
+     * cliente, para que no pueda obtener una cubeta nueva por cada dirección.
+     * Se usa la dirección remota de la conexión; detrás de un proxy hay que configurar
+     * server.forward-headers-strategy para que refleje la IP real.
+     */
+    private static String keyFor(RateLimitRule rule, HttpServletRequest request) {
+        if (rule.keyType() == RateLimitRule.KeyType.USER
+                && request.getAttribute(AuthenticatedUser.REQUEST_ATTRIBUTE) instanceof AuthenticatedUser user
+                && user.id() != null) {
+            return "u:" + user.id();
+        }
+        return "ip:" + clientAddress(request.getRemoteAddr());
+    }
+
+    static String clientAddress(String remoteAddr) {
+        if (remoteAddr == null || remoteAddr.indexOf(':') < 0) {
+            return remoteAddr;
+        }
+        try {
+            // Literal IPv6: InetAddress no hace consultas DNS
+            byte[] address = InetAddress.getByName(remoteAddr).getAddress();
+            if (address.length != 16) {
+                return remoteAddr;
+            }
+            return HexFormat.of().formatHex(address, 0, 8) + "::/64";
+        } catch (UnknownHostException e) {
+            return remoteAddr;
+        }
+    }
+}
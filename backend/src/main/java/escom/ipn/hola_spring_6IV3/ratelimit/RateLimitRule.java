@@ -0,0 +1,29 @@
+package escom.ipn.hola_spring_6IV3.ratelimit;
+
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+/**
+ * Límite de peticiones para las rutas que coinciden con el matcher
+ *
+ * @param name Nombre de la regla (etiqueta de las métricas)
+ * @param matcher Rutas a las que aplica
+ * @param keyType Si el límite es por usuario autenticado o por IP
+ * @param limiter Cubetas de la regla
+ */
+public record RateLimitRule(String name, RequestMatcher matcher, KeyType keyType, TokenBucketRateLimiter limiter) {
+
+    public enum KeyType {
+        /** Por dirección IP del cliente */
+        IP,
+        /** Por usuario autenticado; las peticiones sin usuario se limitan por IP */
+        USER
+    }
+
+    public static RateLimitRule perIp(String name, RequestMatcher matcher, TokenBucketRateLimiter limiter) {
+        return new RateLimitRule(name, matcher, KeyType.IP, limiter);
+    }
+
+    public static RateLimitRule perUser(String name, RequestMatcher matcher, TokenBucketRateLimiter limiter) {
+        return new RateLimitRule(name, matcher, KeyType.USER, limiter);
+    }
+}
@@ -0,0 +1,145 @@
+package escom.ipn.hola_spring_6IV3.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Limitador token bucket por clave (usuario o IP), sin bloqueos.
+ *
+ * Cada cubeta es un único long: el instante (System.nanoTime) en que quedaría vacía.
+ * Los tokens disponibles son (ahora - vacíaEn) / intervalo, con tope en la capacidad, así que
+ * consumir uno es avanzar ese instante un intervalo con compareAndSet; no hay hilos de recarga
+ * ni estado adicional.
+ *
+ * Las cubetas se guardan en dos generaciones (LRU aproximado): las claves usadas se copian a la
+ * generación actual y, cuando esta llega a la mitad del máximo de claves, pasa a ser la anterior
+ * y la anterior se descarta con las claves que nadie usó en toda una generación. Así el mapa
+ * queda acotado y una clave nueva siempre recibe su propia cubeta: un cliente que rota
+ * direcciones solo desaloja cubetas (que al volver empiezan llenas), nunca bloquea a otros.
+ * El costo es que un cliente desalojado recupera su ráfaga completa; los desalojos se cuentan.
+ */
+public final class TokenBucketRateLimiter {
+
+    private final AtomicReference<Generations> generations;
+    private final int capacity;
+    private final long nanosPerToken;
+    private final long fullSpanNanos;
+    private final int generationSize;
+    private final LongSupplier clock;
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity Tokens máximos (ráfaga permitida)
+     * @param refillPerMinute Tokens que se recuperan por minuto
+     * @param maxKeys Claves distintas que se guardan como máximo (al menos 2)
+     */
+    public TokenBucketRateLimiter(int capacity, int refillPerMinute, int maxKeys) {
+        this(capacity, refillPerMinute, maxKeys, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(int capacity, int refillPerMinute, int maxKeys, LongSupplier clock) {
+        if (capacity <= 0 || refillPerMinute <= 0 || maxKeys < 2) {
+            throw new IllegalArgumentException("Capacidad y recarga deben ser positivas y el máximo de claves al menos 2");
+        }
+        this.capacity = capacity;
+        this.nanosPerToken = TimeUnit.MINUTES.toNanos(1) / refillPerMinute;
+        this.fullSpanNanos = nanosPerToken * capacity;
+        this.generationSize = maxKeys / 2;
+        this.clock = clock;
+        this.generations = new AtomicReference<>(new Generations(new ConcurrentHashMap<>(), new ConcurrentHashMap<>()));
+    }
+
+    /**
+     * Intenta consumir un token de la cubeta de la clave
+     */
+    public Decision tryAcquire(String key) {
+        long now = clock.getAsLong();
+        AtomicLong bucket = bucketFor(key, now);
+        while (true) {
+            long emptyAt = bucket.get();
+            // Con la cubeta llena los tokens no pasan de la capacidad
+            long base = Math.max(emptyAt, now - fullSpanNanos);
+            long next = base + nanosPerToken;
+            if (next > now) {
+                return new Decision(false, capacity, 0, base + fullSpanNanos - now, next - now);
+            }
+            if (bucket.compareAndSet(emptyAt, next)) {
+                return new Decision(true, capacity, (now - next) / nanosPerToken, next + fullSpanNanos - now, 0);
+            }
+        }
+    }
+
+    private AtomicLong bucketFor(String key, long now) {
+        Generations current = generations.get();
+        AtomicLong bucket = current.recent().get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        // Se conserva el estado si la clave sigue en la generación anterior
+        bucket = current.previous().get(key);
+        if (bucket == null) {
+            bucket = new AtomicLong(now - fullSpanNanos);
+        }
+        AtomicLong existing = current.recent().putIfAbsent(key, bucket);
+        if (existing != null) {
+            return existing;
+        }
+        if (current.recent().size() >= generationSize
+                && generations.compareAndSet(current, new Generations(new ConcurrentHashMap<>(), current.recent()))) {
+            // Las claves de la generación anterior que no se volvieron a usar se descartan
+            evictions.add(current.previous().size());
+        }
+        return bucket;
+    }
+
+    /**
+     * Claves con cubeta en memoria (aproximado: una clave puede estar en ambas generaciones)
+     */
+    public int size() {
+        Generations current = generations.get();
+        return current.recent().size() + current.previous().size();
+    }
+
+    /**
+     * Claves descartadas por el LRU desde el arranque (de cubetas llenas o no)
+     */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private record Generations(ConcurrentHashMap<String, AtomicLong> recent,
+                               ConcurrentHashMap<String, AtomicLong> previous) {
+    }
+
+    /**
+     * Resultado de un intento
+     *
+     * @param allowed Si se consumió un token
+     * @param limit Capacidad de la cubeta
+     * @param remaining Tokens que quedan después de este intento
+     * @param resetNanos Tiempo hasta que la cubeta vuelva a estar llena
+     * @param retryAfterNanos Tiempo hasta el siguiente token (0 si se permitió)
+     */
+    public record Decision(boolean allowed, int limit, long remaining, long resetNanos, long retryAfterNanos) {
+
+        public long resetSeconds() {
+            return toSecondsCeil(resetNanos);
+        }
+
+        public long retryAfterSeconds() {
+            return Math.max(1, toSecondsCeil(retryAfterNanos));
+        }
+
+        private static long toSecondsCeil(long nanos) {
+            return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+        }
+    }
+}
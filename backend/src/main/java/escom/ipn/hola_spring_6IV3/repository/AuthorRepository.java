@@ -0,0 +1,8 @@
+package escom.ipn.hola_spring_6IV3.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import escom.ipn.hola_spring_6IV3.domain.entity.Author;
+
+public interface AuthorRepository extends JpaRepository<Author, String> {
+}
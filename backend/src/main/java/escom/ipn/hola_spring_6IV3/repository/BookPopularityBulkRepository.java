@@ -0,0 +1,23 @@
+package escom.ipn.hola_spring_6IV3.repository;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import escom.ipn.hola_spring_6IV3.domain.entity.BookPopularity;
+
+/**
+ * Actualizaciones masivas de popularidad con JDBC: cada lote suma los cambios
+ * acumulados en memoria mediante upserts, sin leer antes las filas.
+ */
+public interface BookPopularityBulkRepository {
+
+    /**
+     * Suma a cada libro su cambio de favoritos; favoriteCount de cada elemento es el cambio (no el total)
+     */
+    void addToTotals(Iterable<BookPopularity> deltas);
+
+    /**
+     * Suma a cada libro su cambio de favoritos en el día indicado
+     */
+    void addToDay(LocalDate day, Map<String, Long> deltas);
+}
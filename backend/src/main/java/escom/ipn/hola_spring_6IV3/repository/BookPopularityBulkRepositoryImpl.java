@@ -0,0 +1,59 @@
+package escom.ipn.hola_spring_6IV3.repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import escom.ipn.hola_spring_6IV3.domain.entity.BookPopularity;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Implementación de BookPopularityBulkRepository con upserts por lotes
+ * (INSERT ... ON DUPLICATE KEY UPDATE)
+ */
+@RequiredArgsConstructor
+class BookPopularityBulkRepositoryImpl implements BookPopularityBulkRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String UPSERT_TOTAL_SQL =
+            "INSERT INTO book_popularity (book_id, favorite_count, book_title, book_cover_id) VALUES (?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE favorite_count = favorite_count + VALUES(favorite_count), "
+            + "book_title = COALESCE(VALUES(book_title), book_title), "
+            + "book_cover_id = COALESCE(VALUES(book_cover_id), book_cover_id)";
+
+    private static final String UPSERT_DAY_SQL =
+            "INSERT INTO book_popularity_daily (book_id, stat_day, favorite_count) VALUES (?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE favorite_count = favorite_count + VALUES(favorite_count)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void addToTotals(Iterable<BookPopularity> deltas) {
+        List<BookPopularity> rows = new ArrayList<>();
+        deltas.forEach(rows::add);
+        jdbcTemplate.batchUpdate(UPSERT_TOTAL_SQL, rows, BATCH_SIZE, (ps, delta) -> {
+            ps.setString(1, delta.getBookId());
+            ps.setLong(2, delta.getFavoriteCount());
+            ps.setString(3, delta.getBookTitle());
+            ps.setString(4, delta.getBookCoverId());
+        });
+    }
+
+    @Override
+    @Transactional
+    public void addToDay(LocalDate day, Map<String, Long> deltas) {
+        Date sqlDay = Date.valueOf(day);
+        jdbcTemplate.batchUpdate(UPSERT_DAY_SQL, new ArrayList<>(deltas.entrySet()), BATCH_SIZE, (ps, delta) -> {
+            ps.setString(1, delta.getKey());
+            ps.setDate(2, sqlDay);
+            ps.setLong(3, delta.getValue());
+        });
+    }
+}
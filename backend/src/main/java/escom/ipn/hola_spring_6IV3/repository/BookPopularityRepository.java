@@ -0,0 +1,60 @@
+package escom.ipn.hola_spring_6IV3.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import escom.ipn.hola_spring_6IV3.domain.entity.BookPopularity;
+import escom.ipn.hola_spring_6IV3.domain.entity.BookPopularityDaily;
+
+@Repository
+public interface BookPopularityRepository extends JpaRepository<BookPopularity, String>, BookPopularityBulkRepository {
+
+    /**
+     * Cambios diarios desde la fecha indicada (inclusive)
+     */
+    @Query("SELECT d FROM BookPopularityDaily d WHERE d.day >= :since")
+    List<BookPopularityDaily> findDailySince(@Param("since") LocalDate since);
+
+    /**
+     * Elimina los cambios diarios que ya quedaron fuera de cualquier ventana
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM BookPopularityDaily d WHERE d.day < :before")
+    int deleteDailyBefore(@Param("before") LocalDate before);
+
+    /**
+     * Totales por libro calculados desde la tabla de favoritos (solo para la carga inicial)
+     */
+    @Query("SELECT f.bookId AS bookId, COUNT(f) AS favoriteCount, MAX(f.bookTitle) AS bookTitle, "
+            + "MAX(f.bookCoverId) AS bookCoverId FROM Favorite f GROUP BY f.bookId")
+    List<PopularityView> countFavoritesByBook();
+
+    /**
+     * Favoritos por libro y día desde la fecha indicada (solo para la carga inicial)
+     */
+    @Query("SELECT f.bookId AS bookId, CAST(f.addedDate AS LocalDate) AS day, COUNT(f) AS favoriteCount "
+            + "FROM Favorite f WHERE f.addedDate >= :since GROUP BY f.bookId, CAST(f.addedDate AS LocalDate)")
+    List<DailyPopularityView> countFavoritesByBookAndDay(@Param("since") LocalDateTime since);
+
+    interface PopularityView {
+        String getBookId();
+        long getFavoriteCount();
+        String getBookTitle();
+        String getBookCoverId();
+    }
+
+    interface DailyPopularityView {
+        String getBookId();
+        LocalDate getDay();
+        long getFavoriteCount();
+    }
+}
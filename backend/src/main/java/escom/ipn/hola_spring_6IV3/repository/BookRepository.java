@@ -0,0 +1,50 @@
+package escom.ipn.hola_spring_6IV3.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import escom.ipn.hola_spring_6IV3.domain.entity.Book;
+
+public interface BookRepository extends JpaRepository<Book, String> {
+
+    /**
+     * Libros con sus autores en una sola consulta (para enriquecer listados)
+     */
+    @Query("SELECT DISTINCT b FROM Book b LEFT JOIN FETCH b.authors WHERE b.bookId IN :bookIds")
+    List<Book> findWithAuthorsByBookIdIn(@Param("bookIds") Collection<String> bookIds);
+
+    /**
+     * Libros con autores y materias, para construir el índice de búsqueda
+     */
+    @Query("SELECT DISTINCT b FROM Book b LEFT JOIN FETCH b.authors LEFT JOIN FETCH b.subjects WHERE b.bookId IN :bookIds")
+    List<Book> findWithAuthorsAndSubjectsByBookIdIn(@Param("bookIds") Collection<String> bookIds);
+
+    @Query("SELECT b.bookId FROM Book b ORDER BY b.bookId")
+    List<String> findAllBookIds();
+
+    @Query("SELECT b.bookId FROM Book b WHERE b.fetchedAt > :since ORDER BY b.bookId")
+    List<String> findBookIdsFetchedAfter(@Param("since") LocalDateTime since);
+
+    /**
+     * Libro en favoritos que aún no está en el catálogo local
+     */
+    interface MissingBookView {
+        String getBookId();
+        String getBookTitle();
+        String getBookCoverId();
+    }
+
+    /**
+     * Libros presentes en favoritos pero ausentes del catálogo local
+     */
+    @Query("SELECT f.bookId AS bookId, MAX(f.bookTitle) AS bookTitle, MAX(f.bookCoverId) AS bookCoverId "
+            + "FROM Favorite f WHERE NOT EXISTS (SELECT b.bookId FROM Book b WHERE b.bookId = f.bookId) "
+            + "GROUP BY f.bookId")
+    List<MissingBookView> findMissingFavoriteBooks(Limit limit);
+}
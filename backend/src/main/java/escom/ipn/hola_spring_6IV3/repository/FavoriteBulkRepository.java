@@ -0,0 +1,21 @@
+package escom.ipn.hola_spring_6IV3.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import escom.ipn.hola_spring_6IV3.domain.request.FavoriteRequest;
+
+/**
+ * Operaciones masivas sobre favoritos que se ejecutan con JDBC directo.
+ * Favorite usa IDENTITY, lo que impide a Hibernate agrupar inserciones en lotes.
+ */
+public interface FavoriteBulkRepository {
+
+    /**
+     * Inserta los favoritos en lotes JDBC, omitiendo los que ya existan
+     *
+     * @return IDs de los libros que realmente se insertaron
+     */
+    Set<String> insertAllIfAbsent(Integer userId, List<FavoriteRequest> favorites, LocalDateTime addedDate);
+}
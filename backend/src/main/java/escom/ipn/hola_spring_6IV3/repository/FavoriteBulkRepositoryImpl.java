@@ -0,0 +1,66 @@
+package escom.ipn.hola_spring_6IV3.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import escom.ipn.hola_spring_6IV3.domain.request.FavoriteRequest;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Implementación de FavoriteBulkRepository con JdbcTemplate.batchUpdate.
+ * Con rewriteBatchedStatements=true el driver de MySQL envía cada lote como un
+ * único INSERT de varias filas; en ese caso no informa el conteo por fila, así que
+ * los insertados se obtienen después con una consulta por clave y fecha de alta.
+ */
+@RequiredArgsConstructor
+class FavoriteBulkRepositoryImpl implements FavoriteBulkRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO favorites (user_id, book_id, book_title, book_cover_id, added_date) "
+            + "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE id = id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public Set<String> insertAllIfAbsent(Integer userId, List<FavoriteRequest> favorites, LocalDateTime addedDate) {
+        if (favorites.isEmpty()) {
+            return Collections.emptySet();
+        }
+        // Precisión de segundos: la consulta posterior compara contra lo que guardó la columna
+        Timestamp timestamp = Timestamp.valueOf(addedDate.truncatedTo(ChronoUnit.SECONDS));
+        jdbcTemplate.batchUpdate(INSERT_SQL, favorites, BATCH_SIZE, (ps, favorite) -> {
+            ps.setInt(1, userId);
+            ps.setString(2, favorite.getBookId());
+            ps.setString(3, favorite.getBookTitle());
+            ps.setString(4, favorite.getBookCoverId());
+            ps.setTimestamp(5, timestamp);
+        });
+
+        // Las filas que ya existían conservan su fecha de alta original
+        Set<String> inserted = new HashSet<>();
+        for (int from = 0; from < favorites.size(); from += BATCH_SIZE) {
+            List<FavoriteRequest> batch = favorites.subList(from, Math.min(from + BATCH_SIZE, favorites.size()));
+            List<Object> args = new ArrayList<>(batch.size() + 2);
+            args.add(userId);
+            args.add(timestamp);
+            batch.forEach(favorite -> args.add(favorite.getBookId()));
+            inserted.addAll(jdbcTemplate.queryForList(
+                    "SELECT book_id FROM favorites WHERE user_id = ? AND added_date = ? AND book_id IN ("
+                            + String.join(", ", Collections.nCopies(batch.size(), "?")) + ")",
+                    String.class, args.toArray()));
+        }
+        return inserted;
+    }
+}
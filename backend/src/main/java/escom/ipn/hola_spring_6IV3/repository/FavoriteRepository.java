@@ -1,8 +1,8 @@
 package escom.ipn.hola_spring_6IV3.repository;
 
 import escom.ipn.hola_spring_6IV3.domain.entity.Favorite;
-import escom.ipn.hola_spring_6IV3.domain.entity.User;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -10,53 +10,98 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface FavoriteRepository extends JpaRepository<Favorite, Long> {
+public interface FavoriteRepository extends JpaRepository<Favorite, Long>, FavoriteBulkRepository {
     
     /**
-     * Encuentra todos los favoritos de un usuario específico
+     * Primera página de favoritos, del más reciente al más antiguo
      */
-    List<Favorite> findByUserOrderByAddedDateDesc(User user);
+    @Query("SELECT f FROM Favorite f WHERE f.user.id = :userId ORDER BY f.addedDate DESC, f.id DESC")
+    List<Favorite> findFirstPage(@Param("userId") Integer userId, Limit limit);
     
     /**
-     * Encuentra todos los favoritos de un usuario por su username
+     * Página de favoritos posterior al cursor (addedDate, id), por keyset sobre el índice
+     * (user_id, added_date, id): no usa OFFSET ni necesita ordenar en memoria
      */
-    @Query("SELECT f FROM Favorite f WHERE f.user.username = :username ORDER BY f.addedDate DESC")
-    List<Favorite> findByUsernameOrderByAddedDateDesc(@Param("username") String username);
+    @Query("SELECT f FROM Favorite f WHERE f.user.id = :userId "
+            + "AND (f.addedDate < :addedDate OR (f.addedDate = :addedDate AND f.id < :id)) "
+            + "ORDER BY f.addedDate DESC, f.id DESC")
+    List<Favorite> findPageAfter(@Param("userId") Integer userId, @Param("addedDate") LocalDateTime addedDate,
+            @Param("id") Long id, Limit limit);
     
     /**
-     * Verifica si un libro específico ya está en favoritos de un usuario
+     * Verifica si un libro está en favoritos (true/false)
      */
-    @Query("SELECT f FROM Favorite f WHERE f.user.username = :username AND f.bookId = :bookId")
-    Optional<Favorite> findByUsernameAndBookId(@Param("username") String username, @Param("bookId") String bookId);
+    @Query("SELECT CASE WHEN COUNT(f) > 0 THEN true ELSE false END FROM Favorite f WHERE f.user.id = :userId AND f.bookId = :bookId")
+    boolean existsByUserIdAndBookId(@Param("userId") Integer userId, @Param("bookId") String bookId);
     
     /**
-     * Verifica si un libro está en favoritos (true/false)
+     * De una lista de libros, devuelve los que están en favoritos del usuario (una sola consulta IN)
+     */
+    @Query("SELECT f.bookId FROM Favorite f WHERE f.user.id = :userId AND f.bookId IN :bookIds")
+    List<String> findFavoriteBookIds(@Param("userId") Integer userId, @Param("bookIds") Collection<String> bookIds);
+    
+    /**
+     * Busca un favorito por ID de usuario y bookId
      */
-    @Query("SELECT CASE WHEN COUNT(f) > 0 THEN true ELSE false END FROM Favorite f WHERE f.user.username = :username AND f.bookId = :bookId")
-    boolean existsByUsernameAndBookId(@Param("username") String username, @Param("bookId") String bookId);
+    @Query("SELECT f FROM Favorite f WHERE f.user.id = :userId AND f.bookId = :bookId")
+    Optional<Favorite> findByUserIdAndBookId(@Param("userId") Integer userId, @Param("bookId") String bookId);
     
     /**
-     * Elimina un favorito específico por usuario y bookId
+     * Inserta el favorito solo si no existe, en una sola sentencia.
+     * La restricción única (user_id, book_id) resuelve las inserciones concurrentes
+     * sin lanzar excepciones: la repetida se convierte en una actualización sin cambios.
+     * A diferencia de INSERT IGNORE, los demás errores (valores demasiado largos, claves
+     * foráneas) se siguen reportando en lugar de convertirse en advertencias.
+     * Requiere useAffectedRows=true en el driver de MySQL para que la repetida cuente 0.
+     *
+     * @return 1 si se insertó, 0 si ya existía
      */
     @Modifying
     @Transactional
-    @Query("DELETE FROM Favorite f WHERE f.user.username = :username AND f.bookId = :bookId")
-    int deleteByUsernameAndBookId(@Param("username") String username, @Param("bookId") String bookId);
+    @Query(value = "INSERT INTO favorites (user_id, book_id, book_title, book_cover_id, added_date) "
+            + "VALUES (:userId, :bookId, :bookTitle, :bookCoverId, :addedDate) "
+            + "ON DUPLICATE KEY UPDATE id = id", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Integer userId, @Param("bookId") String bookId,
+            @Param("bookTitle") String bookTitle, @Param("bookCoverId") String bookCoverId,
+            @Param("addedDate") LocalDateTime addedDate);
     
     /**
-     * Método alternativo usando Spring Data JPA naming convention
+     * Elimina un favorito por ID de usuario en una sola sentencia (sin cargar la entidad)
+     *
+     * @return número de filas eliminadas (0 o 1)
      */
     @Modifying
     @Transactional
-    void deleteByUserUsernameAndBookId(String username, String bookId);
+    @Query("DELETE FROM Favorite f WHERE f.user.id = :userId AND f.bookId = :bookId")
+    int deleteByUserIdAndBookId(@Param("userId") Integer userId, @Param("bookId") String bookId);
+    
+    /**
+     * Proyección mínima (usuario, libro) para construir el índice de recomendaciones
+     */
+    interface FavoriteEdgeView {
+        Long getId();
+        Integer getUserId();
+        String getBookId();
+        String getBookTitle();
+        String getBookCoverId();
+    }
+    
+    /**
+     * Recorre toda la tabla de favoritos por keyset sobre la llave primaria
+     */
+    @Query("SELECT f.id AS id, f.user.id AS userId, f.bookId AS bookId, f.bookTitle AS bookTitle, "
+            + "f.bookCoverId AS bookCoverId FROM Favorite f WHERE f.id > :afterId ORDER BY f.id")
+    List<FavoriteEdgeView> findEdgesAfter(@Param("afterId") Long afterId, Limit limit);
     
     /**
      * Cuenta el número total de favoritos de un usuario
      */
-    @Query("SELECT COUNT(f) FROM Favorite f WHERE f.user.username = :username")
-    long countByUsername(@Param("username") String username);
+    @Query("SELECT COUNT(f) FROM Favorite f WHERE f.user.id = :userId")
+    long countByUserId(@Param("userId") Integer userId);
 }
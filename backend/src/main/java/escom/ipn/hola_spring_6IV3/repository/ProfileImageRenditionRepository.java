@@ -0,0 +1,42 @@
+package escom.ipn.hola_spring_6IV3.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import escom.ipn.hola_spring_6IV3.domain.entity.ProfileImageRendition;
+
+public interface ProfileImageRenditionRepository
+        extends JpaRepository<ProfileImageRendition, ProfileImageRendition.Key> {
+
+    /**
+     * Obtiene todas las miniaturas generadas para una imagen original
+     */
+    List<ProfileImageRendition> findBySourceHash(String sourceHash);
+
+    /**
+     * Verifica si ya existen miniaturas para una imagen original
+     */
+    boolean existsBySourceHash(String sourceHash);
+
+    /**
+     * De los hashes indicados, los que son el archivo de alguna miniatura
+     */
+    @Query("SELECT DISTINCT r.imageHash FROM ProfileImageRendition r WHERE r.imageHash IN :hashes")
+    List<String> findImageHashesIn(@Param("hashes") Collection<String> hashes);
+
+    /**
+     * Elimina las miniaturas cuya imagen original ya no usa ningún usuario
+     * (sus archivos quedan para el recolector de imágenes)
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ProfileImageRendition r WHERE NOT EXISTS " +
+           "(SELECT 1 FROM UserProfileImage i WHERE i.imageHash = r.sourceHash)")
+    int deleteOrphans();
+}
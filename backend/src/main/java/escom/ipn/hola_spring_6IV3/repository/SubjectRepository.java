@@ -0,0 +1,13 @@
+package escom.ipn.hola_spring_6IV3.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import escom.ipn.hola_spring_6IV3.domain.entity.Subject;
+
+public interface SubjectRepository extends JpaRepository<Subject, Long> {
+
+    List<Subject> findByNameIn(Collection<String> names);
+}
@@ -0,0 +1,26 @@
+package escom.ipn.hola_spring_6IV3.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import escom.ipn.hola_spring_6IV3.domain.entity.UserProfileImage;
+
+public interface UserProfileImageRepository extends JpaRepository<UserProfileImage, Integer> {
+
+    /**
+     * Obtiene la imagen de perfil de un usuario a partir de su username
+     */
+    @Query("SELECT i FROM UserProfileImage i WHERE i.userId = (SELECT u.id FROM User u WHERE u.username = :username)")
+    Optional<UserProfileImage> findByUsername(@Param("username") String username);
+
+    /**
+     * De los hashes indicados, los que usa alguna imagen de perfil
+     */
+    @Query("SELECT DISTINCT i.imageHash FROM UserProfileImage i WHERE i.imageHash IN :hashes")
+    List<String> findImageHashesIn(@Param("hashes") Collection<String> hashes);
+}
@@ -1,11 +1,94 @@
 package escom.ipn.hola_spring_6IV3.repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import escom.ipn.hola_spring_6IV3.domain.entity.Role;
 import escom.ipn.hola_spring_6IV3.domain.entity.User;
+import jakarta.persistence.QueryHint;
 
 public interface UserRepository extends JpaRepository<User, Integer> {
     Optional<User> findByUsername(String username);
+
+    /**
+     * Proyección mínima (id, versión de token) usada para validar revocaciones
+     */
+    interface TokenVersionView {
+        Integer getId();
+        int getTokenVersion();
+    }
+
+    /**
+     * Obtiene la versión de token de todos los usuarios sin cargar las entidades
+     */
+    @Query("SELECT u.id AS id, u.tokenVersion AS tokenVersion FROM User u")
+    List<TokenVersionView> findAllTokenVersions();
+
+    /**
+     * Obtiene la versión de token de un usuario por su ID
+     */
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Integer id);
+
+    /**
+     * Recorre todos los nombres de usuario sin cargar las entidades (requiere una transacción abierta)
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT u.username FROM User u")
+    Stream<String> streamAllUsernames();
+
+    /**
+     * Reemplaza el hash de la contraseña solo si sigue siendo el que se leyó
+     * (rehash transparente al iniciar sesión)
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newPassword WHERE u.id = :id AND u.password = :oldPassword")
+    int updatePasswordIfUnchanged(@Param("id") Integer id, @Param("oldPassword") String oldPassword,
+                                  @Param("newPassword") String newPassword);
+
+    /**
+     * Proyección para el listado administrativo: solo columnas ligeras y el hash de la imagen
+     */
+    interface UserSummaryView {
+        Integer getId();
+        String getUsername();
+        String getFirstname();
+        String getLastname();
+        String getCountry();
+        Role getRole();
+        String getImageHash();
+    }
+
+    /**
+     * Página de usuarios con id mayor al cursor, en orden ascendente (paginación por keyset)
+     */
+    @Query("SELECT u.id AS id, u.username AS username, u.firstname AS firstname, u.lastname AS lastname, " +
+           "u.country AS country, u.role AS role, i.imageHash AS imageHash " +
+           "FROM User u LEFT JOIN UserProfileImage i ON i.userId = u.id " +
+           "WHERE u.id > :afterId AND (:role IS NULL OR u.role = :role) AND (:country IS NULL OR u.country = :country) " +
+           "ORDER BY u.id ASC")
+    List<UserSummaryView> findSummariesAfter(@Param("afterId") int afterId, @Param("role") Role role,
+                                             @Param("country") String country, Limit limit);
+
+    /**
+     * Página de usuarios con id menor al cursor, en orden descendente (paginación por keyset)
+     */
+    @Query("SELECT u.id AS id, u.username AS username, u.firstname AS firstname, u.lastname AS lastname, " +
+           "u.country AS country, u.role AS role, i.imageHash AS imageHash " +
+           "FROM User u LEFT JOIN UserProfileImage i ON i.userId = u.id " +
+           "WHERE u.id < :beforeId AND (:role IS NULL OR u.role = :role) AND (:country IS NULL OR u.country = :country) " +
+           "ORDER BY u.id DESC")
+    List<UserSummaryView> findSummariesBefore(@Param("beforeId") int beforeId, @Param("role") Role role,
+                                              @Param("country") String country, Limit limit);
 }
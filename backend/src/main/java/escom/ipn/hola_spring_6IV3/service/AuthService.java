@@ -1,6 +1,7 @@
 package escom.ipn.hola_spring_6IV3.service;
 
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -13,7 +14,7 @@ import escom.ipn.hola_spring_6IV3.domain.request.auth.RegisterRequest;
 import escom.ipn.hola_spring_6IV3.domain.response.JwtResponse;
 import escom.ipn.hola_spring_6IV3.exception.UserAlreadyExistsException;
 import escom.ipn.hola_spring_6IV3.exception.RoleNotFoundException;
-import escom.ipn.hola_spring_6IV3.exception.UserNotFoundException;
+import escom.ipn.hola_spring_6IV3.exception.TooManyRequestsException;
 import escom.ipn.hola_spring_6IV3.repository.UserRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -30,6 +31,8 @@ public class AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
+    private final PasswordHashingService passwordHashingService;
+    private final UsernameFilter usernameFilter;
 
     /**
      * Registra un nuevo usuario y genera su token JWT
@@ -38,19 +41,25 @@ public class AuthService {
      * @return JwtResponse con el token de autenticacións
      * @throws RoleNotFoundException
      * @throws UserAlreadyExistsException
+     * @throws TooManyRequestsException si el pool de hashing está saturado
      */
     public JwtResponse registerUser(RegisterRequest request) {
-        if (userRepository.findByUsername(request.getUsername()).isPresent()) {
+        // El filtro de Bloom descarta sin consulta los nombres que seguro no existen
+        if (usernameFilter.mightExist(request.getUsername())
+                && userRepository.findByUsername(request.getUsername()).isPresent()) {
             throw new UserAlreadyExistsException(request.getUsername());
         }
 
         // Obtener el rol correspondiente
         Role role = Role.fromString(request.getRole());
 
+        // Cifrar la contraseña en el pool de hashing, fuera del hilo de la petición
+        String encodedPassword = passwordHashingService.execute(() -> passwordEncoder.encode(request.getPassword()));
+
         // Crear el nuevo usuario
         User user = User.builder()
             .username(request.getUsername())
-            .password(passwordEncoder.encode(request.getPassword()))
+            .password(encodedPassword)
             .firstname(request.getFirstName())
             .lastname(request.getLastName())
             .country(request.getCountry())
@@ -59,6 +68,7 @@ public class AuthService {
 
         // Guardar el usuario en la BD
         userRepository.save(user);
+        usernameFilter.add(user.getUsername());
         
         // Generar el token JWT
         String token = jwtService.getToken(user);
@@ -69,19 +79,21 @@ public class AuthService {
     }
 
     /**
-     * Autentica un usuario y genera su token JWT
+     * Autentica un usuario y genera su token JWT.
+     * La carga del usuario corre en el hilo de la petición y solo la verificación con BCrypt
+     * pasa al pool de hashing (ver ApplicationConfig); el usuario que cargó
+     * DaoAuthenticationProvider se reutiliza para el token en lugar de consultarlo otra vez.
      * 
      * @param request Credenciales de inicio de sesión
      * @return JwtResponse con el token de autenticación
-     * @throws UserNotFoundException
+     * @throws org.springframework.security.core.AuthenticationException si las credenciales son inválidas
+     * @throws TooManyRequestsException si el pool de hashing está saturado
      */
     public JwtResponse loginUser(LoginRequest request) {
-        authenticationManager.authenticate(
+        Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword()));
         
-        UserDetails user = userRepository.findByUsername(request.getUsername())
-                .orElseThrow(() -> new UserNotFoundException(request.getUsername()));
-        
+        UserDetails user = (UserDetails) authentication.getPrincipal();
         String token = jwtService.getToken(user);
         return new JwtResponse(token);
     }
@@ -0,0 +1,301 @@
+package escom.ipn.hola_spring_6IV3.service;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import escom.ipn.hola_spring_6IV3.exception.CatalogNotFoundException;
+import escom.ipn.hola_spring_6IV3.exception.CatalogUnavailableException;
+import escom.ipn.hola_spring_6IV3.service.catalog.CatalogDocument;
+import escom.ipn.hola_spring_6IV3.service.catalog.FileSystemCatalogStore;
+import escom.ipn.hola_spring_6IV3.service.catalog.OpenLibraryClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Proxy del catálogo de OpenLibrary (obras, autores, búsqueda y materias) compartido por
+ * todos los usuarios, en lugar de que cada navegador consulte OpenLibrary directamente.
+ *
+ * Las respuestas se guardan en dos niveles: una LRU en memoria y, solo para obras y autores,
+ * una copia en disco que sobrevive a reinicios. Las búsquedas y materias se quedan en memoria:
+ * sus claves vienen de texto libre del usuario y llenarían el disco sin límite. Las copias en
+ * disco más viejas que la retención se eliminan periódicamente. Una respuesta más antigua que
+ * el TTL se sigue sirviendo mientras se actualiza en segundo plano (stale-while-revalidate), y
+ * también si OpenLibrary falla. Las descargas concurrentes de la misma ruta se unen en una sola
+ * petición (single-flight).
+ */
+@Service
+@Slf4j
+public class BookCatalogService {
+
+    public static final int MAX_LIMIT = 100;
+
+    private static final Pattern WORK_ID = Pattern.compile("OL\\d+W");
+    private static final Pattern AUTHOR_ID = Pattern.compile("OL\\d+A");
+    private static final Pattern SUBJECT = Pattern.compile("[a-z0-9_\\-]{1,100}");
+    private static final int MAX_QUERY_LENGTH = 200;
+
+    private final FileSystemCatalogStore store;
+    private final OpenLibraryClient client;
+    private final long ttlMillis;
+    private final long maxStaleMillis;
+    private final long diskRetentionMillis;
+    private final Map<String, CatalogDocument> memory;
+    private final ConcurrentHashMap<String, CompletableFuture<CatalogDocument>> inFlight = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor revalidator;
+
+    private final Counter memoryHits;
+    private final Counter diskHits;
+    private final Counter staleHits;
+    private final Counter upstreamRequests;
+
+    public BookCatalogService(
+            FileSystemCatalogStore store,
+            OpenLibraryClient client,
+            MeterRegistry meterRegistry,
+            @Value("${catalog.cache.max-entries:5000}") int maxEntries,
+            @Value("${catalog.cache.ttl-ms:86400000}") long ttlMillis,
+            @Value("${catalog.cache.max-stale-ms:604800000}") long maxStaleMillis,
+            @Value("${catalog.cache.disk-retention-ms:2592000000}") long diskRetentionMillis) {
+        this.store = store;
+        this.client = client;
+        this.ttlMillis = ttlMillis;
+        this.maxStaleMillis = maxStaleMillis;
+        this.diskRetentionMillis = diskRetentionMillis;
+        this.memory = Collections.synchronizedMap(new LinkedHashMap<String, CatalogDocument>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CatalogDocument> eldest) {
+                return size() > maxEntries;
+            }
+        });
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.revalidator = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(100),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "catalog-revalidate-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("catalog.cache.entries", memory, Map::size)
+                .description("Respuestas del catálogo en la caché en memoria")
+                .register(meterRegistry);
+        this.memoryHits = Counter.builder("catalog.cache.hits").tag("tier", "memory")
+                .description("Respuestas del catálogo servidas desde memoria")
+                .register(meterRegistry);
+        this.diskHits = Counter.builder("catalog.cache.hits").tag("tier", "disk")
+                .description("Respuestas del catálogo servidas desde disco")
+                .register(meterRegistry);
+        this.staleHits = Counter.builder("catalog.cache.stale")
+                .description("Respuestas vencidas servidas mientras se actualizan")
+                .register(meterRegistry);
+        this.upstreamRequests = Counter.builder("catalog.upstream.requests")
+                .description("Peticiones realizadas a OpenLibrary")
+                .register(meterRegistry);
+    }
+
+    /**
+     * JSON de una obra (por ejemplo OL45804W)
+     */
+    public String getWork(String workId) {
+        requireMatch(WORK_ID, workId, "ID de obra inválido: ");
+        return get("/works/" + workId + ".json");
+    }
+
+    /**
+     * JSON de un autor (por ejemplo OL23919A)
+     */
+    public String getAuthor(String authorId) {
+        requireMatch(AUTHOR_ID, authorId, "ID de autor inválido: ");
+        return get("/authors/" + authorId + ".json");
+    }
+
+    /**
+     * Resultados de búsqueda de OpenLibrary
+     */
+    public String search(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("La búsqueda no puede estar vacía");
+        }
+        String normalized = query.trim().replaceAll("\\s+", " ");
+        if (normalized.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("La búsqueda excede " + MAX_QUERY_LENGTH + " caracteres");
+        }
+        return get("/search.json?q=" + URLEncoder.encode(normalized, StandardCharsets.UTF_8)
+                + "&limit=" + clampLimit(limit));
+    }
+
+    /**
+     * Obras de una materia (por ejemplo science_fiction)
+     */
+    public String getSubject(String subject, int limit) {
+        String normalized = subject == null ? null : subject.trim().toLowerCase(Locale.ROOT);
+        requireMatch(SUBJECT, normalized, "Materia inválida: ");
+        return get("/subjects/" + normalized + ".json?limit=" + clampLimit(limit));
+    }
+
+    /**
+     * Resuelve una ruta desde memoria, disco u OpenLibrary, en ese orden
+     */
+    String get(String path) {
+        CatalogDocument cached = memory.get(path);
+        if (cached != null) {
+            memoryHits.increment();
+        } else if (isPersistent(path)) {
+            cached = store.load(path).orElse(null);
+            if (cached != null) {
+                diskHits.increment();
+                memory.put(path, cached);
+            }
+        }
+
+        if (cached != null) {
+            long age = cached.ageMillis(System.currentTimeMillis());
+            if (age < ttlMillis) {
+                return bodyOf(path, cached);
+            }
+            if (age < maxStaleMillis) {
+                staleHits.increment();
+                revalidateInBackground(path);
+                return bodyOf(path, cached);
+            }
+        }
+
+        try {
+            return bodyOf(path, fetchCoalesced(path));
+        } catch (CatalogUnavailableException e) {
+            if (cached != null) {
+                // Mejor una respuesta vieja que un error mientras OpenLibrary no responde
+                log.warn("Catálogo no disponible, se sirve la copia vencida de {}: {}", path, e.getMessage());
+                return bodyOf(path, cached);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Descarga la ruta asegurando que solo haya una descarga en curso por ruta:
+     * el primero en llegar la realiza y los demás esperan su resultado
+     */
+    private CatalogDocument fetchCoalesced(String path) {
+        CompletableFuture<CatalogDocument> future = new CompletableFuture<>();
+        CompletableFuture<CatalogDocument> existing = inFlight.putIfAbsent(path, future);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            CatalogDocument document = download(path);
+            future.complete(document);
+            return document;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(path, future);
+        }
+    }
+
+    private CatalogDocument download(String path) {
+        upstreamRequests.increment();
+        CatalogDocument document;
+        try {
+            document = new CatalogDocument(client.fetch(path), System.currentTimeMillis());
+            if (isPersistent(path)) {
+                store.save(path, document);
+            }
+        } catch (CatalogNotFoundException e) {
+            document = CatalogDocument.notFound(System.currentTimeMillis());
+        }
+        memory.put(path, document);
+        return document;
+    }
+
+    private void revalidateInBackground(String path) {
+        if (inFlight.containsKey(path)) {
+            return;
+        }
+        try {
+            revalidator.execute(() -> {
+                try {
+                    fetchCoalesced(path);
+                } catch (RuntimeException e) {
+                    log.debug("No se pudo actualizar {} del catálogo: {}", path, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Cola llena: se actualizará en una petición posterior
+        }
+    }
+
+    /**
+     * Elimina del disco las copias descargadas hace más de la retención
+     */
+    @Scheduled(initialDelayString = "${catalog.cache.prune-interval-ms:3600000}",
+            fixedDelayString = "${catalog.cache.prune-interval-ms:3600000}")
+    public void pruneDisk() {
+        try {
+            int deleted = store.pruneOlderThan(diskRetentionMillis);
+            if (deleted > 0) {
+                log.info("Caché del catálogo: {} copias en disco vencidas eliminadas", deleted);
+            }
+        } catch (IOException e) {
+            log.warn("No se pudo depurar la caché del catálogo en disco: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Solo obras y autores se guardan en disco: sus claves son IDs validados del catálogo
+     */
+    private static boolean isPersistent(String path) {
+        return path.startsWith("/works/") || path.startsWith("/authors/");
+    }
+
+    private static String bodyOf(String path, CatalogDocument document) {
+        if (!document.isFound()) {
+            throw new CatalogNotFoundException(path);
+        }
+        return document.json();
+    }
+
+    private static void requireMatch(Pattern pattern, String value, String message) {
+        if (value == null || !pattern.matcher(value).matches()) {
+            throw new IllegalArgumentException(message + value);
+        }
+    }
+
+    private static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        revalidator.shutdownNow();
+    }
+}
@@ -0,0 +1,264 @@
+package escom.ipn.hola_spring_6IV3.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import escom.ipn.hola_spring_6IV3.domain.dto.BookSummaryDTO;
+import escom.ipn.hola_spring_6IV3.domain.entity.Author;
+import escom.ipn.hola_spring_6IV3.domain.entity.Book;
+import escom.ipn.hola_spring_6IV3.domain.entity.Subject;
+import escom.ipn.hola_spring_6IV3.exception.CatalogNotFoundException;
+import escom.ipn.hola_spring_6IV3.repository.AuthorRepository;
+import escom.ipn.hola_spring_6IV3.repository.BookRepository;
+import escom.ipn.hola_spring_6IV3.repository.SubjectRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Catálogo local de libros (tablas books, authors y subjects).
+ * Cuando un libro entra a favoritos se encola su descarga: un único hilo consulta la obra y
+ * sus autores a través de BookCatalogService y guarda los metadatos normalizados, sin
+ * retrasar la respuesta al usuario. Las vistas de favoritos y recomendaciones leen después
+ * autores y año con una sola consulta local, en lugar de una petición a OpenLibrary por libro,
+ * y cada libro guardado se agrega al índice de búsqueda.
+ * Un proceso periódico encola los libros de favoritos que aún faltan (cola llena, reinicios
+ * o fallas de OpenLibrary).
+ */
+@Service
+@Slf4j
+public class BookMetadataService {
+
+    private static final Pattern YEAR = Pattern.compile("\\b(\\d{4})\\b");
+    private static final int MAX_SUBJECTS = 25;
+    private static final int MAX_SUBJECT_LENGTH = 255;
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final SubjectRepository subjectRepository;
+    private final BookCatalogService bookCatalogService;
+    private final BookSearchService bookSearchService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final Counter ingestedCounter;
+    private final Counter rejectedCounter;
+
+    public BookMetadataService(
+            BookRepository bookRepository,
+            AuthorRepository authorRepository,
+            SubjectRepository subjectRepository,
+            BookCatalogService bookCatalogService,
+            BookSearchService bookSearchService,
+            ObjectMapper objectMapper,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${books.ingest.queue-capacity:1000}") int queueCapacity) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.subjectRepository = subjectRepository;
+        this.bookCatalogService = bookCatalogService;
+        this.bookSearchService = bookSearchService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.queueCapacity = queueCapacity;
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "book-ingest");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("books.ingest.queue.size", executor, e -> e.getQueue().size())
+                .description("Libros pendientes de guardar en el catálogo local")
+                .register(meterRegistry);
+        this.ingestedCounter = Counter.builder("books.ingest.completed")
+                .description("Libros guardados en el catálogo local")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("books.ingest.rejected")
+                .description("Libros descartados por cola de ingesta llena")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Encola la descarga de los metadatos de un libro si aún no está en el catálogo local.
+     * El título y la portada del favorito se usan si OpenLibrary no conoce la obra.
+     */
+    public void enqueue(String bookId, String bookTitle, String bookCoverId) {
+        if (bookId == null || !pending.add(bookId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    if (!bookRepository.existsById(bookId)) {
+                        ingest(bookId, bookTitle, bookCoverId);
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("No se pudieron guardar los metadatos del libro {}: {}", bookId, e.getMessage());
+                } finally {
+                    pending.remove(bookId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(bookId);
+            rejectedCounter.increment();
+        }
+    }
+
+    /**
+     * Metadatos locales de varios libros con una sola consulta; los que aún no se han
+     * descargado simplemente no aparecen en el resultado
+     */
+    public Map<String, BookSummaryDTO> findSummaries(Collection<String> bookIds) {
+        Map<String, BookSummaryDTO> summaries = new HashMap<>();
+        if (bookIds == null || bookIds.isEmpty()) {
+            return summaries;
+        }
+        for (Book book : bookRepository.findWithAuthorsByBookIdIn(bookIds)) {
+            summaries.put(book.getBookId(), BookSummaryDTO.builder()
+                    .bookId(book.getBookId())
+                    .title(book.getTitle())
+                    .coverId(book.getCoverId())
+                    .authors(book.getAuthors().stream().map(Author::getName).filter(Objects::nonNull).toList())
+                    .firstPublishYear(book.getFirstPublishYear())
+                    .build());
+        }
+        return summaries;
+    }
+
+    /**
+     * Encola los libros de favoritos que todavía no están en el catálogo local
+     */
+    @Scheduled(initialDelayString = "${books.ingest.backfill-interval-ms:300000}",
+            fixedDelayString = "${books.ingest.backfill-interval-ms:300000}")
+    public void backfill() {
+        int room = queueCapacity - executor.getQueue().size();
+        if (room <= 0) {
+            return;
+        }
+        List<BookRepository.MissingBookView> missing = bookRepository.findMissingFavoriteBooks(Limit.of(room));
+        missing.forEach(book -> enqueue(book.getBookId(), book.getBookTitle(), book.getBookCoverId()));
+        if (!missing.isEmpty()) {
+            log.info("Catálogo local: {} libros de favoritos encolados para descarga", missing.size());
+        }
+    }
+
+    private void ingest(String bookId, String fallbackTitle, String fallbackCoverId) {
+        Book book = new Book();
+        book.setBookId(bookId);
+        book.setTitle(fallbackTitle);
+        book.setCoverId(fallbackCoverId);
+        book.setFetchedAt(LocalDateTime.now());
+
+        List<Author> authors = new ArrayList<>();
+        Set<String> subjectNames = new LinkedHashSet<>();
+        try {
+            JsonNode work = objectMapper.readTree(bookCatalogService.getWork(bookId));
+            if (work.hasNonNull("title")) {
+                book.setTitle(work.get("title").asText());
+            }
+            JsonNode covers = work.path("covers");
+            if (covers.isArray() && !covers.isEmpty() && covers.get(0).asLong() > 0) {
+                book.setCoverId(covers.get(0).asText());
+            }
+            book.setFirstPublishYear(parseYear(work.path("first_publish_date").asText(null)));
+            for (JsonNode entry : work.path("authors")) {
+                String key = entry.path("author").path("key").asText("");
+                if (key.startsWith("/authors/")) {
+                    authors.add(resolveAuthor(key.substring("/authors/".length())));
+                }
+            }
+            for (JsonNode subject : work.path("subjects")) {
+                String name = subject.asText("").trim().toLowerCase(Locale.ROOT);
+                if (!name.isEmpty() && name.length() <= MAX_SUBJECT_LENGTH && subjectNames.size() < MAX_SUBJECTS) {
+                    subjectNames.add(name);
+                }
+            }
+        } catch (CatalogNotFoundException | IllegalArgumentException e) {
+            // La obra no existe en OpenLibrary: se guarda con los datos del favorito para no reintentarla
+            log.debug("Libro {} sin metadatos en OpenLibrary: {}", bookId, e.getMessage());
+        } catch (JsonProcessingException e) {
+            log.warn("Respuesta inválida de OpenLibrary para {}: {}", bookId, e.getMessage());
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            book.getAuthors().addAll(authorRepository.saveAll(authors));
+            book.getSubjects().addAll(resolveSubjects(subjectNames));
+            bookRepository.save(book);
+        });
+        bookSearchService.index(book);
+        ingestedCounter.increment();
+    }
+
+    /**
+     * Autor guardado localmente, o descargado si es la primera vez que aparece
+     */
+    private Author resolveAuthor(String authorId) {
+        return authorRepository.findById(authorId).orElseGet(() -> {
+            String name = null;
+            try {
+                name = objectMapper.readTree(bookCatalogService.getAuthor(authorId)).path("name").asText(null);
+            } catch (CatalogNotFoundException | IllegalArgumentException
+                    | JsonProcessingException e) {
+                log.debug("Autor {} sin metadatos en OpenLibrary: {}", authorId, e.getMessage());
+            }
+            return Author.builder().authorId(authorId).name(name).build();
+        });
+    }
+
+    private List<Subject> resolveSubjects(Set<String> names) {
+        if (names.isEmpty()) {
+            return List.of();
+        }
+        List<Subject> subjects = new ArrayList<>(subjectRepository.findByNameIn(names));
+        Set<String> missing = new LinkedHashSet<>(names);
+        subjects.forEach(subject -> missing.remove(subject.getName()));
+        missing.forEach(name -> subjects.add(subjectRepository.save(Subject.builder().name(name).build())));
+        return subjects;
+    }
+
+    private static Integer parseYear(String date) {
+        if (date == null) {
+            return null;
+        }
+        Matcher matcher = YEAR.matcher(date);
+        return matcher.find() ? Integer.valueOf(matcher.group(1)) : null;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,314 @@
+package escom.ipn.hola_spring_6IV3.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import escom.ipn.hola_spring_6IV3.domain.dto.BookPopularityDTO;
+import escom.ipn.hola_spring_6IV3.domain.entity.BookPopularity;
+import escom.ipn.hola_spring_6IV3.domain.entity.BookPopularityDaily;
+import escom.ipn.hola_spring_6IV3.repository.BookPopularityRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Popularidad de los libros (número de veces que están en favoritos).
+ * Los cambios se acumulan en contadores LongAdder por libro, que no se bloquean entre
+ * hilos, y se guardan periódicamente por lotes en book_popularity y book_popularity_daily.
+ * En cada guardado se recalculan con un heap los K libros más populares de cada ventana,
+ * por lo que consultar el ranking es O(K) y nunca agrupa la tabla de favoritos.
+ */
+@Service
+@Slf4j
+public class BookPopularityService {
+
+    /**
+     * Ventanas de tiempo del ranking
+     */
+    public enum Window {
+        ALL(0), WEEK(7), MONTH(30);
+
+        private final int days;
+
+        Window(int days) {
+            this.days = days;
+        }
+
+        /**
+         * Interpreta el nombre de la ventana (all, week, month)
+         *
+         * @throws IllegalArgumentException si no es una ventana válida
+         */
+        public static Window from(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase());
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Ventana inválida: " + name + ". Valores: all, week, month");
+            }
+        }
+    }
+
+    private static final int MAX_WINDOW_DAYS = Window.MONTH.days;
+
+    private final BookPopularityRepository repository;
+    private final int topK;
+
+    private final ConcurrentHashMap<String, BookCounter> totals = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<LocalDate, ConcurrentHashMap<String, BookCounter>> daily = new ConcurrentHashMap<>();
+    // ReentrantLock en lugar de synchronized: el guardado hace E/S y no debe fijar un hilo virtual a su portador
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile Map<Window, List<BookPopularityDTO>> rankings = Map.of();
+
+    public BookPopularityService(
+            BookPopularityRepository repository,
+            @Value("${books.popularity.top-k:50}") int topK) {
+        this.repository = repository;
+        this.topK = topK;
+    }
+
+    /**
+     * Reconstruye los contadores desde las tablas de popularidad al arrancar.
+     * Si aún no existen (primer arranque), se calculan una sola vez desde favoritos.
+     */
+    @PostConstruct
+    void rebuild() {
+        List<BookPopularity> rows = repository.findAll();
+        if (rows.isEmpty()) {
+            rows = seedFromFavorites();
+        }
+        for (BookPopularity row : rows) {
+            BookCounter counter = totals.computeIfAbsent(row.getBookId(), id -> new BookCounter());
+            counter.count.add(row.getFavoriteCount());
+            counter.describe(row.getBookTitle(), row.getBookCoverId());
+        }
+
+        LocalDate since = LocalDate.now().minusDays(MAX_WINDOW_DAYS - 1);
+        for (BookPopularityDaily row : repository.findDailySince(since)) {
+            daily.computeIfAbsent(row.getDay(), day -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(row.getBookId(), id -> new BookCounter())
+                    .count.add(row.getFavoriteCount());
+        }
+
+        recomputeRankings();
+        log.info("Popularidad de libros reconstruida: {} libros", totals.size());
+    }
+
+    /**
+     * Registra que un libro fue añadido a favoritos
+     */
+    public void recordAdded(String bookId, String bookTitle, String bookCoverId) {
+        record(bookId, 1).describe(bookTitle, bookCoverId);
+    }
+
+    /**
+     * Registra que un libro fue eliminado de favoritos
+     */
+    public void recordRemoved(String bookId) {
+        record(bookId, -1);
+    }
+
+    /**
+     * Libros más populares de la ventana, ya calculados en el último guardado
+     */
+    public List<BookPopularityDTO> getTopBooks(Window window, int limit) {
+        List<BookPopularityDTO> ranking = rankings.getOrDefault(window, List.of());
+        return ranking.subList(0, Math.max(0, Math.min(limit, ranking.size())));
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    /**
+     * Guarda por lotes los cambios acumulados y recalcula los rankings.
+     * Si la escritura falla, los cambios se devuelven a los contadores para reintentarlos.
+     */
+    @Scheduled(fixedDelayString = "${books.popularity.flush-interval-ms:30000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<BookPopularity> totalDeltas = new ArrayList<>();
+            totals.forEach((bookId, counter) -> {
+                long delta = counter.pending.sumThenReset();
+                if (delta != 0) {
+                    totalDeltas.add(BookPopularity.builder()
+                            .bookId(bookId)
+                            .favoriteCount(delta)
+                            .bookTitle(counter.title)
+                            .bookCoverId(counter.coverId)
+                            .build());
+                }
+            });
+            if (!totalDeltas.isEmpty()) {
+                try {
+                    repository.addToTotals(totalDeltas);
+                } catch (RuntimeException e) {
+                    log.warn("No se pudo guardar la popularidad de {} libros: {}", totalDeltas.size(), e.getMessage());
+                    totalDeltas.forEach(delta -> totals.get(delta.getBookId()).pending.add(delta.getFavoriteCount()));
+                }
+            }
+
+            daily.forEach((day, counters) -> {
+                Map<String, Long> dayDeltas = new HashMap<>();
+                counters.forEach((bookId, counter) -> {
+                    long delta = counter.pending.sumThenReset();
+                    if (delta != 0) {
+                        dayDeltas.put(bookId, delta);
+                    }
+                });
+                if (!dayDeltas.isEmpty()) {
+                    try {
+                        repository.addToDay(day, dayDeltas);
+                    } catch (RuntimeException e) {
+                        log.warn("No se pudo guardar la popularidad del {}: {}", day, e.getMessage());
+                        dayDeltas.forEach((bookId, delta) -> counters.get(bookId).pending.add(delta));
+                    }
+                }
+            });
+
+            pruneExpiredDays();
+            recomputeRankings();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private BookCounter record(String bookId, long delta) {
+        BookCounter counter = totals.computeIfAbsent(bookId, id -> new BookCounter());
+        counter.add(delta);
+        daily.computeIfAbsent(LocalDate.now(), day -> new ConcurrentHashMap<>())
+                .computeIfAbsent(bookId, id -> new BookCounter())
+                .add(delta);
+        return counter;
+    }
+
+    /**
+     * Descarta los días que ya no entran en ninguna ventana (si ya se guardaron)
+     */
+    private void pruneExpiredDays() {
+        LocalDate oldest = LocalDate.now().minusDays(MAX_WINDOW_DAYS - 1);
+        daily.entrySet().removeIf(entry -> entry.getKey().isBefore(oldest)
+                && entry.getValue().values().stream().allMatch(counter -> counter.pending.sum() == 0));
+        try {
+            repository.deleteDailyBefore(oldest);
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron depurar los contadores diarios: {}", e.getMessage());
+        }
+    }
+
+    private void recomputeRankings() {
+        Map<Window, List<BookPopularityDTO>> fresh = new EnumMap<>(Window.class);
+        Map<String, Long> allTime = new HashMap<>();
+        totals.forEach((bookId, counter) -> allTime.put(bookId, counter.count.sum()));
+        fresh.put(Window.ALL, topOf(allTime));
+
+        for (Window window : List.of(Window.WEEK, Window.MONTH)) {
+            LocalDate oldest = LocalDate.now().minusDays(window.days - 1);
+            Map<String, Long> sums = new HashMap<>();
+            daily.forEach((day, counters) -> {
+                if (!day.isBefore(oldest)) {
+                    counters.forEach((bookId, counter) -> sums.merge(bookId, counter.count.sum(), Long::sum));
+                }
+            });
+            fresh.put(window, topOf(sums));
+        }
+        rankings = fresh;
+    }
+
+    /**
+     * Selecciona los K libros con más favoritos usando un min-heap de tamaño K
+     */
+    private List<BookPopularityDTO> topOf(Map<String, Long> counts) {
+        PriorityQueue<Map.Entry<String, Long>> heap = new PriorityQueue<>(topK + 1, Map.Entry.comparingByValue());
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            if (entry.getValue() <= 0) {
+                continue;
+            }
+            heap.offer(entry);
+            if (heap.size() > topK) {
+                heap.poll();
+            }
+        }
+
+        List<BookPopularityDTO> ranking = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            Map.Entry<String, Long> entry = heap.poll();
+            BookCounter counter = totals.get(entry.getKey());
+            ranking.add(BookPopularityDTO.builder()
+                    .bookId(entry.getKey())
+                    .bookTitle(counter != null ? counter.title : null)
+                    .bookCoverId(counter != null ? counter.coverId : null)
+                    .favorites(entry.getValue())
+                    .build());
+        }
+        Collections.reverse(ranking);
+        return Collections.unmodifiableList(ranking);
+    }
+
+    /**
+     * Carga inicial: calcula totales y días recientes agrupando favoritos y los guarda
+     */
+    private List<BookPopularity> seedFromFavorites() {
+        List<BookPopularity> rows = repository.countFavoritesByBook().stream()
+                .map(view -> BookPopularity.builder()
+                        .bookId(view.getBookId())
+                        .favoriteCount(view.getFavoriteCount())
+                        .bookTitle(view.getBookTitle())
+                        .bookCoverId(view.getBookCoverId())
+                        .build())
+                .toList();
+        if (rows.isEmpty()) {
+            return rows;
+        }
+        repository.addToTotals(rows);
+
+        // Los días solo se calculan si tampoco existen, para no sumarlos dos veces
+        LocalDate since = LocalDate.now().minusDays(MAX_WINDOW_DAYS - 1);
+        if (repository.findDailySince(since).isEmpty()) {
+            Map<LocalDate, Map<String, Long>> byDay = new HashMap<>();
+            repository.countFavoritesByBookAndDay(since.atStartOfDay()).forEach(view ->
+                    byDay.computeIfAbsent(view.getDay(), day -> new HashMap<>())
+                            .put(view.getBookId(), view.getFavoriteCount()));
+            byDay.forEach(repository::addToDay);
+        }
+
+        log.info("Popularidad inicial calculada desde favoritos: {} libros", rows.size());
+        return rows;
+    }
+
+    /**
+     * Contador de un libro: valor vigente y cambios pendientes de guardar
+     */
+    private static final class BookCounter {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder pending = new LongAdder();
+        private volatile String title;
+        private volatile String coverId;
+
+        void add(long delta) {
+            count.add(delta);
+            pending.add(delta);
+        }
+
+        void describe(String bookTitle, String bookCoverId) {
+            if (bookTitle != null) {
+                title = bookTitle;
+            }
+            if (bookCoverId != null) {
+                coverId = bookCoverId;
+            }
+        }
+    }
+}
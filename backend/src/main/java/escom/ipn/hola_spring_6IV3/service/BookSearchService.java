@@ -0,0 +1,254 @@
+package escom.ipn.hola_spring_6IV3.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import escom.ipn.hola_spring_6IV3.domain.dto.BookSearchResultDTO;
+import escom.ipn.hola_spring_6IV3.domain.dto.BookSummaryDTO;
+import escom.ipn.hola_spring_6IV3.domain.entity.Author;
+import escom.ipn.hola_spring_6IV3.domain.entity.Book;
+import escom.ipn.hola_spring_6IV3.domain.entity.Subject;
+import escom.ipn.hola_spring_6IV3.exception.CatalogUnavailableException;
+import escom.ipn.hola_spring_6IV3.repository.BookRepository;
+import escom.ipn.hola_spring_6IV3.service.search.BookDocument;
+import escom.ipn.hola_spring_6IV3.service.search.BookSearchIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Búsqueda de libros sobre un índice invertido en memoria (BookSearchIndex) con los libros
+ * del catálogo local (los que algún usuario marcó como favoritos), que se indexan al guardarse.
+ * Solo si el índice no tiene ningún resultado se consulta OpenLibrary (a través del proxy con
+ * caché). Lo recibido de OpenLibrary no se agrega al índice: sus claves vienen de búsquedas
+ * libres y harían crecer el índice y el snapshot sin límite; el tamaño queda acotado por la
+ * tabla books.
+ *
+ * El índice se guarda periódicamente en un archivo; al arrancar se lee de ahí y solo se
+ * indexan los libros del catálogo local guardados después del snapshot. Sin snapshot se
+ * construye una vez desde la tabla books.
+ */
+@Service
+@Slf4j
+public class BookSearchService {
+
+    private static final int SNAPSHOT_MAGIC = 0x424B5358; // "BKSX"
+    // Versión 2: sin libros de OpenLibrary; un snapshot anterior se reconstruye desde books
+    private static final int SNAPSHOT_VERSION = 2;
+    // Margen por libros que se estaban guardando mientras se escribía el snapshot
+    private static final Duration CATCH_UP_MARGIN = Duration.ofMinutes(10);
+    private static final int LOAD_BATCH_SIZE = 500;
+    private static final int MAX_QUERY_LENGTH = 200;
+    private static final int MAX_LIMIT = 50;
+
+    private final BookRepository bookRepository;
+    private final BookCatalogService bookCatalogService;
+    private final ObjectMapper objectMapper;
+    private final Path snapshotFile;
+    private final BookSearchIndex index = new BookSearchIndex();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final Counter localCounter;
+    private final Counter upstreamCounter;
+
+    public BookSearchService(
+            BookRepository bookRepository,
+            BookCatalogService bookCatalogService,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${storage.search.snapshot-file:data/search/books.idx}") String snapshotFile) {
+        this.bookRepository = bookRepository;
+        this.bookCatalogService = bookCatalogService;
+        this.objectMapper = objectMapper;
+        this.snapshotFile = Paths.get(snapshotFile).toAbsolutePath().normalize();
+
+        Gauge.builder("books.search.index.size", index, BookSearchIndex::size)
+                .description("Libros en el índice de búsqueda")
+                .register(meterRegistry);
+        this.localCounter = Counter.builder("books.search.requests")
+                .tag("source", "local")
+                .description("Búsquedas respondidas con el índice local")
+                .register(meterRegistry);
+        this.upstreamCounter = Counter.builder("books.search.requests")
+                .tag("source", "openlibrary")
+                .description("Búsquedas sin resultados locales enviadas a OpenLibrary")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Carga el snapshot y completa con los libros del catálogo local que no incluye
+     */
+    @PostConstruct
+    void load() {
+        long takenAt = readSnapshot();
+        List<String> bookIds = takenAt < 0
+                ? bookRepository.findAllBookIds()
+                : bookRepository.findBookIdsFetchedAfter(LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(takenAt).minus(CATCH_UP_MARGIN), ZoneId.systemDefault()));
+        for (int from = 0; from < bookIds.size(); from += LOAD_BATCH_SIZE) {
+            List<String> batch = bookIds.subList(from, Math.min(from + LOAD_BATCH_SIZE, bookIds.size()));
+            bookRepository.findWithAuthorsAndSubjectsByBookIdIn(batch).forEach(book -> index.put(toDocument(book)));
+        }
+        if (!bookIds.isEmpty()) {
+            dirty.set(true);
+        }
+        log.info("Índice de búsqueda listo: {} libros ({} indexados desde la base de datos)",
+                index.size(), bookIds.size());
+    }
+
+    /**
+     * Agrega (o actualiza) un libro del catálogo local
+     */
+    public void index(Book book) {
+        index.put(toDocument(book));
+        dirty.set(true);
+    }
+
+    /**
+     * Busca en el índice local y, si no hay resultados, en OpenLibrary
+     */
+    public BookSearchResultDTO search(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("La búsqueda no puede estar vacía");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("La búsqueda excede " + MAX_QUERY_LENGTH + " caracteres");
+        }
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        List<BookSummaryDTO> books = index.search(query, size);
+        if (!books.isEmpty()) {
+            localCounter.increment();
+            return BookSearchResultDTO.builder().source("local").books(books).build();
+        }
+
+        upstreamCounter.increment();
+        return BookSearchResultDTO.builder().source("openlibrary").books(searchUpstream(query, size)).build();
+    }
+
+    private List<BookSummaryDTO> searchUpstream(String query, int limit) {
+        JsonNode docs;
+        try {
+            docs = objectMapper.readTree(bookCatalogService.search(query, limit)).path("docs");
+        } catch (JsonProcessingException e) {
+            throw new CatalogUnavailableException("Respuesta inválida de OpenLibrary", e);
+        }
+
+        List<BookSummaryDTO> books = new ArrayList<>();
+        for (JsonNode doc : docs) {
+            String key = doc.path("key").asText("");
+            if (!key.startsWith("/works/")) {
+                continue;
+            }
+            books.add(BookSummaryDTO.builder()
+                    .bookId(key.substring("/works/".length()))
+                    .title(doc.path("title").asText(null))
+                    .coverId(doc.path("cover_i").asLong() > 0 ? doc.path("cover_i").asText() : null)
+                    .authors(textValues(doc.path("author_name")))
+                    .firstPublishYear(doc.path("first_publish_year").canConvertToInt()
+                            ? doc.path("first_publish_year").asInt() : null)
+                    .build());
+        }
+        return books;
+    }
+
+    /**
+     * Guarda el índice en disco si cambió desde el último snapshot
+     */
+    @Scheduled(initialDelayString = "${books.search.snapshot-interval-ms:60000}",
+            fixedDelayString = "${books.search.snapshot-interval-ms:60000}")
+    public void snapshot() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        long takenAt = System.currentTimeMillis();
+        try {
+            Files.createDirectories(snapshotFile.getParent());
+            Path temp = Files.createTempFile(snapshotFile.getParent(), "books-", ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeInt(SNAPSHOT_MAGIC);
+                    out.writeInt(SNAPSHOT_VERSION);
+                    out.writeLong(takenAt);
+                    index.writeTo(out);
+                }
+                Files.move(temp, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            dirty.set(true);
+            log.warn("No se pudo guardar el índice de búsqueda: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return la fecha del snapshot leído, o -1 si no hay uno válido
+     */
+    private long readSnapshot() {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                log.warn("Snapshot del índice de búsqueda con formato desconocido, se reconstruye");
+                return -1;
+            }
+            long takenAt = in.readLong();
+            index.readFrom(in);
+            return takenAt;
+        } catch (NoSuchFileException e) {
+            return -1;
+        } catch (IOException | RuntimeException e) {
+            log.warn("No se pudo leer el snapshot del índice de búsqueda, se reconstruye: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    private static BookDocument toDocument(Book book) {
+        return new BookDocument(
+                book.getBookId(),
+                book.getTitle(),
+                book.getCoverId(),
+                book.getAuthors().stream().map(Author::getName).toList(),
+                book.getFirstPublishYear(),
+                book.getSubjects().stream().map(Subject::getName).toList());
+    }
+
+    private static List<String> textValues(JsonNode array) {
+        List<String> values = new ArrayList<>();
+        for (JsonNode value : array) {
+            values.add(value.asText());
+        }
+        return values;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        snapshot();
+    }
+}
@@ -1,104 +1,409 @@
 package escom.ipn.hola_spring_6IV3.service;
 
+import escom.ipn.hola_spring_6IV3.domain.dto.BookSummaryDTO;
 import escom.ipn.hola_spring_6IV3.domain.dto.FavoriteDTO;
 import escom.ipn.hola_spring_6IV3.domain.entity.Favorite;
-import escom.ipn.hola_spring_6IV3.domain.entity.User;
 import escom.ipn.hola_spring_6IV3.domain.request.FavoriteRequest;
+import escom.ipn.hola_spring_6IV3.domain.response.FavoriteImportResponse;
+import escom.ipn.hola_spring_6IV3.domain.response.FavoritePageResponse;
+import escom.ipn.hola_spring_6IV3.exception.UserNotFoundException;
 import escom.ipn.hola_spring_6IV3.repository.FavoriteRepository;
 import escom.ipn.hola_spring_6IV3.repository.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+/**
+ * Servicio de favoritos.
+ * Las lecturas frecuentes (estado de favorito, total y listado) se sirven desde una
+ * caché por usuario que se actualiza en sitio con cada alta o baja.
+ */
 @Service
 public class FavoriteService {
     
+    private static final int EXPORT_BATCH_SIZE = 500;
+    
     @Autowired
     private FavoriteRepository favoriteRepository;
     
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private BookPopularityService bookPopularityService;
+    
+    @Autowired
+    private RecommendationService recommendationService;
+    
+    @Autowired
+    private BookMetadataService bookMetadataService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${favorites.cache.max-users:10000}")
+    private int cacheMaxUsers;
+    
+    @Value("${favorites.cache.ttl-ms:300000}")
+    private long cacheTtlMillis;
+    
+    @Value("${favorites.cache.max-favorites-per-user:2000}")
+    private int cacheMaxFavoritesPerUser;
+    
+    private FavoritesCache cache;
+    
+    @PostConstruct
+    void init() {
+        cache = new FavoritesCache(cacheMaxUsers, cacheTtlMillis);
+        FunctionCounter.builder("favorites.cache.hits", cache, c -> c.hits.get()).register(meterRegistry);
+        FunctionCounter.builder("favorites.cache.misses", cache, c -> c.misses.get()).register(meterRegistry);
+        Gauge.builder("favorites.cache.hit.ratio", cache, c -> {
+                    long hits = c.hits.get();
+                    long total = hits + c.misses.get();
+                    return total == 0 ? 0.0 : (double) hits / total;
+                })
+                .register(meterRegistry);
+        Gauge.builder("favorites.cache.users", cache, FavoritesCache::size).register(meterRegistry);
+    }
+    
+    /**
+     * Obtiene una página de favoritos por keyset sobre (addedDate, id).
+     * Se pide un elemento de más para saber si existe una página siguiente.
+     *
+     * @param cursor cursor opaco devuelto en la página anterior, o null para la primera
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    public FavoritePageResponse getFavoritesPage(Integer userId, String cursor, int size) {
+        FavoriteCursor position = cursor == null || cursor.isBlank() ? null : FavoriteCursor.decode(cursor);
+        List<FavoriteDTO> rows;
+        UserFavorites cached = cachedFavorites(userId);
+        if (cached != null && cached.isComplete()) {
+            rows = pageFromCache(cached, position, size + 1);
+        } else {
+            Limit limit = Limit.of(size + 1);
+            List<Favorite> entities = position == null
+                    ? favoriteRepository.findFirstPage(userId, limit)
+                    : favoriteRepository.findPageAfter(userId, position.addedDate(), position.id(), limit);
+            rows = entities.stream().map(this::convertToDTO).collect(Collectors.toList());
+        }
+        
+        boolean hasMore = rows.size() > size;
+        List<FavoriteDTO> favorites = withBookDetails(hasMore ? rows.subList(0, size) : rows);
+        String nextCursor = null;
+        if (hasMore) {
+            FavoriteDTO last = favorites.get(favorites.size() - 1);
+            nextCursor = new FavoriteCursor(last.getAddedDate(), last.getId()).encode();
+        }
+        
+        return FavoritePageResponse.builder()
+                .favorites(favorites)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .count(getUserFavoritesCount(userId))
+                .build();
+    }
+    
     /**
-     * Obtiene todos los favoritos de un usuario
+     * Recorre todos los favoritos de un usuario por lotes (keyset), sin cargar la
+     * lista completa en memoria. Pensado para exportaciones en streaming.
      */
-    public List<FavoriteDTO> getUserFavorites(String username) {
-        List<Favorite> favorites = favoriteRepository.findByUsernameOrderByAddedDateDesc(username);
-        return favorites.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public void forEachFavorite(Integer userId, Consumer<FavoriteDTO> action) {
+        Limit limit = Limit.of(EXPORT_BATCH_SIZE);
+        List<Favorite> batch = favoriteRepository.findFirstPage(userId, limit);
+        while (!batch.isEmpty()) {
+            batch.forEach(favorite -> action.accept(convertToDTO(favorite)));
+            if (batch.size() < EXPORT_BATCH_SIZE) {
+                return;
+            }
+            Favorite last = batch.get(batch.size() - 1);
+            batch = favoriteRepository.findPageAfter(userId, last.getAddedDate(), last.getId(), limit);
+        }
     }
     
     /**
-     * Añade un libro a favoritos
+     * Importa favoritos de forma masiva.
+     * Descarta repetidos dentro de la petición, consulta en una sola sentencia cuáles
+     * ya existen y los restantes se insertan con lotes JDBC.
      */
-    @Transactional
-    public FavoriteDTO addToFavorites(String username, FavoriteRequest request) {
-        // Verificar si el usuario existe
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado: " + username));
-        
-        // Verificar si el libro ya está en favoritos
-        if (favoriteRepository.existsByUsernameAndBookId(username, request.getBookId())) {
-            throw new RuntimeException("El libro ya está en favoritos");
+    public FavoriteImportResponse importFavorites(Integer userId, List<FavoriteRequest> requests) {
+        Map<String, FavoriteRequest> unique = new LinkedHashMap<>();
+        for (FavoriteRequest request : requests) {
+            if (request != null && request.getBookId() != null && !request.getBookId().isBlank()) {
+                unique.putIfAbsent(request.getBookId(), request);
+            }
         }
         
-        // Crear nuevo favorito
-        Favorite favorite = new Favorite(user, request.getBookId(), request.getBookTitle(), request.getBookCoverId());
-        Favorite savedFavorite = favoriteRepository.save(favorite);
+        int imported = 0;
+        ReentrantLock lock = cache.lockFor(userId);
+        lock.lock();
+        try {
+            if (!unique.isEmpty()) {
+                Set<String> existing = new HashSet<>(favoriteRepository.findFavoriteBookIds(userId, unique.keySet()));
+                List<FavoriteRequest> toInsert = unique.values().stream()
+                        .filter(request -> !existing.contains(request.getBookId()))
+                        .collect(Collectors.toList());
+                if (!toInsert.isEmpty()) {
+                    // Solo los realmente insertados cuentan para popularidad y recomendaciones
+                    Set<String> inserted = favoriteRepository.insertAllIfAbsent(userId, toInsert, LocalDateTime.now());
+                    imported = inserted.size();
+                    toInsert.stream()
+                            .filter(request -> inserted.contains(request.getBookId()))
+                            .forEach(request -> recordAdded(userId, request));
+                }
+            }
+        } finally {
+            // Tras una importación es más barato recargar la entrada que aplicar cada alta
+            cache.invalidate(userId);
+            lock.unlock();
+        }
         
-        return convertToDTO(savedFavorite);
+        return FavoriteImportResponse.builder()
+                .requested(requests.size())
+                .imported(imported)
+                .skipped(requests.size() - imported)
+                .build();
     }
     
     /**
-     * Elimina un libro de favoritos
+     * Añade un libro a favoritos con una inserción atómica (insert-if-absent)
+     *
+     * @return el favorito creado, o vacío si el libro ya estaba en favoritos
      */
-    @Transactional
-    public void removeFromFavorites(String username, String bookId) {
-        // Verificar si el favorito existe
-        Optional<Favorite> favorite = favoriteRepository.findByUsernameAndBookId(username, bookId);
-        if (favorite.isEmpty()) {
-            throw new RuntimeException("El libro no está en favoritos");
+    public Optional<FavoriteDTO> addToFavorites(Integer userId, FavoriteRequest request) {
+        ReentrantLock lock = cache.lockFor(userId);
+        lock.lock();
+        try {
+            if (insertFavorite(userId, request) == 0) {
+                return Optional.empty();
+            }
+            Optional<FavoriteDTO> favorite = favoriteRepository.findByUserIdAndBookId(userId, request.getBookId())
+                    .map(this::convertToDTO);
+            favorite.ifPresent(added -> cache.update(userId, cached -> cached.with(added)));
+            return favorite;
+        } finally {
+            lock.unlock();
         }
-        
+    }
+    
+    /**
+     * Elimina un libro de favoritos con una sola sentencia DELETE
+     *
+     * @return true si se eliminó, false si el libro no estaba en favoritos
+     */
+    public boolean removeFromFavorites(Integer userId, String bookId) {
+        ReentrantLock lock = cache.lockFor(userId);
+        lock.lock();
         try {
-            // Usar el método más confiable de Spring Data JPA
-            favoriteRepository.deleteByUserUsernameAndBookId(username, bookId);
-        } catch (Exception e) {
-            // Si falla, intentar con el favorito específico encontrado
-            favoriteRepository.delete(favorite.get());
+            return deleteFavorite(userId, bookId);
+        } finally {
+            lock.unlock();
         }
     }
     
     /**
      * Verifica si un libro está en favoritos
      */
-    public boolean isBookInFavorites(String username, String bookId) {
-        return favoriteRepository.existsByUsernameAndBookId(username, bookId);
+    public boolean isBookInFavorites(Integer userId, String bookId) {
+        UserFavorites cached = cachedFavorites(userId);
+        if (cached != null && cached.isComplete()) {
+            return cached.bookIds().contains(bookId);
+        }
+        return favoriteRepository.existsByUserIdAndBookId(userId, bookId);
+    }
+    
+    /**
+     * Verifica en lote qué libros están en favoritos.
+     * Resuelve toda la lista con una sola consulta en lugar de una por libro.
+     *
+     * @return mapa bookId -> está en favoritos, en el mismo orden de la petición
+     */
+    public Map<String, Boolean> checkFavorites(Integer userId, List<String> bookIds) {
+        Map<String, Boolean> result = new LinkedHashMap<>();
+        if (bookIds == null || bookIds.isEmpty()) {
+            return result;
+        }
+        Set<String> distinctIds = new LinkedHashSet<>(bookIds);
+        UserFavorites cached = cachedFavorites(userId);
+        Set<String> favoriteIds = cached != null && cached.isComplete()
+                ? cached.bookIds()
+                : new HashSet<>(favoriteRepository.findFavoriteBookIds(userId, distinctIds));
+        for (String bookId : distinctIds) {
+            result.put(bookId, favoriteIds.contains(bookId));
+        }
+        return result;
     }
     
     /**
      * Obtiene el número total de favoritos de un usuario
      */
-    public long getUserFavoritesCount(String username) {
-        return favoriteRepository.countByUsername(username);
+    public long getUserFavoritesCount(Integer userId) {
+        UserFavorites cached = cachedFavorites(userId);
+        return cached != null ? cached.count() : favoriteRepository.countByUserId(userId);
     }
     
     /**
-     * Alterna el estado de favorito de un libro (añadir/eliminar)
+     * Alterna el estado de favorito de un libro (añadir/eliminar).
+     * Primero intenta insertar; si el favorito ya existía lo elimina. Cada sentencia es
+     * atómica por sí misma y no se ejecutan dentro de una misma transacción, de modo
+     * que los clics concurrentes no chocan con la restricción única ni se bloquean.
+     *
+     * @return true si el libro quedó en favoritos, false si quedó fuera
      */
-    @Transactional
-    public boolean toggleFavorite(String username, FavoriteRequest request) {
-        if (isBookInFavorites(username, request.getBookId())) {
-            removeFromFavorites(username, request.getBookId());
+    public boolean toggleFavorite(Integer userId, FavoriteRequest request) {
+        ReentrantLock lock = cache.lockFor(userId);
+        lock.lock();
+        try {
+            if (insertFavorite(userId, request) > 0) {
+                // Solo se consulta la fila insertada si hay una entrada en caché que actualizar
+                if (cache.peek(userId, System.currentTimeMillis()) != null) {
+                    favoriteRepository.findByUserIdAndBookId(userId, request.getBookId())
+                            .map(this::convertToDTO)
+                            .ifPresent(added -> cache.update(userId, cached -> cached.with(added)));
+                }
+                return true; // Añadido a favoritos
+            }
+            deleteFavorite(userId, request.getBookId());
             return false; // Eliminado de favoritos
-        } else {
-            addToFavorites(username, request);
-            return true; // Añadido a favoritos
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private int insertFavorite(Integer userId, FavoriteRequest request) {
+        int inserted = favoriteRepository.insertIfAbsent(userId, request.getBookId(), request.getBookTitle(),
+                request.getBookCoverId(), LocalDateTime.now());
+        if (inserted > 0) {
+            recordAdded(userId, request);
+        }
+        return inserted;
+    }
+    
+    /**
+     * Propaga un alta a los contadores de popularidad y al índice de recomendaciones
+     */
+    private void recordAdded(Integer userId, FavoriteRequest request) {
+        bookPopularityService.recordAdded(request.getBookId(), request.getBookTitle(), request.getBookCoverId());
+        recommendationService.recordAdded(userId, request.getBookId(), request.getBookTitle(), request.getBookCoverId());
+        bookMetadataService.enqueue(request.getBookId(), request.getBookTitle(), request.getBookCoverId());
+    }
+    
+    /**
+     * Copia los favoritos de la página con autores y año del catálogo local (una sola
+     * consulta para toda la página); las entradas de la caché no se modifican
+     */
+    private List<FavoriteDTO> withBookDetails(List<FavoriteDTO> favorites) {
+        Map<String, BookSummaryDTO> books = bookMetadataService.findSummaries(
+                favorites.stream().map(FavoriteDTO::getBookId).collect(Collectors.toSet()));
+        return favorites.stream().map(favorite -> {
+            FavoriteDTO copy = new FavoriteDTO(favorite.getId(), favorite.getBookId(), favorite.getBookTitle(),
+                    favorite.getBookCoverId(), favorite.getAddedDate());
+            BookSummaryDTO book = books.get(favorite.getBookId());
+            if (book != null) {
+                copy.setAuthors(book.getAuthors());
+                copy.setFirstPublishYear(book.getFirstPublishYear());
+            }
+            return copy;
+        }).collect(Collectors.toList());
+    }
+    
+    private boolean deleteFavorite(Integer userId, String bookId) {
+        boolean deleted = favoriteRepository.deleteByUserIdAndBookId(userId, bookId) > 0;
+        if (deleted) {
+            cache.update(userId, cached -> cached.without(bookId));
+            bookPopularityService.recordRemoved(bookId);
+            recommendationService.recordRemoved(userId, bookId);
+        }
+        return deleted;
+    }
+    
+    /**
+     * Obtiene los favoritos del usuario desde la caché, cargándolos si no están.
+     * La carga se hace con el lock del usuario para no cruzarse con sus escrituras.
+     * Si tiene más favoritos que el máximo configurado solo se guarda el total.
+     */
+    private UserFavorites cachedFavorites(Integer userId) {
+        if (cacheMaxUsers <= 0) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        UserFavorites cached = cache.get(userId, now);
+        if (cached != null) {
+            return cached;
+        }
+        
+        ReentrantLock lock = cache.lockFor(userId);
+        lock.lock();
+        try {
+            cached = cache.peek(userId, now);
+            if (cached != null) {
+                return cached;
+            }
+            List<Favorite> rows = favoriteRepository.findFirstPage(userId, Limit.of(cacheMaxFavoritesPerUser + 1));
+            UserFavorites loaded = rows.size() <= cacheMaxFavoritesPerUser
+                    ? UserFavorites.complete(rows.stream().map(this::convertToDTO).collect(Collectors.toList()), now)
+                    : UserFavorites.countOnly(favoriteRepository.countByUserId(userId), now);
+            cache.put(userId, loaded);
+            return loaded;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Página del listado en caché posterior al cursor (o desde el inicio si es null)
+     */
+    private static List<FavoriteDTO> pageFromCache(UserFavorites cached, FavoriteCursor position, int limit) {
+        List<FavoriteDTO> favorites = cached.favorites();
+        int start = 0;
+        if (position != null) {
+            FavoriteDTO probe = new FavoriteDTO(position.id(), null, null, null, position.addedDate());
+            int index = Collections.binarySearch(favorites, probe, UserFavorites.NEWEST_FIRST);
+            start = index >= 0 ? index + 1 : -index - 1;
+        }
+        return favorites.subList(start, Math.min(favorites.size(), start + limit));
+    }
+    
+    /**
+     * Posición de un favorito en el orden (addedDate DESC, id DESC).
+     * Se envía al cliente codificada en Base64 URL-safe para que la trate como opaca.
+     */
+    private record FavoriteCursor(LocalDateTime addedDate, Long id) {
+        
+        String encode() {
+            String raw = addedDate + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        static FavoriteCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new FavoriteCursor(
+                        LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursor inválido", e);
+            }
         }
     }
     
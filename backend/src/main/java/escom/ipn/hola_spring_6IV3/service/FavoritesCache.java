@@ -0,0 +1,89 @@
+package escom.ipn.hola_spring_6IV3.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * Caché acotada (por número de usuarios y por TTL) de los favoritos de cada usuario.
+ * Las escrituras de un usuario y la carga de su entrada se serializan con un lock
+ * por franja (lock striping), así una carga nunca guarda una instantánea anterior a
+ * una escritura que ya actualizó la caché, sin bloquear a los demás usuarios.
+ */
+class FavoritesCache {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final int maxUsers;
+    private final long ttlMillis;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final LinkedHashMap<Integer, UserFavorites> entries;
+
+    final AtomicLong hits = new AtomicLong();
+    final AtomicLong misses = new AtomicLong();
+
+    FavoritesCache(int maxUsers, long ttlMillis) {
+        this.maxUsers = maxUsers;
+        this.ttlMillis = ttlMillis;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, UserFavorites> eldest) {
+                return size() > FavoritesCache.this.maxUsers;
+            }
+        };
+    }
+
+    /**
+     * Lock que deben tomar las escrituras y cargas de este usuario
+     */
+    ReentrantLock lockFor(Integer userId) {
+        return locks[Math.floorMod(userId.hashCode(), LOCK_STRIPES)];
+    }
+
+    /**
+     * Obtiene la entrada vigente del usuario, registrando acierto o fallo
+     */
+    UserFavorites get(Integer userId, long nowMillis) {
+        UserFavorites cached = peek(userId, nowMillis);
+        (cached != null ? hits : misses).incrementAndGet();
+        return cached;
+    }
+
+    /**
+     * Obtiene la entrada vigente sin contar en las métricas
+     */
+    synchronized UserFavorites peek(Integer userId, long nowMillis) {
+        UserFavorites cached = entries.get(userId);
+        if (cached != null && nowMillis - cached.loadedAtMillis() >= ttlMillis) {
+            entries.remove(userId);
+            return null;
+        }
+        return cached;
+    }
+
+    synchronized void put(Integer userId, UserFavorites favorites) {
+        if (maxUsers > 0) {
+            entries.put(userId, favorites);
+        }
+    }
+
+    /**
+     * Actualiza en sitio la entrada del usuario, si está en caché
+     */
+    synchronized void update(Integer userId, UnaryOperator<UserFavorites> change) {
+        entries.computeIfPresent(userId, (id, current) -> change.apply(current));
+    }
+
+    synchronized void invalidate(Integer userId) {
+        entries.remove(userId);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,115 @@
+package escom.ipn.hola_spring_6IV3.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import escom.ipn.hola_spring_6IV3.repository.ProfileImageRenditionRepository;
+import escom.ipn.hola_spring_6IV3.repository.UserProfileImageRepository;
+import escom.ipn.hola_spring_6IV3.service.storage.ImageStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Recolector (marcar y barrer) de los archivos del ImageStore que ya nadie usa.
+ * El almacenamiento es direccionado por contenido, así que un mismo archivo puede ser la
+ * imagen de varios usuarios o la miniatura de otra imagen; en lugar de borrar al reemplazar
+ * una imagen (lo que compite con subidas en paralelo del mismo contenido y con rollbacks),
+ * se borran periódicamente los archivos que ninguna fila de user_profile_image ni de
+ * profile_image_rendition referencia y que no se han guardado durante el periodo de gracia.
+ * Antes se eliminan las filas de miniaturas cuya imagen original ya nadie usa; un archivo de
+ * miniatura que resulte ser la imagen de perfil de alguien (mismo contenido) sigue referenciado.
+ */
+@Service
+@Slf4j
+public class ImageGarbageCollector {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final ImageStore imageStore;
+    private final UserProfileImageRepository profileImageRepository;
+    private final ProfileImageRenditionRepository renditionRepository;
+    private final Duration grace;
+    private final Counter deletedCounter;
+
+    public ImageGarbageCollector(
+            ImageStore imageStore,
+            UserProfileImageRepository profileImageRepository,
+            ProfileImageRenditionRepository renditionRepository,
+            MeterRegistry meterRegistry,
+            @Value("${storage.images.gc.grace-ms:3600000}") long graceMillis) {
+        this.imageStore = imageStore;
+        this.profileImageRepository = profileImageRepository;
+        this.renditionRepository = renditionRepository;
+        this.grace = Duration.ofMillis(graceMillis);
+        this.deletedCounter = Counter.builder("profile.image.gc.deleted")
+                .description("Archivos de imagen sin referencias eliminados por el recolector")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${storage.images.gc.interval-ms:3600000}",
+            fixedDelayString = "${storage.images.gc.interval-ms:3600000}")
+    public void scheduledCollect() {
+        try {
+            collect();
+        } catch (Exception e) {
+            log.warn("No se pudo completar la recolección de imágenes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Elimina los archivos sin referencias guardados antes del periodo de gracia
+     *
+     * @return archivos eliminados
+     */
+    public int collect() throws IOException {
+        // Las subidas y transacciones en curso son mucho más cortas que el periodo de gracia
+        Instant cutoff = Instant.now().minus(grace);
+        int orphans = renditionRepository.deleteOrphans();
+        if (orphans > 0) {
+            log.info("Recolector de imágenes: {} miniaturas de imágenes que ya nadie usa eliminadas", orphans);
+        }
+        int deleted = 0;
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        try (Stream<String> candidates = imageStore.streamStoredBefore(cutoff)) {
+            for (String hash : (Iterable<String>) candidates::iterator) {
+                batch.add(hash);
+                if (batch.size() == BATCH_SIZE) {
+                    deleted += sweep(batch, cutoff);
+                    batch.clear();
+                }
+            }
+        }
+        deleted += sweep(batch, cutoff);
+        if (deleted > 0) {
+            log.info("Recolector de imágenes: {} archivos sin referencias eliminados", deleted);
+        }
+        return deleted;
+    }
+
+    private int sweep(List<String> hashes, Instant cutoff) throws IOException {
+        if (hashes.isEmpty()) {
+            return 0;
+        }
+        Set<String> referenced = new HashSet<>(profileImageRepository.findImageHashesIn(hashes));
+        referenced.addAll(renditionRepository.findImageHashesIn(hashes));
+        int deleted = 0;
+        for (String hash : hashes) {
+            if (!referenced.contains(hash) && imageStore.deleteIfStoredBefore(hash, cutoff)) {
+                deletedCounter.increment();
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,248 @@
+package escom.ipn.hola_spring_6IV3.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import escom.ipn.hola_spring_6IV3.domain.entity.ProfileImageRendition;
+import escom.ipn.hola_spring_6IV3.repository.ProfileImageRenditionRepository;
+import escom.ipn.hola_spring_6IV3.service.storage.ImageStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Genera en segundo plano versiones redimensionadas (miniaturas) de las imágenes de perfil.
+ * Cada imagen subida se decodifica una vez con javax.imageio, se recorta al centro
+ * en formato cuadrado y se re-codifica como JPEG en los tamaños configurados.
+ * El trabajo corre en un executor acotado para que la subida responda de inmediato;
+ * si la cola está llena la imagen simplemente se sirve sin miniaturas.
+ * Las dimensiones se leen de la cabecera antes de decodificar: un archivo de pocos KB
+ * puede declarar millones de píxeles y agotar el heap al reservar el BufferedImage.
+ */
+@Service
+@Slf4j
+public class ImageRenditionService {
+
+    private static final String RENDITION_CONTENT_TYPE = "image/jpeg";
+
+    private final ImageStore imageStore;
+    private final ProfileImageRenditionRepository renditionRepository;
+    private final ThreadPoolExecutor executor;
+    private final int[] sizes;
+    private final float jpegQuality;
+    private final long maxPixels;
+    private final Timer encodeTimer;
+    private final Counter rejectedCounter;
+
+    public ImageRenditionService(
+            ImageStore imageStore,
+            ProfileImageRenditionRepository renditionRepository,
+            MeterRegistry meterRegistry,
+            @Value("${storage.images.renditions.sizes:48,128,512}") int[] sizes,
+            @Value("${storage.images.renditions.jpeg-quality:0.85}") float jpegQuality,
+            @Value("${storage.images.renditions.max-pixels:25000000}") long maxPixels,
+            @Value("${storage.images.renditions.threads:2}") int threads,
+            @Value("${storage.images.renditions.queue-capacity:100}") int queueCapacity) {
+        this.imageStore = imageStore;
+        this.renditionRepository = renditionRepository;
+        this.sizes = Arrays.stream(sizes).sorted().toArray();
+        this.jpegQuality = jpegQuality;
+        this.maxPixels = maxPixels;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-rendition-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("profile.image.rendition.queue.size", executor, e -> e.getQueue().size())
+                .description("Imágenes pendientes de generar miniaturas")
+                .register(meterRegistry);
+        this.encodeTimer = Timer.builder("profile.image.rendition.encode")
+                .description("Tiempo para decodificar y generar todas las miniaturas de una imagen")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("profile.image.rendition.rejected")
+                .description("Imágenes descartadas por cola de miniaturas llena")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Encola la generación de miniaturas para una imagen original (si aún no existen)
+     */
+    public void submit(String sourceHash) {
+        try {
+            executor.execute(() -> generate(sourceHash));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            log.warn("Cola de miniaturas llena, la imagen {} se servirá sin miniaturas", sourceHash);
+        }
+    }
+
+    /**
+     * Busca la miniatura más pequeña que cubra el tamaño solicitado
+     * (o la más grande disponible si ninguna lo cubre)
+     */
+    public Optional<ProfileImageRendition> findRendition(String sourceHash, int requestedSize) {
+        List<ProfileImageRendition> renditions = renditionRepository.findBySourceHash(sourceHash);
+        return renditions.stream()
+                .filter(rendition -> rendition.getSize() >= requestedSize)
+                .min(Comparator.comparing(ProfileImageRendition::getSize))
+                .or(() -> renditions.stream().max(Comparator.comparing(ProfileImageRendition::getSize)));
+    }
+
+    private void generate(String sourceHash) {
+        if (renditionRepository.existsBySourceHash(sourceHash)) {
+            return;
+        }
+        Optional<Resource> source = imageStore.load(sourceHash);
+        if (source.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            BufferedImage original;
+            try (InputStream in = source.get().getInputStream()) {
+                original = decode(sourceHash, in);
+            }
+            if (original == null) {
+                return;
+            }
+
+            BufferedImage square = cropToSquare(original);
+            for (int size : sizes) {
+                int side = Math.min(size, square.getWidth());
+                byte[] encoded = encodeJpeg(resize(square, side));
+                String renditionHash = imageStore.store(new ByteArrayInputStream(encoded));
+                renditionRepository.save(ProfileImageRendition.builder()
+                        .sourceHash(sourceHash)
+                        .size(size)
+                        .imageHash(renditionHash)
+                        .contentType(RENDITION_CONTENT_TYPE)
+                        .build());
+            }
+        } catch (Exception e) {
+            log.error("Error al generar miniaturas para la imagen {}", sourceHash, e);
+        } finally {
+            encodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Decodifica la imagen solo si sus dimensiones declaradas no exceden el límite de píxeles.
+     * Devuelve null si no hay lector para el formato o si la imagen es demasiado grande,
+     * en cuyo caso se sirve la original sin miniaturas.
+     */
+    private BufferedImage decode(String sourceHash, InputStream in) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = iis == null ? null : ImageIO.getImageReaders(iis);
+            if (readers == null || !readers.hasNext()) {
+                // Formato sin lector en javax.imageio (p. ej. WebP): se sirve la original
+                log.info("Formato no soportado para miniaturas, imagen {}", sourceHash);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    log.warn("Imagen {} de {} píxeles excede el límite de {}, se omiten miniaturas",
+                            sourceHash, pixels, maxPixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Recorta la imagen al cuadrado central más grande posible
+     */
+    private BufferedImage cropToSquare(BufferedImage image) {
+        int side = Math.min(image.getWidth(), image.getHeight());
+        int x = (image.getWidth() - side) / 2;
+        int y = (image.getHeight() - side) / 2;
+        return image.getSubimage(x, y, side, side);
+    }
+
+    /**
+     * Redimensiona reduciendo a la mitad en varios pasos para conservar calidad,
+     * dibujando sobre fondo blanco porque JPEG no admite transparencia
+     */
+    private BufferedImage resize(BufferedImage image, int side) {
+        BufferedImage current = image;
+        int currentSide = image.getWidth();
+        do {
+            currentSide = Math.max(side, currentSide / 2);
+            BufferedImage next = new BufferedImage(currentSide, currentSide, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, currentSide, currentSide, Color.WHITE, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (currentSide > side);
+        return current;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
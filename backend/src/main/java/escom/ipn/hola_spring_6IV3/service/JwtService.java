@@ -1,11 +1,10 @@
 package escom.ipn.hola_spring_6IV3.service;
 
-import java.util.Map;
-
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import escom.ipn.hola_spring_6IV3.jwt.JwtTokenProvider;
+import escom.ipn.hola_spring_6IV3.jwt.VerifiedToken;
 import lombok.RequiredArgsConstructor;
 
 /**
@@ -29,33 +28,24 @@ public class JwtService {
     }
 
     /**
-     * Valida un token JWT para un usuario específico
-     * 
-     * @param token Token JWT a validar
-     * @param user Usuario al que debe pertenecer el token
-     * @return true si el token es válido para el usuario
-     */
-    public boolean isTokenValid(String token, UserDetails user) {
-        return jwtTokenProvider.isTokenValid(token, user);
-    }
-
-    /**
-     * Extrae el nombre de usuario de un token JWT
+     * Verifica el token una sola vez (firma y expiración) y devuelve sus claims
      * 
      * @param token Token JWT
-     * @return Nombre de usuario extraído
+     * @return Token verificado e inmutable
+     * @throws io.jsonwebtoken.JwtException si el token es inválido o ha expirado
      */
-    public String extractUsername(String token) {
-        return jwtTokenProvider.extractUsername(token);
+    public VerifiedToken verifyToken(String token) {
+        return jwtTokenProvider.verify(token);
     }
 
     /**
-     * Extrae todos los claims del token JWT
+     * Valida un token JWT para un usuario específico
      * 
-     * @param token Token JWT
-     * @return Mapa con todos los claims del token
+     * @param token Token JWT a validar
+     * @param user Usuario al que debe pertenecer el token
+     * @return true si el token es válido para el usuario
      */
-    public Map<String, Object> extractAllInfo(String token) {
-        return jwtTokenProvider.extractAllInfo(token);
+    public boolean isTokenValid(String token, UserDetails user) {
+        return jwtTokenProvider.isTokenValid(token, user);
     }
 }
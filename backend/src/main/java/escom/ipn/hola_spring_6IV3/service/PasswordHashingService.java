@@ -0,0 +1,107 @@
+package escom.ipn.hola_spring_6IV3.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import escom.ipn.hola_spring_6IV3.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Ejecuta las operaciones con BCrypt (verificar la contraseña al iniciar sesión, cifrarla al
+ * registrarse) en un pool dedicado y acotado. Una ráfaga de inicios de sesión ocupa solo
+ * estos hilos en lugar de los de Tomcat, y cuando la cola se llena se rechaza de inmediato
+ * con un tiempo estimado de reintento en vez de acumular peticiones.
+ */
+@Service
+public class PasswordHashingService {
+
+    private final ThreadPoolExecutor executor;
+    private final int threads;
+    private final Timer hashTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingService(
+            MeterRegistry meterRegistry,
+            @Value("${auth.hashing.threads:0}") int threads,
+            @Value("${auth.hashing.queue-capacity:32}") int queueCapacity) {
+        // 0 = un hilo por núcleo: BCrypt solo usa CPU
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("auth.hashing.queue.size", executor, e -> e.getQueue().size())
+                .description("Operaciones de contraseña esperando un hilo de hashing")
+                .register(meterRegistry);
+        this.hashTimer = Timer.builder("auth.hashing.duration")
+                .description("Tiempo de cada operación de contraseña en el pool de hashing")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("auth.hashing.rejected")
+                .description("Operaciones de contraseña rechazadas por cola de hashing llena")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ejecuta la operación en el pool de hashing y espera su resultado.
+     * Las excepciones de la operación se propagan tal cual.
+     *
+     * @throws TooManyRequestsException si la cola de hashing está llena
+     */
+    public <T> T execute(Supplier<T> operation) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> hashTimer.record(operation));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new TooManyRequestsException("Demasiados inicios de sesión en curso, intenta de nuevo en unos segundos",
+                    estimateRetryAfterSeconds());
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Operación de contraseña interrumpida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Tiempo aproximado para vaciar lo que ya está en cola con el tiempo medio por operación
+     */
+    private long estimateRetryAfterSeconds() {
+        double meanMillis = hashTimer.count() > 0 ? hashTimer.mean(TimeUnit.MILLISECONDS) : 1000;
+        int pending = executor.getQueue().size() + executor.getActiveCount();
+        return Math.max(1, (long) Math.ceil(pending * meanMillis / threads / 1000));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
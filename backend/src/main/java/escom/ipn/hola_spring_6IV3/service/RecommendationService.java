@@ -0,0 +1,128 @@
+package escom.ipn.hola_spring_6IV3.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import escom.ipn.hola_spring_6IV3.domain.dto.BookPopularityDTO;
+import escom.ipn.hola_spring_6IV3.domain.dto.BookSummaryDTO;
+import escom.ipn.hola_spring_6IV3.domain.dto.RecommendationDTO;
+import escom.ipn.hola_spring_6IV3.repository.FavoriteRepository;
+import escom.ipn.hola_spring_6IV3.repository.FavoriteRepository.FavoriteEdgeView;
+import escom.ipn.hola_spring_6IV3.service.recommendation.ItemSimilarityIndex;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Recomendaciones ítem-ítem ("quienes guardaron este libro también guardaron...").
+ * El índice de co-ocurrencias se construye una vez al arrancar recorriendo la tabla de
+ * favoritos y después se mantiene con cada alta o baja, de modo que responder una
+ * recomendación no consulta la base de datos ni servicios externos.
+ */
+@Service
+@Slf4j
+public class RecommendationService {
+
+    private static final int LOAD_BATCH_SIZE = 5000;
+
+    private final FavoriteRepository favoriteRepository;
+    private final BookPopularityService bookPopularityService;
+    private final BookMetadataService bookMetadataService;
+    private final ItemSimilarityIndex index;
+
+    public RecommendationService(
+            FavoriteRepository favoriteRepository,
+            BookPopularityService bookPopularityService,
+            BookMetadataService bookMetadataService,
+            @Value("${recommendations.neighbors-per-book:50}") int neighborsPerBook,
+            @Value("${recommendations.max-favorites-per-user:500}") int maxFavoritesPerUser) {
+        this.favoriteRepository = favoriteRepository;
+        this.bookPopularityService = bookPopularityService;
+        this.bookMetadataService = bookMetadataService;
+        this.index = new ItemSimilarityIndex(neighborsPerBook, maxFavoritesPerUser);
+    }
+
+    /**
+     * Construye el índice recorriendo los favoritos por lotes
+     */
+    @PostConstruct
+    void load() {
+        long afterId = 0;
+        List<FavoriteEdgeView> batch;
+        do {
+            batch = favoriteRepository.findEdgesAfter(afterId, Limit.of(LOAD_BATCH_SIZE));
+            for (FavoriteEdgeView edge : batch) {
+                index.add(edge.getUserId(), edge.getBookId(), edge.getBookTitle(), edge.getBookCoverId());
+                afterId = edge.getId();
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+        log.info("Índice de recomendaciones construido: {} libros, {} usuarios",
+                index.getBookCount(), index.getUserCount());
+    }
+
+    /**
+     * Registra un favorito añadido
+     */
+    public void recordAdded(Integer userId, String bookId, String bookTitle, String bookCoverId) {
+        index.add(userId, bookId, bookTitle, bookCoverId);
+    }
+
+    /**
+     * Registra un favorito eliminado
+     */
+    public void recordRemoved(Integer userId, String bookId) {
+        index.remove(userId, bookId);
+    }
+
+    /**
+     * Recomendaciones para el usuario. Si sus favoritos no bastan para llenar la lista
+     * (o aún no tiene), se completa con los libros más populares que no tenga guardados.
+     */
+    public List<RecommendationDTO> getRecommendations(Integer userId, int limit) {
+        List<RecommendationDTO> recommendations = new ArrayList<>(index.recommend(userId, limit));
+        if (recommendations.size() < limit) {
+            addPopular(userId, recommendations, limit);
+        }
+
+        // Autores y año desde el catálogo local, con una sola consulta para toda la lista
+        Map<String, BookSummaryDTO> books = bookMetadataService.findSummaries(
+                recommendations.stream().map(RecommendationDTO::getBookId).collect(Collectors.toSet()));
+        for (RecommendationDTO recommendation : recommendations) {
+            BookSummaryDTO book = books.get(recommendation.getBookId());
+            if (book != null) {
+                recommendation.setAuthors(book.getAuthors());
+                recommendation.setFirstPublishYear(book.getFirstPublishYear());
+                if (recommendation.getBookCoverId() == null) {
+                    recommendation.setBookCoverId(book.getCoverId());
+                }
+            }
+        }
+        return recommendations;
+    }
+
+    private void addPopular(Integer userId, List<RecommendationDTO> recommendations, int limit) {
+        Set<String> seen = new HashSet<>();
+        recommendations.forEach(recommendation -> seen.add(recommendation.getBookId()));
+        List<BookPopularityDTO> popular = bookPopularityService.getTopBooks(
+                BookPopularityService.Window.ALL, bookPopularityService.getTopK());
+        for (BookPopularityDTO book : popular) {
+            if (recommendations.size() >= limit) {
+                break;
+            }
+            if (seen.add(book.getBookId()) && !index.contains(userId, book.getBookId())) {
+                recommendations.add(RecommendationDTO.builder()
+                        .bookId(book.getBookId())
+                        .bookTitle(book.getBookTitle())
+                        .bookCoverId(book.getBookCoverId())
+                        .build());
+            }
+        }
+    }
+}
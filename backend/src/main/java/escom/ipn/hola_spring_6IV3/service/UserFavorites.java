@@ -0,0 +1,78 @@
+package escom.ipn.hola_spring_6IV3.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import escom.ipn.hola_spring_6IV3.domain.dto.FavoriteDTO;
+
+/**
+ * Instantánea inmutable de los favoritos de un usuario guardada en caché.
+ * Si el usuario tiene demasiados favoritos solo se conserva el total
+ * (complete = false) y el resto de lecturas van a la base de datos.
+ *
+ * @param favorites Favoritos ordenados por (addedDate DESC, id DESC), o null si no está completa
+ * @param bookIds IDs de los libros en favoritos, o null si no está completa
+ * @param count Número total de favoritos
+ * @param loadedAtMillis Momento en que se cargó desde la base de datos
+ */
+record UserFavorites(List<FavoriteDTO> favorites, Set<String> bookIds, long count, long loadedAtMillis) {
+
+    /**
+     * Orden del listado: más recientes primero y, a igual fecha, mayor ID primero
+     */
+    static final Comparator<FavoriteDTO> NEWEST_FIRST = Comparator
+            .comparing(FavoriteDTO::getAddedDate, Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()))
+            .thenComparing(FavoriteDTO::getId, Comparator.reverseOrder());
+
+    static UserFavorites complete(List<FavoriteDTO> favorites, long nowMillis) {
+        Set<String> bookIds = new HashSet<>();
+        favorites.forEach(favorite -> bookIds.add(favorite.getBookId()));
+        return new UserFavorites(Collections.unmodifiableList(favorites), Collections.unmodifiableSet(bookIds),
+                favorites.size(), nowMillis);
+    }
+
+    static UserFavorites countOnly(long count, long nowMillis) {
+        return new UserFavorites(null, null, count, nowMillis);
+    }
+
+    boolean isComplete() {
+        return favorites != null;
+    }
+
+    /**
+     * Copia con un favorito añadido en su posición según el orden del listado
+     */
+    UserFavorites with(FavoriteDTO favorite) {
+        if (!isComplete()) {
+            return new UserFavorites(null, null, count + 1, loadedAtMillis);
+        }
+        if (bookIds.contains(favorite.getBookId())) {
+            return this;
+        }
+        List<FavoriteDTO> updated = new ArrayList<>(favorites.size() + 1);
+        updated.addAll(favorites);
+        int position = Collections.binarySearch(updated, favorite, NEWEST_FIRST);
+        updated.add(position < 0 ? -position - 1 : position, favorite);
+        return complete(updated, loadedAtMillis);
+    }
+
+    /**
+     * Copia sin el libro indicado
+     */
+    UserFavorites without(String bookId) {
+        if (!isComplete()) {
+            return new UserFavorites(null, null, Math.max(0, count - 1), loadedAtMillis);
+        }
+        if (!bookIds.contains(bookId)) {
+            return this;
+        }
+        List<FavoriteDTO> updated = new ArrayList<>(favorites);
+        updated.removeIf(favorite -> favorite.getBookId().equals(bookId));
+        return complete(updated, loadedAtMillis);
+    }
+}
@@ -1,22 +1,36 @@
 package escom.ipn.hola_spring_6IV3.service;
 
-import java.util.Base64;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.util.UriUtils;
 
 import escom.ipn.hola_spring_6IV3.domain.dto.ProfileImageDTO;
 import escom.ipn.hola_spring_6IV3.domain.dto.UserDTO;
+import escom.ipn.hola_spring_6IV3.domain.dto.UserSummaryDTO;
 import escom.ipn.hola_spring_6IV3.domain.entity.Role;
 import escom.ipn.hola_spring_6IV3.domain.entity.User;
+import escom.ipn.hola_spring_6IV3.domain.entity.UserProfileImage;
+import escom.ipn.hola_spring_6IV3.domain.response.UserPageResponse;
 import escom.ipn.hola_spring_6IV3.exception.RoleNotFoundException;
 import escom.ipn.hola_spring_6IV3.exception.UserNotFoundException;
+import escom.ipn.hola_spring_6IV3.jwt.TokenVersionRegistry;
+import escom.ipn.hola_spring_6IV3.repository.UserProfileImageRepository;
 import escom.ipn.hola_spring_6IV3.repository.UserRepository;
+import escom.ipn.hola_spring_6IV3.service.storage.ImageStore;
+import escom.ipn.hola_spring_6IV3.service.storage.ValidatingImageInputStream;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * Servicio para la gestión de usuarios.
@@ -24,11 +38,16 @@ import lombok.RequiredArgsConstructor;
  */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class UserService {
 
     private final UserRepository userRepository;
-    private final JwtService jwtService;
+    private final UserProfileImageRepository profileImageRepository;
+    private final ImageStore imageStore;
+    private final ImageRenditionService imageRenditionService;
     private final PasswordEncoder passwordEncoder;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final UsernameFilter usernameFilter;
 
     /**
      * Obtiene un usuario por su nombre de usuario
@@ -54,36 +73,55 @@ public class UserService {
     }
 
     /**
-     * Obtiene todos los usuarios como DTOs (transferencia de datos)
+     * Obtiene una página del listado administrativo de usuarios usando paginación
+     * por keyset sobre el id: en lugar de OFFSET se filtra por "id > cursor"
+     * (o "id < cursor" en orden descendente), por lo que cada página cuesta lo mismo
+     * sin importar su posición. Nunca se leen las imágenes, solo su hash para la URL.
+     *
+     * @param cursor Id del último usuario de la página anterior (null para la primera)
+     * @param size Tamaño de la página
+     * @param descending Si true, ordena por id descendente
+     * @param role Filtro opcional por rol
+     * @param country Filtro opcional por país
      */
-    public List<UserDTO> getAllUsersDto() {
-        return userRepository.findAll().stream()
-                .map(this::convertToDto)
+    public UserPageResponse getUsersPage(Integer cursor, int size, boolean descending, String role, String country) {
+        Role roleFilter = role == null || role.isBlank() ? null : Role.fromString(role);
+        String countryFilter = country == null || country.isBlank() ? null : country.trim();
+
+        // Se pide un elemento extra para saber si existe una página siguiente
+        Limit limit = Limit.of(size + 1);
+        List<UserRepository.UserSummaryView> rows = descending
+                ? userRepository.findSummariesBefore(cursor != null ? cursor : Integer.MAX_VALUE, roleFilter, countryFilter, limit)
+                : userRepository.findSummariesAfter(cursor != null ? cursor : 0, roleFilter, countryFilter, limit);
+
+        boolean hasMore = rows.size() > size;
+        List<UserSummaryDTO> users = rows.stream()
+                .limit(size)
+                .map(this::convertToSummary)
                 .collect(Collectors.toList());
+
+        return UserPageResponse.builder()
+                .users(users)
+                .nextCursor(hasMore ? users.get(users.size() - 1).getId() : null)
+                .hasMore(hasMore)
+                .build();
     }
-    
+
     /**
-     * Convierte una entidad User a UserDto
+     * Convierte una fila de la proyección a UserSummaryDTO
      */
-    private UserDTO convertToDto(User user) {
-        UserDTO.UserDTOBuilder builder = UserDTO.builder()
-                .username(user.getUsername())
-                .firstname(user.getFirstname())
-                .lastname(user.getLastname())
-                .country(user.getCountry())
-                .role(user.getRole().getName().replace("ROLE_", ""));
-        
-        // Convertir imagen de perfil a Base64 si existe
-        if (user.getProfileImage() != null && user.getProfileImage().length > 0) {
-            String base64Image = Base64.getEncoder().encodeToString(user.getProfileImage());
-            String imageDataUrl = "data:" + 
-                (user.getProfileImageType() != null ? user.getProfileImageType() : "image/jpeg") + 
-                ";base64," + base64Image;
-            builder.profileImage(imageDataUrl);
-            builder.profileImageType(user.getProfileImageType());
-        }
-        
-        return builder.build();
+    private UserSummaryDTO convertToSummary(UserRepository.UserSummaryView row) {
+        return UserSummaryDTO.builder()
+                .id(row.getId())
+                .username(row.getUsername())
+                .firstname(row.getFirstname())
+                .lastname(row.getLastname())
+                .country(row.getCountry())
+                .role(row.getRole().getSimpleName())
+                .profileImageUrl(row.getImageHash() != null
+                        ? getProfileImageUrl(row.getUsername(), row.getImageHash()) + "&size=48"
+                        : null)
+                .build();
     }
     
     /**
@@ -96,13 +134,24 @@ public class UserService {
     @Transactional
     public User updateUser(User user, UserDTO updatedUserDto) throws RoleNotFoundException {
         try {
+            // Cambios de usuario, rol o contraseña invalidan los tokens emitidos previamente
+            boolean revokeTokens = false;
+            boolean renamed = false;
+
             // Actualizar el nombre de usuario si se proporciona
             if (updatedUserDto.getUsername() != null && !updatedUserDto.getUsername().isEmpty()) {
                 // Verificar que el nuevo nombre de usuario no exista (a menos que sea el mismo)
+                // (el filtro de Bloom evita la consulta si el nombre seguro no existe)
                 if (!user.getUsername().equals(updatedUserDto.getUsername()) && 
+                    usernameFilter.mightExist(updatedUserDto.getUsername()) &&
                     userRepository.findByUsername(updatedUserDto.getUsername()).isPresent()) {
                     throw new RuntimeException("El nombre de usuario ya está en uso");
                 }
+                if (!user.getUsername().equals(updatedUserDto.getUsername())) {
+                    usernameFilter.remove(user.getUsername());
+                    renamed = true;
+                    revokeTokens = true;
+                }
                 user.setUsername(updatedUserDto.getUsername());
             }
             
@@ -120,74 +169,159 @@ public class UserService {
             // Si hay un rol en la solicitud, actualizarlo
             if (updatedUserDto.getRole() != null && !updatedUserDto.getRole().isEmpty()) {
                 Role role = Role.fromString(updatedUserDto.getRole().toUpperCase());
+                revokeTokens |= role != user.getRole();
                 user.setRole(role);
             }
 
             // Solo actualizar la contraseña si explícitamente se proporciona
             if (updatedUserDto.getPassword() != null && !updatedUserDto.getPassword().isEmpty()) {
                 user.setPassword(passwordEncoder.encode(updatedUserDto.getPassword()));
+                revokeTokens = true;
             }
 
-            // Registrar el usuario antes de guardar
-            System.out.println("Usuario a guardar: " + user);
+            if (revokeTokens) {
+                user.setTokenVersion(user.getTokenVersion() + 1);
+            }
+
+            log.debug("Guardando usuario {} (id {}), tokens revocados: {}", user.getUsername(), user.getId(), revokeTokens);
             
-            return userRepository.save(user);
+            User saved = userRepository.save(user);
+            if (renamed) {
+                usernameFilter.add(saved.getUsername());
+            }
+            // La tabla de versiones solo cambia si el cambio llega a confirmarse
+            int userId = saved.getId();
+            int tokenVersion = saved.getTokenVersion();
+            afterCommit(() -> tokenVersionRegistry.update(userId, tokenVersion));
+            return saved;
         } catch (Exception e) {
-            System.err.println("Error al actualizar usuario: " + e.getMessage());
-            e.printStackTrace();
+            log.warn("Error al actualizar usuario {}: {}", user.getId(), e.getMessage());
             throw e;
         }
     }
 
-    /**
-     * Extrae el nombre de usuario de un token JWT
-     */
-    public String extractUsernameFromToken(String token) {
-        return jwtService.extractUsername(token.replace("Bearer ", ""));
-    }
-
-    /**
-     * Extrae toda la información de un token JWT
-     */
-    public Map<String, Object> extractAllInfoFromToken(String token) {
-        return jwtService.extractAllInfo(token.replace("Bearer ", ""));
-    }
-
     /**
      * Elimina un usuario por su nombre de usuario
      */
+    @Transactional
     public void deleteUserByUsername(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UserNotFoundException(username));
+        removeProfileImage(user);
         userRepository.delete(user);
+        // El borrado puede fallar al confirmar (p. ej. por claves foráneas): revocar solo después
+        int userId = user.getId();
+        String deletedUsername = user.getUsername();
+        afterCommit(() -> {
+            tokenVersionRegistry.revoke(userId);
+            usernameFilter.remove(deletedUsername);
+        });
     }    
     
     /**
-     * Actualiza la imagen de perfil de un usuario
+     * Actualiza la imagen de perfil de un usuario.
+     * El contenido se guarda en el ImageStore y en la BD solo queda su hash.
+     * El tipo de contenido se toma de la firma detectada al leer el stream, no del
+     * que declara el cliente.
      */
     @Transactional
-    public void updateProfileImage(String username, byte[] imageBytes, String contentType) {
+    public String updateProfileImage(String username, ValidatingImageInputStream imageStream) throws IOException {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UserNotFoundException(username));
-        user.setProfileImage(imageBytes);
-        user.setProfileImageType(contentType);
-        userRepository.save(user);
+        String hash = imageStore.store(imageStream);
+        String contentType = imageStream.getFormat().getMimeType();
+
+        profileImageRepository.save(UserProfileImage.builder()
+                .userId(user.getId())
+                .imageHash(hash)
+                .contentType(contentType)
+                .build());
+
+        // Las miniaturas se generan en segundo plano, con la fila ya confirmada; mientras
+        // tanto se sirve la original. Las de la imagen anterior las elimina ImageGarbageCollector.
+        afterCommit(() -> imageRenditionService.submit(hash));
+        return hash;
     }
 
     /**
-     * Obtiene la imagen de perfil de un usuario
+     * Elimina la imagen de perfil de un usuario
      */
-    public ProfileImageDTO getProfileImage(String username) {
+    @Transactional
+    public void deleteProfileImage(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UserNotFoundException(username));
-        
-        if (user.getProfileImage() == null) {
+        removeProfileImage(user);
+    }
+
+    /**
+     * Quita la imagen de perfil del usuario. Los archivos (original y miniaturas) no se borran
+     * aquí: ImageGarbageCollector los elimina cuando ninguna fila los referencia, sin competir
+     * con subidas del mismo contenido ni con rollbacks.
+     */
+    private void removeProfileImage(User user) {
+        profileImageRepository.findById(user.getId()).ifPresent(profileImageRepository::delete);
+    }
+
+    /**
+     * Ejecuta la acción cuando se confirme la transacción actual (o de inmediato si no hay)
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Obtiene solo los metadatos (hash y tipo) de la imagen de perfil de un usuario,
+     * sin tocar el almacenamiento. Devuelve null si no tiene imagen.
+     */
+    public ProfileImageDTO getProfileImageInfo(String username) {
+        return profileImageRepository.findByUsername(username)
+                .map(image -> ProfileImageDTO.builder()
+                        .imageHash(image.getImageHash())
+                        .contentType(image.getContentType())
+                        .build())
+                .orElse(null);
+    }
+
+    /**
+     * Obtiene la imagen de perfil de un usuario.
+     * Solo se consulta el hash en la BD; los bytes se leen del ImageStore
+     * en streaming cuando se escribe la respuesta.
+     */
+    public ProfileImageDTO getProfileImage(String username) {
+        ProfileImageDTO info = getProfileImageInfo(username);
+        if (info == null) {
             return null;
         }
-        
-        return ProfileImageDTO.builder()
-                .imageBytes(user.getProfileImage())
-                .contentType(user.getProfileImageType())
-                .build();
+        return imageStore.load(info.getImageHash())
+                .map(resource -> {
+                    info.setImage(resource);
+                    return info;
+                })
+                .orElse(null);
+    }
+
+    /**
+     * Abre la imagen con el hash indicado desde el almacenamiento
+     */
+    public Resource loadProfileImage(String imageHash) {
+        return imageStore.load(imageHash).orElse(null);
+    }
+
+    /**
+     * URL versionada de la imagen de perfil: cambia cada vez que cambia el contenido,
+     * por lo que puede cachearse de forma indefinida
+     */
+    public String getProfileImageUrl(String username, String imageHash) {
+        return "/api/profile-image/" + UriUtils.encodePathSegment(username, StandardCharsets.UTF_8)
+                + "?v=" + imageHash;
     }
 }
@@ -0,0 +1,224 @@
+package escom.ipn.hola_spring_6IV3.service;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import escom.ipn.hola_spring_6IV3.repository.UserRepository;
+import escom.ipn.hola_spring_6IV3.service.filter.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Filtro de Bloom con todos los nombres de usuario, para responder "no existe" sin consultar
+ * la base de datos (inicio de sesión, registro y cambio de nombre). Un resultado positivo
+ * puede ser falso y siempre se confirma con la consulta normal.
+ *
+ * Se construye al arrancar recorriendo la tabla user y se actualiza al registrar o renombrar.
+ * Un filtro de Bloom no permite borrar, así que los nombres eliminados o reemplazados solo se
+ * cuentan y quedan como falsos positivos hasta la siguiente reconstrucción, que se hace en la
+ * revisión periódica si hay nombres obsoletos o se superó la capacidad (el tamaño se ajusta a
+ * la cantidad de usuarios). Mientras no se haya cargado, todo nombre "podría existir".
+ *
+ * El filtro nunca debe negar un nombre que la collation de MySQL (utf8mb4_0900_ai_ci)
+ * consideraría igual a uno existente, así que la clave es más gruesa que la collation:
+ * descomposición de compatibilidad (NFKD), sin marcas, caracteres de control ni de formato
+ * (que la collation ignora), sin espacios finales, en minúsculas y con las letras que la
+ * collation expande o iguala a letras ASCII reemplazadas (ß → ss, æ → ae, ø → o...).
+ * Si después de eso la clave conserva caracteres fuera de ASCII imprimible no se puede
+ * asegurar la equivalencia y la consulta se deja pasar a la base de datos.
+ */
+@Component
+@Slf4j
+public class UsernameFilter {
+
+    // Marcas (acentos), caracteres de control y de formato: la collation los ignora
+    private static final Pattern IGNORABLE = Pattern.compile("[\\p{M}\\p{Cc}\\p{Cf}]+");
+    private static final Pattern PRINTABLE_ASCII = Pattern.compile("[\\x20-\\x7E]*");
+    // Letras sin descomposición que la collation expande o trata como variante de una letra ASCII
+    private static final Map<Character, String> FOLDS = Map.ofEntries(
+            Map.entry('ß', "ss"), Map.entry('æ', "ae"), Map.entry('œ', "oe"), Map.entry('ø', "o"),
+            Map.entry('đ', "d"), Map.entry('ð', "d"), Map.entry('ł', "l"), Map.entry('ħ', "h"),
+            Map.entry('ı', "i"), Map.entry('ŧ', "t"), Map.entry('þ', "th"), Map.entry('ŋ', "n"));
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final double falsePositiveRate;
+    private final long minCapacity;
+    private final Counter absentCounter;
+    private final Counter maybeCounter;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // Nombres eliminados o reemplazados que siguen en el filtro
+    private final AtomicLong stale = new AtomicLong();
+
+    private volatile BloomFilter filter;
+    // Filtro en construcción: recibe también los nombres agregados mientras se recorre la tabla
+    private volatile BloomFilter rebuilding;
+
+    public UsernameFilter(
+            UserRepository userRepository,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${auth.username-filter.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${auth.username-filter.min-capacity:10000}") long minCapacity) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.falsePositiveRate = falsePositiveRate;
+        this.minCapacity = minCapacity;
+
+        Gauge.builder("auth.username-filter.size", this, f -> f.filter != null ? f.filter.insertions() : 0)
+                .description("Nombres de usuario agregados al filtro de Bloom")
+                .register(meterRegistry);
+        Gauge.builder("auth.username-filter.bits", this, f -> f.filter != null ? f.filter.bitSize() : 0)
+                .description("Tamaño en bits del filtro de Bloom de nombres de usuario")
+                .register(meterRegistry);
+        Gauge.builder("auth.username-filter.false-positive-rate", this,
+                        f -> f.filter != null ? f.filter.estimatedFalsePositiveRate() : 1)
+                .description("Probabilidad estimada de falso positivo del filtro de nombres de usuario")
+                .register(meterRegistry);
+        Gauge.builder("auth.username-filter.stale", stale, AtomicLong::get)
+                .description("Nombres eliminados o reemplazados que el filtro sigue aceptando hasta reconstruirse")
+                .register(meterRegistry);
+        this.absentCounter = Counter.builder("auth.username-filter.checks")
+                .tag("result", "absent")
+                .description("Consultas de nombre de usuario respondidas por el filtro sin ir a la base de datos")
+                .register(meterRegistry);
+        this.maybeCounter = Counter.builder("auth.username-filter.checks")
+                .tag("result", "maybe")
+                .description("Consultas de nombre de usuario que el filtro deja pasar a la base de datos")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void load() {
+        rebuild();
+    }
+
+    /**
+     * Indica si el nombre podría existir; false significa que seguro no existe
+     */
+    public boolean mightExist(String username) {
+        BloomFilter current = filter;
+        if (username == null || current == null) {
+            return true;
+        }
+        String key = normalize(username);
+        if (!PRINTABLE_ASCII.matcher(key).matches()) {
+            maybeCounter.increment();
+            return true;
+        }
+        boolean maybe = current.mightContain(key);
+        (maybe ? maybeCounter : absentCounter).increment();
+        return maybe;
+    }
+
+    /**
+     * Agrega un nombre registrado o renombrado. Dentro de una transacción se vuelve a
+     * agregar al confirmarla, por si una reconstrucción empezó antes de que fuera visible.
+     */
+    public void add(String username) {
+        String key = normalize(username);
+        put(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(key);
+                }
+            });
+        }
+    }
+
+    /**
+     * Registra un nombre eliminado o reemplazado: sigue en el filtro hasta la próxima reconstrucción
+     */
+    public void remove(String username) {
+        stale.incrementAndGet();
+    }
+
+    private void put(String key) {
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(key);
+        }
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            next.put(key);
+        }
+    }
+
+    /**
+     * Reconstruye el filtro desde la tabla user si hay nombres obsoletos o se superó la
+     * capacidad: olvida los nombres eliminados y ajusta el tamaño al doble de los usuarios
+     * actuales (mínimo auth.username-filter.min-capacity)
+     */
+    @Scheduled(initialDelayString = "${auth.username-filter.rebuild-check-interval-ms:300000}",
+            fixedDelayString = "${auth.username-filter.rebuild-check-interval-ms:300000}")
+    public void scheduledRebuild() {
+        BloomFilter current = filter;
+        if (current != null && stale.get() == 0 && current.insertions() <= current.expectedInsertions()) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("No se pudo reconstruir el filtro de nombres de usuario: {}", e.getMessage());
+        }
+    }
+
+    private void rebuild() {
+        rebuildLock.lock();
+        try {
+            BloomFilter fresh = new BloomFilter(Math.max(minCapacity, userRepository.count() * 2), falsePositiveRate);
+            rebuilding = fresh;
+            // Lo que se elimine a partir de aquí puede no verse en el recorrido: se cuenta de nuevo
+            stale.set(0);
+            AtomicLong loaded = new AtomicLong();
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<String> usernames = userRepository.streamAllUsernames()) {
+                    usernames.forEach(username -> {
+                        fresh.put(normalize(username));
+                        loaded.incrementAndGet();
+                    });
+                }
+            });
+            filter = fresh;
+            log.info("Filtro de nombres de usuario listo: {} nombres, {} bits, {} funciones hash",
+                    loaded.get(), fresh.bitSize(), fresh.hashFunctions());
+        } finally {
+            rebuilding = null;
+            rebuildLock.unlock();
+        }
+    }
+
+    static String normalize(String username) {
+        String lower = IGNORABLE.matcher(Normalizer.normalize(username, Normalizer.Form.NFKD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        StringBuilder key = new StringBuilder(lower.length());
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            String fold = FOLDS.get(c);
+            if (fold != null) {
+                key.append(fold);
+            } else {
+                key.append(c);
+            }
+        }
+        return key.toString().stripTrailing();
+    }
+}
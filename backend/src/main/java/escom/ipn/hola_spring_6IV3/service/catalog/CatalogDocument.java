@@ -0,0 +1,24 @@
+package escom.ipn.hola_spring_6IV3.service.catalog;
+
+/**
+ * Respuesta JSON del catálogo junto con el instante en que se obtuvo de OpenLibrary.
+ * Un documento sin JSON representa un recurso inexistente (respuesta 404), que solo
+ * se conserva en memoria para no repetir la consulta.
+ *
+ * @param json Cuerpo de la respuesta, o null si el recurso no existe
+ * @param fetchedAtMillis Instante de la descarga en milisegundos
+ */
+public record CatalogDocument(String json, long fetchedAtMillis) {
+
+    public static CatalogDocument notFound(long fetchedAtMillis) {
+        return new CatalogDocument(null, fetchedAtMillis);
+    }
+
+    public boolean isFound() {
+        return json != null;
+    }
+
+    public long ageMillis(long nowMillis) {
+        return nowMillis - fetchedAtMillis;
+    }
+}
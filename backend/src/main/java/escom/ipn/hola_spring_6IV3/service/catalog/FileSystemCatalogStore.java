@@ -0,0 +1,116 @@
+package escom.ipn.hola_spring_6IV3.service.catalog;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Segundo nivel de la caché del catálogo: guarda cada respuesta en disco para que
+ * sobreviva a reinicios. El archivo es {directorio}/{2 primeros caracteres}/{sha256 de la ruta}.json
+ * y su fecha de modificación es la fecha de descarga. Igual que con las imágenes, se escribe
+ * en un temporal y se mueve de forma atómica. Los archivos más viejos que la retención se
+ * eliminan con {@link #pruneOlderThan(long)}.
+ */
+@Component
+@Slf4j
+public class FileSystemCatalogStore {
+
+    private final Path root;
+
+    public FileSystemCatalogStore(@Value("${storage.catalog.dir:data/catalog}") String directory) throws IOException {
+        this.root = Paths.get(directory).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+    }
+
+    /**
+     * Lee la respuesta guardada para la ruta, si existe
+     */
+    public Optional<CatalogDocument> load(String path) {
+        Path file = resolve(path);
+        try {
+            long fetchedAt = Files.getLastModifiedTime(file).toMillis();
+            return Optional.of(new CatalogDocument(Files.readString(file, StandardCharsets.UTF_8), fetchedAt));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            log.warn("No se pudo leer la caché del catálogo para {}: {}", path, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Guarda (o reemplaza) la respuesta de la ruta; los errores solo se registran
+     */
+    public void save(String path, CatalogDocument document) {
+        if (!document.isFound()) {
+            return;
+        }
+        Path target = resolve(path);
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), "catalog-", ".tmp");
+            try {
+                Files.writeString(temp, document.json(), StandardCharsets.UTF_8);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            log.warn("No se pudo guardar la caché del catálogo para {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Elimina las respuestas descargadas hace más de maxAgeMillis (y temporales huérfanos)
+     *
+     * @return archivos eliminados
+     */
+    public int pruneOlderThan(long maxAgeMillis) throws IOException {
+        long cutoff = System.currentTimeMillis() - maxAgeMillis;
+        int deleted = 0;
+        try (Stream<Path> files = Files.find(root, 2, (file, attributes) -> isExpired(attributes, cutoff))) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                try {
+                    if (Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    log.warn("No se pudo eliminar {} de la caché del catálogo: {}", file, e.getMessage());
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private static boolean isExpired(BasicFileAttributes attributes, long cutoff) {
+        return attributes.isRegularFile() && attributes.lastModifiedTime().toMillis() < cutoff;
+    }
+
+    /**
+     * Las rutas se convierten en su hash, así ninguna puede salir del directorio
+     */
+    private Path resolve(String path) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            String hash = HexFormat.of().formatHex(sha256.digest(path.getBytes(StandardCharsets.UTF_8)));
+            return root.resolve(hash.substring(0, 2)).resolve(hash + ".json");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
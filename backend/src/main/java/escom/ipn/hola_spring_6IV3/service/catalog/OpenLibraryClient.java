@@ -0,0 +1,90 @@
+package escom.ipn.hola_spring_6IV3.service.catalog;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import escom.ipn.hola_spring_6IV3.exception.CatalogNotFoundException;
+import escom.ipn.hola_spring_6IV3.exception.CatalogUnavailableException;
+
+/**
+ * Cliente HTTP de OpenLibrary.
+ * Un único HttpClient reutiliza las conexiones (keep-alive / HTTP/2) entre peticiones y un
+ * semáforo limita cuántas peticiones hay en curso a la vez, para no saturar el servicio
+ * externo ni acumular hilos esperando respuesta. La URL base es configurable para poder
+ * apuntar a un servidor local en pruebas.
+ */
+@Component
+public class OpenLibraryClient {
+
+    private static final String USER_AGENT = "OpenBook/1.0 (catalog proxy)";
+
+    private final String baseUrl;
+    private final Duration timeout;
+    private final Semaphore permits;
+    private final HttpClient httpClient;
+
+    public OpenLibraryClient(
+            @Value("${catalog.openlibrary.base-url:https://openlibrary.org}") String baseUrl,
+            @Value("${catalog.openlibrary.timeout-ms:10000}") long timeoutMillis,
+            @Value("${catalog.openlibrary.max-concurrent-requests:8}") int maxConcurrentRequests) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.timeout = Duration.ofMillis(timeoutMillis);
+        this.permits = new Semaphore(maxConcurrentRequests);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * Descarga el JSON de una ruta (por ejemplo "/works/OL45804W.json")
+     *
+     * @throws CatalogNotFoundException si OpenLibrary responde 404
+     * @throws CatalogUnavailableException si no hay cupo, se agota el tiempo o responde otro error
+     */
+    public String fetch(String path) {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CatalogUnavailableException("Petición al catálogo interrumpida", e);
+        }
+        if (!acquired) {
+            throw new CatalogUnavailableException("El catálogo tiene demasiadas peticiones en curso");
+        }
+
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(timeout)
+                    .header("Accept", "application/json")
+                    .header("User-Agent", USER_AGENT)
+                    .GET()
+                    .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 404) {
+                throw new CatalogNotFoundException(path);
+            }
+            if (response.statusCode() != 200) {
+                throw new CatalogUnavailableException("El catálogo respondió " + response.statusCode() + " para " + path);
+            }
+            return response.body();
+        } catch (IOException e) {
+            throw new CatalogUnavailableException("No se pudo consultar el catálogo: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CatalogUnavailableException("Petición al catálogo interrumpida", e);
+        } finally {
+            permits.release();
+        }
+    }
+}
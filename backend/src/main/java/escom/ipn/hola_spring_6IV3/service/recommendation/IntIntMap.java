@@ -0,0 +1,131 @@
+package escom.ipn.hola_spring_6IV3.service.recommendation;
+
+import java.util.Arrays;
+
+/**
+ * Mapa int -> int con direccionamiento abierto (sondeo lineal) sobre dos arreglos,
+ * sin objetos por entrada ni boxing. Se usa como vector disperso de co-ocurrencias.
+ * Las llaves deben ser no negativas y una entrada cuyo valor llega a cero se elimina.
+ */
+final class IntIntMap {
+
+    private static final int EMPTY = -1;
+
+    /**
+     * Recibe cada par llave-valor del mapa
+     */
+    @FunctionalInterface
+    interface EntryConsumer {
+        void accept(int key, int value);
+    }
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    IntIntMap() {
+        allocate(8);
+    }
+
+    /**
+     * Suma delta al valor de la llave (creándola si no existe)
+     *
+     * @return el nuevo valor; si es cero la entrada queda eliminada
+     */
+    int add(int key, int delta) {
+        int slot = slotOf(key);
+        if (keys[slot] == key) {
+            int value = values[slot] + delta;
+            if (value == 0) {
+                removeAt(slot);
+            } else {
+                values[slot] = value;
+            }
+            return value;
+        }
+        if (delta == 0) {
+            return 0;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        return delta;
+    }
+
+    int get(int key) {
+        int slot = slotOf(key);
+        return keys[slot] == key ? values[slot] : 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(EntryConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    /**
+     * Posición de la llave, o la primera posición libre de su secuencia de sondeo
+     */
+    private int slotOf(int key) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Elimina por desplazamiento hacia atrás: recorre el grupo contiguo y mueve al hueco
+     * cada entrada cuya posición ideal queda antes de él, así no se necesitan lápidas
+     */
+    private void removeAt(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        values[gap] = 0;
+        size--;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) {
+                int target = slotOf(oldKeys[slot]);
+                keys[target] = oldKeys[slot];
+                values[target] = oldValues[slot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private static int mix(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
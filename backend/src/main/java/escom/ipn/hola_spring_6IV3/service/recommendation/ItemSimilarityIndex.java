@@ -0,0 +1,301 @@
+package escom.ipn.hola_spring_6IV3.service.recommendation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import escom.ipn.hola_spring_6IV3.domain.dto.RecommendationDTO;
+
+/**
+ * Índice de similitud ítem-ítem construido con las co-ocurrencias de los favoritos.
+ * Cada libro recibe un índice int denso y por libro se guarda un vector disperso con
+ * cuántos usuarios lo tienen en favoritos junto con cada otro libro. La similitud es el
+ * coseno entre vectores binarios usuario-libro: co(i, j) / sqrt(n(i) * n(j)).
+ *
+ * Las altas y bajas solo actualizan las filas afectadas e invalidan sus listas de vecinos,
+ * que se recalculan (y se conservan) al consultarse. Los usuarios con más favoritos que el
+ * límite no aportan co-ocurrencias, porque sus pares crecen de forma cuadrática, pero
+ * siguen recibiendo recomendaciones.
+ */
+public class ItemSimilarityIndex {
+
+    private static final int[] NO_ITEMS = new int[0];
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int neighborsPerItem;
+    private final int maxFavoritesPerUser;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> itemsByBookId = new HashMap<>();
+    private final Map<Integer, int[]> itemsByUser = new HashMap<>();
+    private String[] bookIds = new String[INITIAL_CAPACITY];
+    private String[] titles = new String[INITIAL_CAPACITY];
+    private String[] coverIds = new String[INITIAL_CAPACITY];
+    private int[] userCounts = new int[INITIAL_CAPACITY];
+    private IntIntMap[] cooccurrences = new IntIntMap[INITIAL_CAPACITY];
+    private Neighbors[] neighbors = new Neighbors[INITIAL_CAPACITY];
+    private int itemCount;
+
+    public ItemSimilarityIndex(int neighborsPerItem, int maxFavoritesPerUser) {
+        this.neighborsPerItem = neighborsPerItem;
+        this.maxFavoritesPerUser = maxFavoritesPerUser;
+    }
+
+    /**
+     * Registra que el usuario añadió el libro a favoritos
+     *
+     * @return false si ya estaba registrado
+     */
+    public boolean add(int userId, String bookId, String bookTitle, String bookCoverId) {
+        lock.writeLock().lock();
+        try {
+            int item = itemOf(bookId);
+            if (bookTitle != null) {
+                titles[item] = bookTitle;
+            }
+            if (bookCoverId != null) {
+                coverIds[item] = bookCoverId;
+            }
+
+            int[] items = itemsByUser.getOrDefault(userId, NO_ITEMS);
+            int position = Arrays.binarySearch(items, item);
+            if (position >= 0) {
+                return false;
+            }
+            int[] updated = insertAt(items, -position - 1, item);
+            itemsByUser.put(userId, updated);
+
+            if (updated.length <= maxFavoritesPerUser) {
+                link(item, items, 1);
+            } else if (items.length == maxFavoritesPerUser) {
+                // El usuario acaba de superar el límite: se retiran sus co-ocurrencias
+                contribute(items, -1);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Registra que el usuario quitó el libro de favoritos
+     *
+     * @return false si no estaba registrado
+     */
+    public boolean remove(int userId, String bookId) {
+        lock.writeLock().lock();
+        try {
+            Integer item = itemsByBookId.get(bookId);
+            int[] items = itemsByUser.get(userId);
+            if (item == null || items == null) {
+                return false;
+            }
+            int position = Arrays.binarySearch(items, item);
+            if (position < 0) {
+                return false;
+            }
+            int[] updated = removeAt(items, position);
+            if (updated.length == 0) {
+                itemsByUser.remove(userId);
+            } else {
+                itemsByUser.put(userId, updated);
+            }
+
+            if (items.length <= maxFavoritesPerUser) {
+                link(item, updated, -1);
+            } else if (updated.length == maxFavoritesPerUser) {
+                // El usuario vuelve a quedar dentro del límite: sus co-ocurrencias cuentan de nuevo
+                contribute(updated, 1);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indica si el libro está registrado en los favoritos del usuario
+     */
+    public boolean contains(int userId, String bookId) {
+        lock.readLock().lock();
+        try {
+            Integer item = itemsByBookId.get(bookId);
+            int[] items = itemsByUser.get(userId);
+            return item != null && items != null && Arrays.binarySearch(items, item) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recomienda libros sumando la similitud de los vecinos de cada favorito del usuario,
+     * sin incluir los libros que ya tiene en favoritos
+     */
+    public List<RecommendationDTO> recommend(int userId, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] items = itemsByUser.get(userId);
+            if (items == null || limit <= 0) {
+                return List.of();
+            }
+
+            ScoreAccumulator accumulator = new ScoreAccumulator(Math.min(items.length * neighborsPerItem, 1 << 16));
+            for (int item : items) {
+                Neighbors list = neighborsOf(item);
+                for (int k = 0; k < list.items().length; k++) {
+                    int candidate = list.items()[k];
+                    if (Arrays.binarySearch(items, candidate) < 0) {
+                        accumulator.add(candidate, list.similarities()[k], item);
+                    }
+                }
+            }
+
+            TopK top = new TopK(limit);
+            accumulator.offerTo(top);
+            int[] ranked = new int[top.size()];
+            double[] scores = new double[top.size()];
+            top.drainDescending(ranked, scores);
+
+            List<RecommendationDTO> recommendations = new ArrayList<>(ranked.length);
+            for (int k = 0; k < ranked.length; k++) {
+                int source = accumulator.sourceOf(ranked[k]);
+                recommendations.add(RecommendationDTO.builder()
+                        .bookId(bookIds[ranked[k]])
+                        .bookTitle(titles[ranked[k]])
+                        .bookCoverId(coverIds[ranked[k]])
+                        .score(scores[k])
+                        .becauseBookId(bookIds[source])
+                        .becauseBookTitle(titles[source])
+                        .build());
+            }
+            return recommendations;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getBookCount() {
+        lock.readLock().lock();
+        try {
+            return itemCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getUserCount() {
+        lock.readLock().lock();
+        try {
+            return itemsByUser.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Suma (o resta) las co-ocurrencias del libro con los demás favoritos del usuario
+     */
+    private void link(int item, int[] others, int delta) {
+        userCounts[item] += delta;
+        for (int other : others) {
+            cooccurrences[item].add(other, delta);
+            cooccurrences[other].add(item, delta);
+            neighbors[other] = null;
+        }
+        invalidateAround(item);
+    }
+
+    /**
+     * Suma (o resta) todas las co-ocurrencias de un conjunto de favoritos
+     */
+    private void contribute(int[] items, int delta) {
+        for (int i = 0; i < items.length; i++) {
+            userCounts[items[i]] += delta;
+            for (int j = i + 1; j < items.length; j++) {
+                cooccurrences[items[i]].add(items[j], delta);
+                cooccurrences[items[j]].add(items[i], delta);
+            }
+        }
+        for (int item : items) {
+            invalidateAround(item);
+        }
+    }
+
+    /**
+     * Cambió n(item): cambian sus similitudes con todos los libros de su fila
+     */
+    private void invalidateAround(int item) {
+        neighbors[item] = null;
+        cooccurrences[item].forEach((other, count) -> neighbors[other] = null);
+    }
+
+    /**
+     * Lista de vecinos del libro; se calcula bajo el candado de lectura la primera vez que
+     * se pide y se conserva hasta que una escritura la invalide. Dos lectores pueden calcularla
+     * a la vez, pero ambos obtienen el mismo resultado inmutable.
+     */
+    private Neighbors neighborsOf(int item) {
+        Neighbors cached = neighbors[item];
+        if (cached == null) {
+            cached = computeNeighbors(item);
+            neighbors[item] = cached;
+        }
+        return cached;
+    }
+
+    private Neighbors computeNeighbors(int item) {
+        TopK top = new TopK(neighborsPerItem);
+        double itemUsers = userCounts[item];
+        cooccurrences[item].forEach((other, count) ->
+                top.offer(other, count / Math.sqrt(itemUsers * userCounts[other])));
+        int[] items = new int[top.size()];
+        double[] similarities = new double[top.size()];
+        top.drainDescending(items, similarities);
+        return new Neighbors(items, similarities);
+    }
+
+    private int itemOf(String bookId) {
+        Integer existing = itemsByBookId.get(bookId);
+        if (existing != null) {
+            return existing;
+        }
+        if (itemCount == bookIds.length) {
+            int capacity = bookIds.length * 2;
+            bookIds = Arrays.copyOf(bookIds, capacity);
+            titles = Arrays.copyOf(titles, capacity);
+            coverIds = Arrays.copyOf(coverIds, capacity);
+            userCounts = Arrays.copyOf(userCounts, capacity);
+            cooccurrences = Arrays.copyOf(cooccurrences, capacity);
+            neighbors = Arrays.copyOf(neighbors, capacity);
+        }
+        int item = itemCount++;
+        bookIds[item] = bookId;
+        cooccurrences[item] = new IntIntMap();
+        itemsByBookId.put(bookId, item);
+        return item;
+    }
+
+    private static int[] insertAt(int[] items, int position, int item) {
+        int[] updated = new int[items.length + 1];
+        System.arraycopy(items, 0, updated, 0, position);
+        updated[position] = item;
+        System.arraycopy(items, position, updated, position + 1, items.length - position);
+        return updated;
+    }
+
+    private static int[] removeAt(int[] items, int position) {
+        int[] updated = new int[items.length - 1];
+        System.arraycopy(items, 0, updated, 0, position);
+        System.arraycopy(items, position + 1, updated, position, items.length - position - 1);
+        return updated;
+    }
+
+    /**
+     * Vecinos más similares de un libro, en orden descendente de similitud
+     */
+    private record Neighbors(int[] items, double[] similarities) {
+    }
+}
@@ -0,0 +1,104 @@
+package escom.ipn.hola_spring_6IV3.service.recommendation;
+
+import java.util.Arrays;
+
+/**
+ * Acumula la puntuación de cada libro candidato durante una recomendación.
+ * Además de la suma guarda qué favorito aportó más a cada candidato, para explicar
+ * la recomendación ("porque te gustó ..."). Tabla hash abierta sobre arreglos primitivos.
+ */
+final class ScoreAccumulator {
+
+    private static final int EMPTY = -1;
+
+    private int[] candidates;
+    private double[] scores;
+    private double[] bestContributions;
+    private int[] sources;
+    private int mask;
+    private int size;
+
+    ScoreAccumulator(int expected) {
+        int capacity = 16;
+        while (capacity < expected * 2) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Suma la aportación de un favorito (source) a la puntuación del candidato
+     */
+    void add(int candidate, double contribution, int source) {
+        int slot = slotOf(candidate);
+        if (candidates[slot] == EMPTY) {
+            candidates[slot] = candidate;
+            sources[slot] = source;
+            bestContributions[slot] = contribution;
+            scores[slot] = contribution;
+            if (++size * 2 > candidates.length) {
+                rehash(candidates.length * 2);
+            }
+            return;
+        }
+        scores[slot] += contribution;
+        if (contribution > bestContributions[slot]) {
+            bestContributions[slot] = contribution;
+            sources[slot] = source;
+        }
+    }
+
+    /**
+     * Ofrece todos los candidatos acumulados al selector de los K mejores
+     */
+    void offerTo(TopK top) {
+        for (int slot = 0; slot < candidates.length; slot++) {
+            if (candidates[slot] != EMPTY) {
+                top.offer(candidates[slot], scores[slot]);
+            }
+        }
+    }
+
+    /**
+     * Favorito que más aportó al candidato, o -1 si no se acumuló
+     */
+    int sourceOf(int candidate) {
+        int slot = slotOf(candidate);
+        return candidates[slot] == candidate ? sources[slot] : EMPTY;
+    }
+
+    private int slotOf(int candidate) {
+        int hash = candidate * 0x9E3779B9;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (candidates[slot] != EMPTY && candidates[slot] != candidate) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldCandidates = candidates;
+        double[] oldScores = scores;
+        double[] oldBest = bestContributions;
+        int[] oldSources = sources;
+        allocate(capacity);
+        for (int slot = 0; slot < oldCandidates.length; slot++) {
+            if (oldCandidates[slot] != EMPTY) {
+                int target = slotOf(oldCandidates[slot]);
+                candidates[target] = oldCandidates[slot];
+                scores[target] = oldScores[slot];
+                bestContributions[target] = oldBest[slot];
+                sources[target] = oldSources[slot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        candidates = new int[capacity];
+        Arrays.fill(candidates, EMPTY);
+        scores = new double[capacity];
+        bestContributions = new double[capacity];
+        sources = new int[capacity];
+        mask = capacity - 1;
+    }
+}
@@ -0,0 +1,87 @@
+package escom.ipn.hola_spring_6IV3.service.recommendation;
+
+/**
+ * Selección de los K elementos con mayor puntuación mediante un min-heap de tamaño K
+ * sobre arreglos primitivos: O(n log K) sin crear objetos por candidato.
+ */
+final class TopK {
+
+    private final int[] ids;
+    private final double[] scores;
+    private int size;
+
+    TopK(int k) {
+        ids = new int[Math.max(0, k)];
+        scores = new double[Math.max(0, k)];
+    }
+
+    void offer(int id, double score) {
+        if (size < ids.length) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (size > 0 && score > scores[0]) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Vacía el heap dejando los elementos en orden descendente de puntuación
+     */
+    void drainDescending(int[] outIds, double[] outScores) {
+        while (size > 0) {
+            int last = size - 1;
+            outIds[last] = ids[0];
+            outScores[last] = scores[0];
+            ids[0] = ids[last];
+            scores[0] = scores[last];
+            size = last;
+            siftDown(0);
+        }
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (scores[parent] <= scores[index]) {
+                return;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && scores[left] < scores[smallest]) {
+                smallest = left;
+            }
+            if (right < size && scores[right] < scores[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
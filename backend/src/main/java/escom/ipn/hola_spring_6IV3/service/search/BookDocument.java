@@ -0,0 +1,21 @@
+package escom.ipn.hola_spring_6IV3.service.search;
+
+import java.util.List;
+
+/**
+ * Libro tal como se indexa para la búsqueda. Las materias solo se usan como términos;
+ * los resultados devuelven título, portada, autores y año.
+ */
+public record BookDocument(
+        String bookId,
+        String title,
+        String coverId,
+        List<String> authors,
+        Integer firstPublishYear,
+        List<String> subjects) {
+
+    public BookDocument {
+        authors = authors == null ? List.of() : authors.stream().filter(a -> a != null && !a.isBlank()).toList();
+        subjects = subjects == null ? List.of() : subjects.stream().filter(s -> s != null && !s.isBlank()).toList();
+    }
+}
@@ -0,0 +1,471 @@
+package escom.ipn.hola_spring_6IV3.service.search;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import escom.ipn.hola_spring_6IV3.domain.dto.BookSummaryDTO;
+
+/**
+ * Índice invertido en memoria sobre título, autores y materias de los libros conocidos.
+ * Los términos se normalizan (minúsculas, sin acentos) y se guardan en un TreeMap, de modo
+ * que el último término de la consulta se busca como prefijo para el autocompletado y los
+ * anteriores como palabras completas. Todos los términos deben aparecer (AND); la puntuación
+ * suma el peso del mejor campo de cada término (título > autor > materia).
+ *
+ * Cada libro recibe un ID int denso; volver a indexarlo reemplaza sus términos. El contenido
+ * completo (documentos y listas de términos) se puede escribir y leer tal cual para no
+ * reconstruir el índice al arrancar.
+ */
+public class BookSearchIndex {
+
+    static final byte TITLE = 1;
+    static final byte AUTHOR = 2;
+    static final byte SUBJECT = 4;
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final int AUTHOR_WEIGHT = 2;
+    private static final int SUBJECT_WEIGHT = 1;
+    private static final int EXACT_BONUS = 1;
+    private static final int MAX_TERM_LENGTH = 40;
+    private static final int MAX_TEXT_LENGTH = 512;
+    private static final int MAX_PREFIX_TERMS = 256;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final String[] NO_STRINGS = new String[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+    private final Map<String, Integer> docsByBookId = new HashMap<>();
+    private String[] bookIds;
+    private String[] titles;
+    private String[] coverIds;
+    private int[] years;
+    private String[][] authors;
+    private String[][] docTerms;
+    private byte[][] docFields;
+    private int docCount;
+
+    public BookSearchIndex() {
+        reset(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Indexa el libro, reemplazando lo que hubiera para el mismo ID
+     */
+    public void put(BookDocument document) {
+        lock.writeLock().lock();
+        try {
+            store(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexa el libro solo si aún no está en el índice
+     *
+     * @return true si se agregó
+     */
+    public boolean putIfAbsent(BookDocument document) {
+        lock.writeLock().lock();
+        try {
+            if (docsByBookId.containsKey(document.bookId())) {
+                return false;
+            }
+            store(document);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(String bookId) {
+        lock.readLock().lock();
+        try {
+            return docsByBookId.containsKey(bookId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Libros que contienen todos los términos de la consulta, el último como prefijo
+     */
+    public List<BookSummaryDTO> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        String prefix = terms.remove(terms.size() - 1);
+
+        lock.readLock().lock();
+        try {
+            PriorityQueue<int[]> top = new PriorityQueue<>(limit + 1, worstFirst());
+            if (terms.isEmpty()) {
+                collectPrefixMatches(prefix, top, limit);
+            } else {
+                collectAllTermMatches(terms, prefix, top, limit);
+            }
+
+            BookSummaryDTO[] results = new BookSummaryDTO[top.size()];
+            for (int i = results.length - 1; i >= 0; i--) {
+                results[i] = summary(top.poll()[0]);
+            }
+            return Arrays.asList(results);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Escribe documentos y listas de términos en el formato que lee {@link #readFrom}
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(docCount);
+            for (int doc = 0; doc < docCount; doc++) {
+                out.writeUTF(bookIds[doc]);
+                writeNullable(out, titles[doc]);
+                writeNullable(out, coverIds[doc]);
+                out.writeInt(years[doc]);
+                out.writeInt(authors[doc].length);
+                for (String author : authors[doc]) {
+                    out.writeUTF(author);
+                }
+            }
+            out.writeInt(postings.size());
+            for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+                Postings list = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeInt(list.size());
+                for (int i = 0; i < list.size(); i++) {
+                    out.writeInt(list.doc(i));
+                }
+                for (int i = 0; i < list.size(); i++) {
+                    out.writeByte(list.fields(i));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reemplaza el contenido del índice con lo escrito por {@link #writeTo}.
+     * Si los datos están incompletos o son inválidos el índice queda vacío.
+     */
+    public void readFrom(DataInput in) throws IOException {
+        lock.writeLock().lock();
+        try {
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("Número de documentos inválido: " + count);
+            }
+            reset(Math.max(INITIAL_CAPACITY, count));
+            for (int doc = 0; doc < count; doc++) {
+                bookIds[doc] = in.readUTF();
+                titles[doc] = readNullable(in);
+                coverIds[doc] = readNullable(in);
+                years[doc] = in.readInt();
+                String[] names = new String[in.readInt()];
+                for (int i = 0; i < names.length; i++) {
+                    names[i] = in.readUTF();
+                }
+                authors[doc] = names;
+                docsByBookId.put(bookIds[doc], doc);
+            }
+            docCount = count;
+
+            int[] termsPerDoc = new int[count];
+            int termCount = in.readInt();
+            for (int t = 0; t < termCount; t++) {
+                String term = in.readUTF();
+                int[] docs = new int[in.readInt()];
+                byte[] fields = new byte[docs.length];
+                for (int i = 0; i < docs.length; i++) {
+                    docs[i] = in.readInt();
+                    if (docs[i] < 0 || docs[i] >= count || (i > 0 && docs[i] <= docs[i - 1])) {
+                        throw new IOException("Lista de documentos inválida para " + term);
+                    }
+                    termsPerDoc[docs[i]]++;
+                }
+                in.readFully(fields);
+                postings.put(term, Postings.of(docs, fields));
+            }
+
+            // Los términos de cada documento (para reindexarlo) se derivan de las listas
+            for (int doc = 0; doc < count; doc++) {
+                docTerms[doc] = new String[termsPerDoc[doc]];
+                docFields[doc] = new byte[termsPerDoc[doc]];
+            }
+            int[] filled = new int[count];
+            for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+                Postings list = entry.getValue();
+                for (int i = 0; i < list.size(); i++) {
+                    int doc = list.doc(i);
+                    docTerms[doc][filled[doc]] = entry.getKey();
+                    docFields[doc][filled[doc]++] = list.fields(i);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            reset(INITIAL_CAPACITY);
+            throw e;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Separa el texto en términos en minúsculas y sin acentos
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> terms = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean partOfTerm = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (partOfTerm && start < 0) {
+                start = i;
+            } else if (!partOfTerm && start >= 0) {
+                terms.add(normalized.substring(start, Math.min(i, start + MAX_TERM_LENGTH)));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    private void store(BookDocument document) {
+        Integer existing = docsByBookId.get(document.bookId());
+        int doc;
+        if (existing == null) {
+            doc = docCount++;
+            ensureCapacity(doc + 1);
+            docsByBookId.put(document.bookId(), doc);
+        } else {
+            doc = existing;
+            unlinkTerms(doc);
+        }
+
+        bookIds[doc] = document.bookId();
+        titles[doc] = truncate(document.title());
+        coverIds[doc] = document.coverId();
+        years[doc] = document.firstPublishYear() == null ? 0 : document.firstPublishYear();
+        authors[doc] = document.authors().stream().map(BookSearchIndex::truncate).toArray(String[]::new);
+
+        Map<String, Byte> fieldsByTerm = new LinkedHashMap<>();
+        addTerms(fieldsByTerm, titles[doc], TITLE);
+        for (String author : authors[doc]) {
+            addTerms(fieldsByTerm, author, AUTHOR);
+        }
+        for (String subject : document.subjects()) {
+            addTerms(fieldsByTerm, subject, SUBJECT);
+        }
+
+        String[] terms = new String[fieldsByTerm.size()];
+        byte[] fields = new byte[terms.length];
+        int i = 0;
+        for (Map.Entry<String, Byte> entry : fieldsByTerm.entrySet()) {
+            terms[i] = entry.getKey();
+            fields[i] = entry.getValue();
+            postings.computeIfAbsent(terms[i], term -> new Postings()).put(doc, fields[i]);
+            i++;
+        }
+        docTerms[doc] = terms;
+        docFields[doc] = fields;
+    }
+
+    private void unlinkTerms(int doc) {
+        for (String term : docTerms[doc]) {
+            Postings list = postings.get(term);
+            list.remove(doc);
+            if (list.size() == 0) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static void addTerms(Map<String, Byte> fieldsByTerm, String text, byte field) {
+        for (String term : tokenize(text)) {
+            fieldsByTerm.merge(term, field, (a, b) -> (byte) (a | b));
+        }
+    }
+
+    /**
+     * Consulta de un solo término: unión de las listas de los términos con ese prefijo
+     */
+    private void collectPrefixMatches(String prefix, PriorityQueue<int[]> top, int limit) {
+        Map<Integer, Integer> scores = new HashMap<>();
+        int expanded = 0;
+        for (Map.Entry<String, Postings> entry
+                : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, true).entrySet()) {
+            if (++expanded > MAX_PREFIX_TERMS) {
+                break;
+            }
+            int bonus = entry.getKey().equals(prefix) ? EXACT_BONUS : 0;
+            Postings list = entry.getValue();
+            for (int i = 0; i < list.size(); i++) {
+                scores.merge(list.doc(i), weight(list.fields(i)) + bonus, Math::max);
+            }
+        }
+        scores.forEach((doc, score) -> offer(top, doc, score, limit));
+    }
+
+    /**
+     * Varios términos: se recorre la lista más corta y se comprueba el resto en cada candidato
+     */
+    private void collectAllTermMatches(List<String> terms, String prefix, PriorityQueue<int[]> top, int limit) {
+        Postings[] lists = new Postings[terms.size()];
+        for (int t = 0; t < lists.length; t++) {
+            lists[t] = postings.get(terms.get(t));
+            if (lists[t] == null) {
+                return;
+            }
+        }
+        Arrays.sort(lists, Comparator.comparingInt(Postings::size));
+
+        Postings shortest = lists[0];
+        candidates:
+        for (int i = 0; i < shortest.size(); i++) {
+            int doc = shortest.doc(i);
+            int score = weight(shortest.fields(i));
+            for (int t = 1; t < lists.length; t++) {
+                byte fields = lists[t].fieldsOf(doc);
+                if (fields == 0) {
+                    continue candidates;
+                }
+                score += weight(fields);
+            }
+            int prefixScore = prefixScore(doc, prefix);
+            if (prefixScore > 0) {
+                offer(top, doc, score + prefixScore, limit);
+            }
+        }
+    }
+
+    private int prefixScore(int doc, String prefix) {
+        int best = 0;
+        String[] terms = docTerms[doc];
+        for (int i = 0; i < terms.length; i++) {
+            if (terms[i].startsWith(prefix)) {
+                int bonus = terms[i].length() == prefix.length() ? EXACT_BONUS : 0;
+                best = Math.max(best, weight(docFields[doc][i]) + bonus);
+            }
+        }
+        return best;
+    }
+
+    private static int weight(byte fields) {
+        if ((fields & TITLE) != 0) {
+            return TITLE_WEIGHT;
+        }
+        if ((fields & AUTHOR) != 0) {
+            return AUTHOR_WEIGHT;
+        }
+        return (fields & SUBJECT) != 0 ? SUBJECT_WEIGHT : 0;
+    }
+
+    private void offer(PriorityQueue<int[]> top, int doc, int score, int limit) {
+        top.offer(new int[] { doc, score });
+        if (top.size() > limit) {
+            top.poll();
+        }
+    }
+
+    /**
+     * Orden de la cola de resultados: primero el peor (menor puntuación, título más largo)
+     */
+    private Comparator<int[]> worstFirst() {
+        return Comparator.<int[]>comparingInt(entry -> entry[1])
+                .thenComparing(Comparator.<int[]>comparingInt(entry -> titleLength(entry[0])).reversed())
+                .thenComparing(Comparator.<int[]>comparingInt(entry -> entry[0]).reversed());
+    }
+
+    private int titleLength(int doc) {
+        return titles[doc] == null ? Integer.MAX_VALUE : titles[doc].length();
+    }
+
+    private BookSummaryDTO summary(int doc) {
+        return BookSummaryDTO.builder()
+                .bookId(bookIds[doc])
+                .title(titles[doc])
+                .coverId(coverIds[doc])
+                .authors(List.of(authors[doc]))
+                .firstPublishYear(years[doc] == 0 ? null : years[doc])
+                .build();
+    }
+
+    private void reset(int capacity) {
+        postings.clear();
+        docsByBookId.clear();
+        bookIds = new String[capacity];
+        titles = new String[capacity];
+        coverIds = new String[capacity];
+        years = new int[capacity];
+        authors = new String[capacity][];
+        docTerms = new String[capacity][];
+        docFields = new byte[capacity][];
+        docCount = 0;
+        Arrays.fill(authors, NO_STRINGS);
+        Arrays.fill(docTerms, NO_STRINGS);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= bookIds.length) {
+            return;
+        }
+        int capacity = Math.max(required, bookIds.length * 2);
+        bookIds = Arrays.copyOf(bookIds, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        coverIds = Arrays.copyOf(coverIds, capacity);
+        years = Arrays.copyOf(years, capacity);
+        authors = Arrays.copyOf(authors, capacity);
+        docTerms = Arrays.copyOf(docTerms, capacity);
+        docFields = Arrays.copyOf(docFields, capacity);
+    }
+
+    private static String truncate(String text) {
+        return text == null || text.length() <= MAX_TEXT_LENGTH ? text : text.substring(0, MAX_TEXT_LENGTH);
+    }
+
+    private static void writeNullable(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,89 @@
+package escom.ipn.hola_spring_6IV3.service.search;
+
+import java.util.Arrays;
+
+/**
+ * Lista de documentos de un término, ordenada por ID de documento, con los campos
+ * (título, autor, materia) en los que aparece el término. Los IDs se asignan de forma
+ * creciente, así que casi todas las altas son un simple append.
+ */
+final class Postings {
+
+    private int[] docs;
+    private byte[] fields;
+    private int size;
+
+    Postings() {
+        this(new int[4], new byte[4], 0);
+    }
+
+    private Postings(int[] docs, byte[] fields, int size) {
+        this.docs = docs;
+        this.fields = fields;
+        this.size = size;
+    }
+
+    static Postings of(int[] docs, byte[] fields) {
+        return new Postings(docs, fields, docs.length);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int doc(int index) {
+        return docs[index];
+    }
+
+    byte fields(int index) {
+        return fields[index];
+    }
+
+    /**
+     * Agrega el documento o reemplaza sus campos si ya estaba
+     */
+    void put(int doc, byte mask) {
+        if (size == 0 || docs[size - 1] < doc) {
+            ensureCapacity();
+            docs[size] = doc;
+            fields[size++] = mask;
+            return;
+        }
+        int position = Arrays.binarySearch(docs, 0, size, doc);
+        if (position >= 0) {
+            fields[position] = mask;
+            return;
+        }
+        position = -position - 1;
+        ensureCapacity();
+        System.arraycopy(docs, position, docs, position + 1, size - position);
+        System.arraycopy(fields, position, fields, position + 1, size - position);
+        docs[position] = doc;
+        fields[position] = mask;
+        size++;
+    }
+
+    void remove(int doc) {
+        int position = Arrays.binarySearch(docs, 0, size, doc);
+        if (position >= 0) {
+            System.arraycopy(docs, position + 1, docs, position, size - position - 1);
+            System.arraycopy(fields, position + 1, fields, position, size - position - 1);
+            size--;
+        }
+    }
+
+    /**
+     * Campos del documento que contienen el término, o 0 si no lo contiene
+     */
+    byte fieldsOf(int doc) {
+        int position = Arrays.binarySearch(docs, 0, size, doc);
+        return position >= 0 ? fields[position] : 0;
+    }
+
+    private void ensureCapacity() {
+        if (size == docs.length) {
+            docs = Arrays.copyOf(docs, size * 2);
+            fields = Arrays.copyOf(fields, size * 2);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package escom.ipn.hola_spring_6IV3.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ImageStore con caché de lectura fuera del heap delante del almacenamiento en disco.
+ * Como las imágenes se identifican por su hash, una entrada en caché nunca queda
+ * obsoleta; solo se invalida cuando la imagen se elimina del almacenamiento
+ * (cuando el recolector de imágenes borra una que ya nadie usa).
+ */
+@Component
+@Primary
+@Slf4j
+public class CachingImageStore implements ImageStore {
+
+    private final FileSystemImageStore delegate;
+    private final OffHeapImageCache cache;
+
+    public CachingImageStore(
+            FileSystemImageStore delegate,
+            MeterRegistry meterRegistry,
+            @Value("${storage.images.cache.max-bytes:67108864}") long maxBytes,
+            @Value("${storage.images.cache.max-entry-bytes:2097152}") long maxEntryBytes,
+            @Value("${storage.images.cache.max-retained-bytes:67108864}") long maxRetainedBytes,
+            @Value("${storage.images.cache.expected-entries:10000}") int expectedEntries) {
+        this.delegate = delegate;
+        this.cache = new OffHeapImageCache(maxBytes, maxEntryBytes, maxRetainedBytes, expectedEntries);
+
+        FunctionCounter.builder("profile.image.cache.hits", cache, c -> c.hits.get()).register(meterRegistry);
+        FunctionCounter.builder("profile.image.cache.misses", cache, c -> c.misses.get()).register(meterRegistry);
+        FunctionCounter.builder("profile.image.cache.evictions", cache, c -> c.evictions.get()).register(meterRegistry);
+        FunctionCounter.builder("profile.image.cache.rejections", cache, c -> c.rejections.get())
+                .description("Imágenes no admitidas por ser menos frecuentes que las que desplazarían")
+                .register(meterRegistry);
+        Gauge.builder("profile.image.cache.bytes", cache, OffHeapImageCache::sizeInBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("profile.image.cache.entries", cache, OffHeapImageCache::entryCount).register(meterRegistry);
+        Gauge.builder("profile.image.cache.retained.bytes", cache, OffHeapImageCache::retainedBytes)
+                .description("Memoria de imágenes expulsadas que el recolector aún no ha liberado")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String store(InputStream content) throws IOException {
+        return delegate.store(content);
+    }
+
+    /**
+     * Lectura a través de la caché: en un acierto se sirve el buffer directo; en un
+     * fallo la imagen solo se lee completa si la política de admisión la aceptaría,
+     * en otro caso se sirve en streaming desde el disco.
+     */
+    @Override
+    public Optional<Resource> load(String hash) {
+        ByteBuffer cached = cache.get(hash);
+        if (cached != null) {
+            return Optional.of(new ByteBufferResource(cached, hash));
+        }
+
+        Optional<Resource> resource = delegate.load(hash);
+        if (resource.isEmpty()) {
+            return resource;
+        }
+        try {
+            if (cache.wouldAdmit(hash, resource.get().contentLength())) {
+                ByteBuffer admitted = cache.put(hash, resource.get().getContentAsByteArray());
+                if (admitted != null) {
+                    return Optional.of(new ByteBufferResource(admitted, hash));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("No se pudo cargar la imagen {} en caché: {}", hash, e.getMessage());
+        }
+        return resource;
+    }
+
+    @Override
+    public Stream<String> streamStoredBefore(Instant cutoff) throws IOException {
+        return delegate.streamStoredBefore(cutoff);
+    }
+
+    @Override
+    public boolean deleteIfStoredBefore(String hash, Instant cutoff) throws IOException {
+        boolean deleted = delegate.deleteIfStoredBefore(hash, cutoff);
+        if (deleted) {
+            cache.invalidate(hash);
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,138 @@
+package escom.ipn.hola_spring_6IV3.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Implementación de ImageStore sobre el sistema de archivos.
+ * Las imágenes se guardan como {directorio}/{2 primeros caracteres del hash}/{hash}.
+ * La escritura se hace en un archivo temporal que luego se mueve de forma atómica,
+ * por lo que nunca se sirve una imagen a medio escribir.
+ *
+ * La fecha de modificación del archivo marca la última vez que se guardó su contenido
+ * (se actualiza aunque ya existiera); el recolector de imágenes solo borra archivos sin
+ * guardar desde hace un tiempo. Guardar y borrar un mismo hash se serializan con un
+ * candado por franja de hashes.
+ */
+@Component
+public class FileSystemImageStore implements ImageStore {
+
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path root;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public FileSystemImageStore(@Value("${storage.images.dir:data/images}") String directory) throws IOException {
+        this.root = Paths.get(directory).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public String store(InputStream content) throws IOException {
+        Path temp = Files.createTempFile(root, "upload-", ".tmp");
+        try {
+            MessageDigest sha256 = newDigest();
+            try (InputStream in = new DigestInputStream(content, sha256)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(sha256.digest());
+
+            Path target = resolve(hash);
+            ReentrantLock lock = lockFor(hash);
+            lock.lock();
+            try {
+                if (Files.exists(target)) {
+                    // Contenido ya guardado: se renueva su fecha para que el recolector no lo borre
+                    Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                } else {
+                    Files.createDirectories(target.getParent());
+                    // Si otra petición guardó el mismo contenido en paralelo, el resultado es idéntico
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                lock.unlock();
+            }
+            return hash;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Optional<Resource> load(String hash) {
+        Path path = resolve(hash);
+        return Files.isRegularFile(path) ? Optional.of(new FileSystemResource(path)) : Optional.empty();
+    }
+
+    @Override
+    public Stream<String> streamStoredBefore(Instant cutoff) throws IOException {
+        FileTime limit = FileTime.from(cutoff);
+        return Files.find(root, 2, (path, attributes) -> attributes.isRegularFile()
+                        && attributes.lastModifiedTime().compareTo(limit) < 0
+                        && SHA256_HEX.matcher(path.getFileName().toString()).matches())
+                .map(path -> path.getFileName().toString());
+    }
+
+    @Override
+    public boolean deleteIfStoredBefore(String hash, Instant cutoff) throws IOException {
+        Path path = resolve(hash);
+        ReentrantLock lock = lockFor(hash);
+        lock.lock();
+        try {
+            if (!Files.isRegularFile(path)
+                    || Files.getLastModifiedTime(path).compareTo(FileTime.from(cutoff)) >= 0) {
+                return false;
+            }
+            Files.delete(path);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lockFor(String hash) {
+        return locks[Integer.parseInt(hash, 0, 2, 16) % LOCK_STRIPES];
+    }
+
+    /**
+     * Calcula la ruta de un hash validando su formato para evitar path traversal
+     */
+    private Path resolve(String hash) {
+        if (hash == null || !SHA256_HEX.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Hash de imagen inválido: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package escom.ipn.hola_spring_6IV3.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * Almacenamiento de imágenes direccionado por contenido.
+ * Cada imagen se identifica por el hash SHA-256 de sus bytes, de modo que
+ * subir dos veces el mismo archivo ocupa espacio una sola vez.
+ */
+public interface ImageStore {
+
+    /**
+     * Guarda el contenido del flujo y devuelve su hash SHA-256 en hexadecimal.
+     * El flujo se consume sin cargarlo completo en memoria.
+     */
+    String store(InputStream content) throws IOException;
+
+    /**
+     * Obtiene la imagen con el hash indicado como recurso de solo lectura
+     */
+    Optional<Resource> load(String hash);
+
+    /**
+     * Hashes de las imágenes guardadas por última vez antes del instante indicado.
+     * Guardar de nuevo un contenido que ya existe cuenta como guardarlo otra vez.
+     * El stream debe cerrarse.
+     */
+    Stream<String> streamStoredBefore(Instant cutoff) throws IOException;
+
+    /**
+     * Elimina la imagen solo si no se ha vuelto a guardar desde el instante indicado.
+     * La comprobación y el borrado son atómicos respecto a store, de modo que una subida
+     * en paralelo del mismo contenido nunca pierde su archivo.
+     *
+     * @return true si se eliminó
+     */
+    boolean deleteIfStoredBefore(String hash, Instant cutoff) throws IOException;
+}
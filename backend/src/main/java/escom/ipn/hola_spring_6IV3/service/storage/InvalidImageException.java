@@ -0,0 +1,15 @@
+package escom.ipn.hola_spring_6IV3.service.storage;
+
+import java.io.IOException;
+
+/**
+ * Se lanza mientras se lee una imagen subida cuyo contenido no es un formato
+ * permitido o que excede el tamaño máximo. Extiende IOException para poder
+ * interrumpir la copia en streaming hacia el almacenamiento.
+ */
+public class InvalidImageException extends IOException {
+
+    public InvalidImageException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,159 @@
+package escom.ipn.hola_spring_6IV3.service.storage;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché de imágenes fuera del heap, acotada por el total de bytes.
+ * Los bytes se guardan en ByteBuffers directos para que las imágenes grandes no
+ * presionen al recolector de basura. El reemplazo es LRU, pero una imagen nueva
+ * solo entra si su frecuencia de acceso estimada supera la de las entradas que
+ * tendría que expulsar (política de admisión TinyLFU): así una imagen vista una
+ * sola vez no desplaza a los avatares populares.
+ * <p>
+ * La memoria de un buffer directo solo se libera cuando el recolector reclama el
+ * buffer, y una respuesta en curso puede seguir leyendo uno ya expulsado, así que no
+ * se libera a mano. En su lugar, los bytes expulsados se contabilizan como retenidos
+ * hasta que el buffer se reclama; mientras superen su límite no se admiten imágenes
+ * que obliguen a expulsar más, de modo que la memoria nativa total queda acotada por
+ * maxBytes + maxRetainedBytes.
+ */
+class OffHeapImageCache {
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final long maxRetainedBytes;
+    private final FrequencySketch sketch;
+    private final LinkedHashMap<String, ByteBuffer> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes;
+    private final AtomicLong retainedBytes = new AtomicLong();
+
+    final AtomicLong hits = new AtomicLong();
+    final AtomicLong misses = new AtomicLong();
+    final AtomicLong evictions = new AtomicLong();
+    final AtomicLong rejections = new AtomicLong();
+
+    OffHeapImageCache(long maxBytes, long maxEntryBytes, long maxRetainedBytes, int expectedEntries) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxEntryBytes, maxBytes);
+        this.maxRetainedBytes = maxRetainedBytes;
+        this.sketch = new FrequencySketch(expectedEntries);
+    }
+
+    /**
+     * Obtiene la imagen si está en caché y registra el acceso para la política de admisión
+     */
+    synchronized ByteBuffer get(String key) {
+        sketch.increment(key);
+        ByteBuffer buffer = entries.get(key);
+        if (buffer == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return buffer;
+    }
+
+    /**
+     * Indica si una imagen de este tamaño sería admitida, para no leerla del disco en vano
+     */
+    synchronized boolean wouldAdmit(String key, long size) {
+        return victimsFor(key, size) != null;
+    }
+
+    /**
+     * Intenta guardar la imagen; puede rechazarla según la política de admisión
+     *
+     * @return el buffer almacenado o null si fue rechazada
+     */
+    synchronized ByteBuffer put(String key, byte[] data) {
+        ByteBuffer existing = entries.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        List<String> victims = victimsFor(key, data.length);
+        if (victims == null) {
+            rejections.incrementAndGet();
+            return null;
+        }
+        for (String victim : victims) {
+            remove(victim);
+            evictions.incrementAndGet();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+        buffer.put(data).flip();
+        entries.put(key, buffer);
+        currentBytes += data.length;
+        return buffer;
+    }
+
+    /**
+     * Elimina una imagen de la caché
+     */
+    synchronized void invalidate(String key) {
+        remove(key);
+    }
+
+    synchronized long sizeInBytes() {
+        return currentBytes;
+    }
+
+    synchronized int entryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Bytes de buffers expulsados que el recolector aún no ha reclamado
+     */
+    long retainedBytes() {
+        return retainedBytes.get();
+    }
+
+    /**
+     * Calcula qué entradas (de la menos reciente a la más reciente) habría que expulsar
+     * para admitir al candidato. Devuelve null si alguna de ellas es al menos tan
+     * frecuente como el candidato, si el candidato es demasiado grande o si expulsarlas
+     * dejaría más memoria retenida de la permitida.
+     */
+    private List<String> victimsFor(String key, long size) {
+        if (size > maxEntryBytes) {
+            return null;
+        }
+        List<String> victims = new ArrayList<>();
+        long freed = 0;
+        int candidateFrequency = sketch.frequency(key);
+        Iterator<Map.Entry<String, ByteBuffer>> eldest = entries.entrySet().iterator();
+        while (currentBytes - freed + size > maxBytes) {
+            Map.Entry<String, ByteBuffer> victim = eldest.next();
+            if (sketch.frequency(victim.getKey()) >= candidateFrequency) {
+                return null;
+            }
+            victims.add(victim.getKey());
+            freed += victim.getValue().capacity();
+        }
+        if (freed > 0 && retainedBytes.get() + freed > maxRetainedBytes) {
+            return null;
+        }
+        return victims;
+    }
+
+    private void remove(String key) {
+        ByteBuffer removed = entries.remove(key);
+        if (removed != null) {
+            long capacity = removed.capacity();
+            AtomicLong retained = retainedBytes;
+            currentBytes -= capacity;
+            retained.addAndGet(capacity);
+            CLEANER.register(removed, () -> retained.addAndGet(-capacity));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package escom.ipn.hola_spring_6IV3.service.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * InputStream que valida una imagen mientras se copia al almacenamiento:
+ * reconoce el formato con los primeros bytes que pasan por él y corta la lectura
+ * en cuanto se supera el tamaño máximo, sin cargar el archivo completo en memoria.
+ */
+public class ValidatingImageInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+    private final byte[] header = new byte[ImageFormat.SIGNATURE_LENGTH];
+    private int headerLength;
+    private long totalBytes;
+    private ImageFormat format;
+
+    public ValidatingImageInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b == -1) {
+            onEnd();
+        } else {
+            onData(new byte[] {(byte) b}, 0, 1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+        if (read == -1) {
+            onEnd();
+        } else {
+            onData(buffer, offset, read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        throw new IOException("skip no soportado al validar una imagen");
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Formato reconocido; solo está disponible después de leer el contenido
+     */
+    public ImageFormat getFormat() {
+        return format;
+    }
+
+    private void onData(byte[] buffer, int offset, int length) throws IOException {
+        totalBytes += length;
+        if (totalBytes > maxBytes) {
+            throw new InvalidImageException("El archivo es demasiado grande. Máximo permitido: "
+                    + (maxBytes / (1024 * 1024)) + "MB");
+        }
+        if (format == null && headerLength < header.length) {
+            int copied = Math.min(length, header.length - headerLength);
+            System.arraycopy(buffer, offset, header, headerLength, copied);
+            headerLength += copied;
+            if (headerLength == header.length) {
+                detect();
+            }
+        }
+    }
+
+    private void onEnd() throws IOException {
+        if (format == null) {
+            detect();
+        }
+    }
+
+    private void detect() throws IOException {
+        format = ImageFormat.detect(header, headerLength);
+        if (format == null) {
+            throw new InvalidImageException("El contenido del archivo no es una imagen JPEG, PNG, GIF o WebP válida");
+        }
+    }
+}
@@ -8,9 +8,10 @@ import { checkIfFavorite, toggleFavorite } from '../services/favoriteService.js'
  * Crea un botón de favorito
  * @param {Object} bookData - Datos del libro (bookId, bookTitle, bookCoverId)
  * @param {Function} onToggle - Callback opcional cuando se alterna el favorito
+ * @param {boolean|null} knownState - Estado ya conocido (evita consultar al servidor)
  * @returns {HTMLElement} - Elemento del botón de favorito
  */
-export function createFavoriteButton(bookData, onToggle = null) {
+export function createFavoriteButton(bookData, onToggle = null, knownState = null) {
     const button = document.createElement('button');
     button.className = 'favorite-btn';
     button.setAttribute('data-book-id', bookData.bookId);
@@ -18,10 +19,14 @@ export function createFavoriteButton(bookData, onToggle = null) {
     button.title = 'Añadir a favoritos';
 
     // Estado inicial
-    let isFavorite = false;
+    let isFavorite = knownState === true;
 
-    // Verificar estado inicial
-    updateFavoriteStatus();
+    // Verificar estado inicial (las consultas de varias tarjetas se agrupan en una petición)
+    if (knownState === null) {
+        updateFavoriteStatus();
+    } else {
+        updateButtonAppearance();
+    }
 
     // Event listener
     button.addEventListener('click', async (e) => {
@@ -497,4 +497,18 @@ function renderUserTable(users, table) {
     });
 }
 
-export { renderUserTable, togglePasswordVisibility };
+/**
+ * Añadir filas de usuarios al final de la tabla (para paginación)
+ * @param {Array} users - Array de usuarios de la nueva página
+ * @param {HTMLTableElement} table - Tabla a la que se añaden las filas
+ */
+function appendUserRows(users, table) {
+    if (!table) return;
+    
+    const tbody = table.querySelector('tbody');
+    users.forEach(user => {
+        tbody.appendChild(createUserRow(user));
+    });
+}
+
+export { renderUserTable, appendUserRows, togglePasswordVisibility };
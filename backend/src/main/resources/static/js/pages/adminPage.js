@@ -2,8 +2,8 @@
  * Página de administración - Funcionalidad específica para la página de administración
  */
 
-import { getAllUsers } from '../services/adminService.js';
-import { renderUserTable } from '../components/userTable.js';
+import { getUsersPage } from '../services/adminService.js';
+import { renderUserTable, appendUserRows } from '../components/userTable.js';
 import { showToast } from '../utils/domUtils.js';
 import { redirectIfNotAuthenticated } from '../utils/validationUtils.js';
 import { redirectIfNotAdmin, isUserAdmin, getUserInfoFromToken } from '../utils/authUtils.js';
@@ -13,6 +13,12 @@ import {
     validateAddUserForm 
 } from '../components/modals.js';
 
+// Tamaño de página del listado de usuarios
+const USERS_PAGE_SIZE = 50;
+
+// Estado de la paginación por cursor
+let nextCursor = null;
+
 /**
  * Configurar página de administración de usuarios
  */
@@ -35,6 +41,9 @@ function setupAdminPage() {
     // Cargar la tabla de usuarios
     loadUsersTable();
     
+    // Configurar filtros y botón de "cargar más"
+    setupUsersFilters();
+    
     // Configurar formulario de registro
     setupAddUserForm();
     
@@ -45,7 +54,49 @@ function setupAdminPage() {
 }
 
 /**
- * Cargar tabla de usuarios
+ * Obtener los filtros seleccionados en la página
+ * @returns {Object} - Filtros de rol, país y orden
+ */
+function getUsersFilters() {
+    return {
+        role: document.getElementById('filter-role')?.value || '',
+        country: document.getElementById('filter-country')?.value.trim() || '',
+        sort: document.getElementById('filter-sort')?.value || 'asc'
+    };
+}
+
+/**
+ * Mostrar u ocultar el botón de "cargar más" según haya más páginas
+ * @param {boolean} hasMore - Si hay más resultados
+ */
+function updateLoadMoreButton(hasMore) {
+    const loadMoreBtn = document.getElementById('load-more-users');
+    if (loadMoreBtn) {
+        loadMoreBtn.style.display = hasMore ? 'inline-block' : 'none';
+        loadMoreBtn.disabled = false;
+    }
+}
+
+/**
+ * Configurar filtros y paginación del listado
+ */
+function setupUsersFilters() {
+    const filtersForm = document.getElementById('users-filters');
+    if (filtersForm) {
+        filtersForm.addEventListener('submit', (event) => {
+            event.preventDefault();
+            loadUsersTable();
+        });
+    }
+    
+    const loadMoreBtn = document.getElementById('load-more-users');
+    if (loadMoreBtn) {
+        loadMoreBtn.addEventListener('click', loadMoreUsers);
+    }
+}
+
+/**
+ * Cargar tabla de usuarios (primera página con los filtros actuales)
  */
 function loadUsersTable() {
     const table = document.getElementById('users-table');
@@ -63,12 +114,17 @@ function loadUsersTable() {
     tbody.appendChild(loadingRow);
     loadingRow.appendChild(loadingCell);
     
+    nextCursor = null;
+    updateLoadMoreButton(false);
+    
     // Cargar usuarios
-    getAllUsers()
+    getUsersPage({ size: USERS_PAGE_SIZE, ...getUsersFilters() })
         .then(data => {
             tbody.innerHTML = '';
-            if (data && Array.isArray(data)) {
-                renderUserTable(data, table);
+            if (data && Array.isArray(data.users)) {
+                renderUserTable(data.users, table);
+                nextCursor = data.nextCursor;
+                updateLoadMoreButton(data.hasMore);
             } else {
                 showToast('Error al cargar usuarios: formato de datos incorrecto', 'error');
             }
@@ -88,6 +144,28 @@ function loadUsersTable() {
         });
 }
 
+/**
+ * Cargar la siguiente página de usuarios y añadirla a la tabla
+ */
+function loadMoreUsers() {
+    const table = document.getElementById('users-table');
+    const loadMoreBtn = document.getElementById('load-more-users');
+    if (!table || nextCursor === null) return;
+    
+    if (loadMoreBtn) loadMoreBtn.disabled = true;
+    
+    getUsersPage({ cursor: nextCursor, size: USERS_PAGE_SIZE, ...getUsersFilters() })
+        .then(data => {
+            appendUserRows(data.users || [], table);
+            nextCursor = data.nextCursor;
+            updateLoadMoreButton(data.hasMore);
+        })
+        .catch(error => {
+            showToast(`Error al cargar más usuarios: ${error.message}`, 'error');
+            updateLoadMoreButton(true);
+        });
+}
+
 /**
  * Registrar un nuevo usuario desde el panel de administración
  * @param {Event} event - Evento de submit
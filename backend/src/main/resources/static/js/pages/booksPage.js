@@ -9,14 +9,14 @@ import { renderBookCards } from '../components/bookCard.js';
 import { createRecommendationsSection } from '../components/recommendationsSection.js';
 import { setupGlobalFavoritesListener } from '../utils/favoritesListener.js';
 import { createBooksLoader, showLoader, hideLoader } from '../components/loader.js';
+import { booksService, fetchCatalog } from '../services/booksService.js';
 
-// URLs de la API de OpenLibrary
+// URLs del catálogo (proxy de OpenLibrary en el backend) y de las portadas
 const OPENLIBRARY_API = {
-    SEARCH: 'https://openlibrary.org/search.json',
-    WORK: 'https://openlibrary.org/works/',
+    WORK: '/api/catalog/works/',
     COVER: 'https://covers.openlibrary.org/b/id/',
-    AUTHOR: 'https://openlibrary.org/authors/',
-    SUBJECT: 'https://openlibrary.org/subjects/'
+    AUTHOR: '/api/catalog/authors/',
+    SUBJECT: '/api/catalog/subjects/'
 };
 
 // Imagen de portada por defecto
@@ -38,6 +38,9 @@ function setupHomePage() {
     // Cargar sección de recomendaciones
     loadRecommendationsSection();
     
+    // Cargar los libros más populares
+    loadPopularBooks();
+
     // Cargar libros por categorías
     loadBooksByCategories();
     
@@ -116,15 +119,9 @@ function searchBooks(query) {
     }
     toggleElement(searchResultsContainer, false);
 
-    // Realizar búsqueda
-    fetch(`${OPENLIBRARY_API.SEARCH}?q=${encodeURIComponent(query)}&limit=20`)
-        .then(response => {
-            if (!response.ok) {
-                throw new Error(`Error ${response.status}: ${response.statusText}`);
-            }
-            return response.json();
-        })
-        .then(data => {
+    // Realizar búsqueda (índice local del backend, con OpenLibrary como respaldo)
+    booksService.searchBooks(query, 20)
+        .then(results => {
             if (loadingContainer) {
                 toggleElement(loadingContainer, false);
             }
@@ -132,16 +129,11 @@ function searchBooks(query) {
             searchResultsContainer.classList.remove('hidden');
             searchResultsContainer.style.display = 'block';
 
-            if (data && data.docs && data.docs.length > 0) {
-                const books = data.docs.map(book => ({
-                    id: book.key ? book.key.replace('/works/', '') : null,
-                    title: book.title || 'Título desconocido',
-                    authors: book.author_name ? book.author_name.join(', ') : 'Autor desconocido',
-                    coverId: book.cover_i || null,
-                    coverUrl: book.cover_i
-                        ? `${OPENLIBRARY_API.COVER}${book.cover_i}-M.jpg`
-                        : DEFAULT_COVER,
-                    publishYear: book.first_publish_year || 'Año desconocido'
+            if (results.length > 0) {
+                const books = results.map(book => ({
+                    ...book,
+                    authors: book.authors.join(', '),
+                    publishYear: book.publishYear || 'Año desconocido'
                 }));
 
                 // Usar el componente reutilizable
@@ -233,6 +225,45 @@ function loadBooksByCategories() {
         });
 }
 
+/**
+ * Carga los libros más añadidos a favoritos de la última semana
+ */
+async function loadPopularBooks() {
+    const section = document.getElementById('popular-books');
+    if (!section) {
+        return;
+    }
+
+    try {
+        const popular = await booksService.getPopularBooks('week', 20);
+        if (popular.length === 0) {
+            return;
+        }
+
+        section.innerHTML = `
+            <h2 class="category-title">Más populares de la semana</h2>
+            <div class="books-carousel-container"></div>
+        `;
+        const books = popular.map(book => ({
+            id: book.bookId,
+            title: book.bookTitle || 'Título desconocido',
+            authors: [],
+            coverId: book.bookCoverId,
+            coverUrl: book.bookCoverId
+                ? `${OPENLIBRARY_API.COVER}${book.bookCoverId}-M.jpg`
+                : DEFAULT_COVER
+        }));
+
+        renderBookCards(books, section.querySelector('.books-carousel-container'), {
+            type: 'carousel',
+            showFavoriteButton: true,
+            size: 'medium'
+        });
+    } catch (error) {
+        console.error('Error cargando libros populares:', error);
+    }
+}
+
 /**
  * Obtiene el título legible de una categoría
  */
@@ -254,9 +285,9 @@ function getCategoryTitle(category) {
  * Obtiene libros por categoría desde OpenLibrary
  */
 function fetchBooksByCategory(category) {
-    const url = `${OPENLIBRARY_API.SUBJECT}${category}.json?limit=20`;
+    const url = `${OPENLIBRARY_API.SUBJECT}${category}?limit=20`;
     
-    return fetch(url)
+    return fetchCatalog(url)
         .then(response => {
             if (!response.ok) {
                 throw new Error(`Error ${response.status}: ${response.statusText}`);
@@ -14,43 +14,40 @@ export function setupFavoritesPage() {
     setupSearchFunctionality();
 }
 
+// Cursor de la siguiente página de favoritos (null si no hay más)
+let nextCursor = null;
+
 /**
- * Carga y muestra los favoritos del usuario
+ * Carga y muestra la primera página de favoritos del usuario
  */
 async function loadFavorites() {
     const favoritesContainer = document.getElementById('favorites-container');
     const loadingElement = document.getElementById('favorites-loading');
     const emptyState = document.getElementById('favorites-empty');
-    const favoritesCount = document.getElementById('favorites-count');
+    const loadMoreButton = document.getElementById('load-more-favorites');
     
     try {
         if (loadingElement) loadingElement.style.display = 'block';
         if (emptyState) emptyState.style.display = 'none';
         if (favoritesContainer) favoritesContainer.innerHTML = '';
 
-        const response = await getUserFavorites();
-        const favorites = response.favorites || [];
+        const page = await getUserFavorites();
+        const favorites = page.favorites || [];
 
         if (loadingElement) loadingElement.style.display = 'none';
 
-        // Actualizar contador
-        if (favoritesCount) {
-            favoritesCount.textContent = favorites.length;
-        }
+        // Actualizar contador con el total (no solo los de esta página)
+        setFavoritesCount(page.count);
 
         if (favorites.length === 0) {
             if (emptyState) emptyState.style.display = 'block';
             return;
         }
 
-        // Renderizar favoritos
-        if (favoritesContainer) {
-            favoritesContainer.innerHTML = favorites.map(favorite => 
-                createFavoriteCard(favorite)
-            ).join('');
+        renderFavoritesPage(page);
 
-            // Añadir event listeners después de renderizar
-            addFavoriteCardListeners();
+        if (loadMoreButton) {
+            loadMoreButton.addEventListener('click', loadMoreFavorites);
         }
 
     } catch (error) {
@@ -68,6 +65,52 @@ async function loadFavorites() {
     }
 }
 
+/**
+ * Carga la siguiente página de favoritos a partir del cursor
+ */
+async function loadMoreFavorites() {
+    const loadMoreButton = document.getElementById('load-more-favorites');
+    if (!nextCursor) return;
+
+    try {
+        loadMoreButton.disabled = true;
+        renderFavoritesPage(await getUserFavorites({ cursor: nextCursor }));
+    } catch (error) {
+        console.error('Error al cargar más favoritos:', error);
+    } finally {
+        loadMoreButton.disabled = false;
+    }
+}
+
+/**
+ * Añade las tarjetas de una página al contenedor y actualiza el botón "Cargar más"
+ */
+function renderFavoritesPage(page) {
+    const favoritesContainer = document.getElementById('favorites-container');
+    const loadMoreButton = document.getElementById('load-more-favorites');
+    const favorites = page.favorites || [];
+
+    if (favoritesContainer) {
+        favoritesContainer.insertAdjacentHTML('beforeend', favorites.map(favorite => 
+            createFavoriteCard(favorite)
+        ).join(''));
+
+        // Añadir event listeners a las tarjetas recién renderizadas
+        addFavoriteCardListeners();
+    }
+
+    nextCursor = page.hasMore ? page.nextCursor : null;
+    if (loadMoreButton) {
+        loadMoreButton.style.display = nextCursor ? 'inline-block' : 'none';
+    }
+
+    // Reaplicar el filtro de búsqueda a las nuevas tarjetas
+    const searchInput = document.getElementById('favorites-search');
+    if (searchInput && searchInput.value.trim()) {
+        filterFavorites(searchInput.value.toLowerCase().trim());
+    }
+}
+
 /**
  * Crea el HTML para una tarjeta de favorito
  */
@@ -82,6 +125,12 @@ function createFavoriteCard(favorite) {
         day: 'numeric'
     });
 
+    // Autores y año vienen del catálogo local; pueden faltar si el libro aún no se descarga
+    const details = [
+        favorite.authors && favorite.authors.length ? favorite.authors.join(', ') : null,
+        favorite.firstPublishYear
+    ].filter(Boolean).join(' · ');
+
     return `
         <div class="favorite-card" data-book-id="${favorite.bookId}">
             <div class="favorite-card-image">
@@ -90,6 +139,7 @@ function createFavoriteCard(favorite) {
             </div>
             <div class="favorite-card-content">
                 <h3 class="favorite-card-title">${favorite.bookTitle}</h3>
+                ${details ? `<p class="favorite-card-authors">${details}</p>` : ''}
                 <p class="favorite-card-date">
                     <i class="fas fa-calendar-plus"></i>
                     Añadido el ${addedDate}
@@ -110,7 +160,7 @@ function createFavoriteCard(favorite) {
  */
 function addFavoriteCardListeners() {
     // Añadir botones de favorito a cada tarjeta
-    const favoriteBtnContainers = document.querySelectorAll('.favorite-btn-container');
+    const favoriteBtnContainers = document.querySelectorAll('.favorite-btn-container:empty');
     
     favoriteBtnContainers.forEach(container => {
         const bookId = container.getAttribute('data-book-id');
@@ -137,7 +187,7 @@ function addFavoriteCardListeners() {
                         checkIfEmpty();
                     }, 300);
                 }
-            });
+            }, true);
 
             container.appendChild(favoriteBtn);
         }
@@ -152,13 +202,22 @@ window.viewBookDetails = function(bookId) {
 };
 
 /**
- * Actualiza el contador de favoritos
+ * Muestra el total de favoritos
+ */
+function setFavoritesCount(count) {
+    const favoritesCount = document.getElementById('favorites-count');
+    if (favoritesCount) {
+        favoritesCount.textContent = count;
+    }
+}
+
+/**
+ * Actualiza el contador de favoritos tras quitar uno de la vista
  */
 function updateFavoritesCount() {
-    const remainingCards = document.querySelectorAll('.favorite-card').length;
     const favoritesCount = document.getElementById('favorites-count');
     if (favoritesCount) {
-        favoritesCount.textContent = remainingCards;
+        setFavoritesCount(Math.max(0, (parseInt(favoritesCount.textContent, 10) || 0) - 1));
     }
 }
 
@@ -169,6 +228,12 @@ function checkIfEmpty() {
     const remainingCards = document.querySelectorAll('.favorite-card').length;
     const emptyState = document.getElementById('favorites-empty');
     
+    if (remainingCards === 0 && nextCursor) {
+        // Quedan favoritos en páginas siguientes
+        loadMoreFavorites();
+        return;
+    }
+
     if (remainingCards === 0 && emptyState) {
         emptyState.style.display = 'block';
     }
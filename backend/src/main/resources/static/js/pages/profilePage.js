@@ -84,13 +84,13 @@ async function loadCurrentProfileImage() {
         const payload = JSON.parse(atob(token.split('.')[1]));
         const username = payload.sub;
 
-        const imageData = await getProfileImage(username);
-        if (imageData && imageData.success && imageData.imageData) {
+        const imageData = await getProfileImage(username, 512);
+        if (imageData && imageData.success && imageData.imageUrl) {
             const profileImage = document.getElementById('profile-image');
             const deleteBtn = document.getElementById('delete-image-btn');
             
             if (profileImage) {
-                profileImage.src = imageData.imageData;
+                profileImage.src = imageData.imageUrl;
                 profileImage.classList.remove('default-avatar');
             }
             
@@ -141,6 +141,10 @@ async function handleImageUpload(event) {
         const response = await uploadProfileImage(resizedFile);
         
         if (response.success) {
+            // Reemplazar la previsualización por la URL versionada (cacheable)
+            if (profileImage && response.imageUrl) {
+                profileImage.src = response.imageUrl;
+            }
             showToast('Imagen de perfil actualizada correctamente', 'success');
             toggleElement(deleteBtn, true);
         } else {
@@ -5,11 +5,21 @@
 import { apiGet, apiPut, apiDelete, apiPost } from '../api/api.js';
 
 /**
- * Obtener lista de todos los usuarios
- * @returns {Promise} - Promesa con la lista de usuarios
+ * Obtener una página del listado de usuarios (paginación por cursor)
+ * @param {Object} options - Opciones de la consulta
+ * @param {number|null} options.cursor - nextCursor de la página anterior (null para la primera)
+ * @param {number} options.size - Tamaño de la página
+ * @param {string} options.sort - 'asc' o 'desc' (por id)
+ * @param {string} options.role - Filtro por rol (USER/ADMIN) o vacío
+ * @param {string} options.country - Filtro por país o vacío
+ * @returns {Promise} - Promesa con { users, nextCursor, hasMore }
  */
-function getAllUsers() {
-    return apiGet('/api/admin/all-info');
+function getUsersPage({ cursor = null, size = 50, sort = 'asc', role = '', country = '' } = {}) {
+    const params = new URLSearchParams({ size, sort });
+    if (cursor !== null && cursor !== undefined) params.append('cursor', cursor);
+    if (role) params.append('role', role);
+    if (country) params.append('country', country);
+    return apiGet(`/api/admin/users?${params.toString()}`);
 }
 
 /**
@@ -50,4 +60,4 @@ function registerUserByAdmin(userData) {
 }
 
 // Exportar funciones
-export { getAllUsers, updateUserByAdmin, deleteUserByAdmin, registerUserByAdmin };
+export { getUsersPage, updateUserByAdmin, deleteUserByAdmin, registerUserByAdmin };
@@ -1,15 +1,30 @@
 /**
- * Servicio para obtener información de libros desde OpenLibrary
+ * Servicio para obtener información de libros de OpenLibrary a través del proxy del backend
  */
 
+import { getAuthToken } from '../utils/authUtils.js';
+
+// El backend reenvía las consultas a OpenLibrary y comparte la caché entre usuarios
 const OPENLIBRARY_API = {
-    SEARCH: 'https://openlibrary.org/search.json',
-    WORKS: 'https://openlibrary.org/works/',
-    AUTHORS: 'https://openlibrary.org/authors/',
+    WORKS: '/api/catalog/works/',
+    AUTHORS: '/api/catalog/authors/',
     COVERS: 'https://covers.openlibrary.org/b/id/',
-    SUBJECTS: 'https://openlibrary.org/subjects/'
+    SUBJECTS: '/api/catalog/subjects/'
 };
 
+/**
+ * Consulta el catálogo del backend con el token del usuario
+ * @param {string} url - Ruta bajo /api/catalog
+ * @returns {Promise<Response>}
+ */
+export function fetchCatalog(url) {
+    return fetch(url, {
+        headers: {
+            'Authorization': `Bearer ${getAuthToken()}`
+        }
+    });
+}
+
 /**
  * Servicio de libros
  */
@@ -23,7 +38,7 @@ class BooksService {
     async getBookDetails(bookId) {
         try {
             // Obtener información básica del work
-            const workResponse = await fetch(`${OPENLIBRARY_API.WORKS}${bookId}.json`);
+            const workResponse = await fetchCatalog(`${OPENLIBRARY_API.WORKS}${bookId}`);
             
             if (!workResponse.ok) {
                 throw new Error(`Error fetching work: ${workResponse.status}`);
@@ -37,7 +52,7 @@ class BooksService {
                 workData.authors.forEach(author => {
                     if (author.author && author.author.key) {
                         authorsPromises.push(
-                            fetch(`https://openlibrary.org${author.author.key}.json`)
+                            fetchCatalog(`/api/catalog${author.author.key}`)
                                 .then(response => response.ok ? response.json() : null)
                                 .catch(() => null)
                         );
@@ -89,34 +104,31 @@ class BooksService {
      * @returns {Promise<Array>} - Array de libros
      */
     async searchBooks(query, limit = 20) {
-        try {
-            const response = await fetch(`${OPENLIBRARY_API.SEARCH}?q=${encodeURIComponent(query)}&limit=${limit}`);
-            
-            if (!response.ok) {
-                throw new Error(`Error searching books: ${response.status}`);
+        // El backend busca primero en su índice local y solo consulta OpenLibrary si no hay resultados
+        const params = new URLSearchParams({ q: query, limit });
+        const response = await fetch(`/api/books/search?${params}`, {
+            headers: {
+                'Authorization': `Bearer ${getAuthToken()}`
             }
-            
-            const data = await response.json();
-            
-            if (data.docs && Array.isArray(data.docs)) {
-                return data.docs.map(book => ({
-                    id: book.key ? book.key.replace('/works/', '') : null,
-                    title: book.title || 'Título desconocido',
-                    authors: book.author_name || ['Autor desconocido'],
-                    coverUrl: book.cover_i 
-                        ? `${OPENLIBRARY_API.COVERS}${book.cover_i}-M.jpg`
-                        : '/images/default-cover.jpg',
-                    coverId: book.cover_i,
-                    publishYear: book.first_publish_year,
-                    key: book.key
-                }));
-            }
-            
-            return [];
-        
-        } catch (error) {
-            throw error;
+        });
+
+        if (!response.ok) {
+            throw new Error(`Error searching books: ${response.status}`);
         }
+
+        const data = await response.json();
+
+        return (data.books || []).map(book => ({
+            id: book.bookId,
+            title: book.title || 'Título desconocido',
+            authors: book.authors && book.authors.length > 0 ? book.authors : ['Autor desconocido'],
+            coverUrl: book.coverId
+                ? `${OPENLIBRARY_API.COVERS}${book.coverId}-M.jpg`
+                : '/images/default-cover.jpg',
+            coverId: book.coverId,
+            publishYear: book.firstPublishYear,
+            key: `/works/${book.bookId}`
+        }));
     }
     
     /**
@@ -127,7 +139,7 @@ class BooksService {
      */
     async getBooksBySubject(subject, limit = 20) {
         try {
-            const response = await fetch(`${OPENLIBRARY_API.SUBJECTS}${subject}.json?limit=${limit}`);
+            const response = await fetchCatalog(`${OPENLIBRARY_API.SUBJECTS}${encodeURIComponent(subject)}?limit=${limit}`);
             
             if (!response.ok) {
                 throw new Error(`Error fetching subject books: ${response.status}`);
@@ -155,6 +167,28 @@ class BooksService {
             throw error;
         }
     }
+
+    /**
+     * Obtiene los libros más añadidos a favoritos
+     * @param {string} window - Ventana de tiempo: all, week o month
+     * @param {number} limit - Número máximo de libros
+     * @returns {Promise<Array>} - Libros con bookId, bookTitle, bookCoverId y favorites
+     */
+    async getPopularBooks(window = 'all', limit = 10) {
+        const params = new URLSearchParams({ window, limit });
+        const response = await fetch(`/api/books/popular?${params}`, {
+            headers: {
+                'Authorization': `Bearer ${getAuthToken()}`
+            }
+        });
+
+        if (!response.ok) {
+            throw new Error(`Error fetching popular books: ${response.status}`);
+        }
+
+        const data = await response.json();
+        return data.books || [];
+    }
 }
 
 // Crear instancia única
@@ -7,12 +7,18 @@ import { getAuthToken } from '../utils/authUtils.js';
 const API_BASE_URL = '/api/favorites';
 
 /**
- * Obtiene todos los favoritos del usuario autenticado
+ * Obtiene una página de favoritos del usuario autenticado
+ * @param {Object} options - cursor (nextCursor de la página anterior) y size
+ * @returns {Promise<Object>} { favorites, nextCursor, hasMore, count }
  */
-export async function getUserFavorites() {
+export async function getUserFavorites({ cursor = null, size = null } = {}) {
     try {
         const token = getAuthToken();
-        const response = await fetch(API_BASE_URL, {
+        const params = new URLSearchParams();
+        if (cursor) params.append('cursor', cursor);
+        if (size) params.append('size', size);
+        const query = params.toString();
+        const response = await fetch(query ? `${API_BASE_URL}?${query}` : API_BASE_URL, {
             method: 'GET',
             headers: {
                 'Authorization': `Bearer ${token}`,
@@ -89,28 +95,74 @@ export async function removeFromFavorites(bookId) {
 }
 
 /**
- * Verifica si un libro está en favoritos
+ * Verifica en lote qué libros están en favoritos (una sola petición)
+ * @param {string[]} bookIds - IDs de los libros
+ * @returns {Promise<Object>} Mapa bookId -> boolean
  */
-export async function checkIfFavorite(bookId) {
-    try {
-        const token = getAuthToken();
-        const response = await fetch(`${API_BASE_URL}/check/${bookId}`, {
-            method: 'GET',
-            headers: {
-                'Authorization': `Bearer ${token}`,
-                'Content-Type': 'application/json'
-            }
-        });
+export async function checkFavorites(bookIds) {
+    const token = getAuthToken();
+    const response = await fetch(`${API_BASE_URL}/check`, {
+        method: 'POST',
+        headers: {
+            'Authorization': `Bearer ${token}`,
+            'Content-Type': 'application/json'
+        },
+        body: JSON.stringify({ bookIds })
+    });
+
+    if (!response.ok) {
+        throw new Error(`Error: ${response.status}`);
+    }
 
-        if (!response.ok) {
-            throw new Error(`Error: ${response.status}`);
+    const data = await response.json();
+    return data.favorites || {};
+}
+
+// Máximo de libros por petición (coincide con el límite del servidor)
+const CHECK_BATCH_SIZE = 100;
+
+// Consultas pendientes acumuladas durante el mismo ciclo de renderizado
+let pendingChecks = new Map();
+let flushScheduled = false;
+
+/**
+ * Verifica si un libro está en favoritos.
+ * Las llamadas hechas en el mismo ciclo (p. ej. al pintar una cuadrícula de
+ * tarjetas) se agrupan en una sola petición POST /api/favorites/check.
+ */
+export function checkIfFavorite(bookId) {
+    return new Promise((resolve) => {
+        const waiting = pendingChecks.get(bookId) || [];
+        waiting.push(resolve);
+        pendingChecks.set(bookId, waiting);
+
+        if (!flushScheduled) {
+            flushScheduled = true;
+            setTimeout(flushPendingChecks, 0);
         }
+    });
+}
 
-        const data = await response.json();
-        return data.isFavorite;
-    } catch (error) {
-        console.error('Error al verificar favorito:', error);
-        return false;
+/**
+ * Envía en lotes las consultas acumuladas y resuelve cada promesa
+ */
+async function flushPendingChecks() {
+    const batch = pendingChecks;
+    pendingChecks = new Map();
+    flushScheduled = false;
+
+    const bookIds = [...batch.keys()];
+    for (let i = 0; i < bookIds.length; i += CHECK_BATCH_SIZE) {
+        const chunk = bookIds.slice(i, i + CHECK_BATCH_SIZE);
+        let favorites = {};
+        try {
+            favorites = await checkFavorites(chunk);
+        } catch (error) {
+            console.error('Error al verificar favoritos:', error);
+        }
+        chunk.forEach(bookId => {
+            batch.get(bookId).forEach(resolve => resolve(favorites[bookId] === true));
+        });
     }
 }
 
@@ -15,9 +15,9 @@ export async function uploadProfileImage(imageFile) {
     }
 
     // Validar tipo de archivo
-    const allowedTypes = ['image/jpeg', 'image/jpg', 'image/png', 'image/gif'];
+    const allowedTypes = ['image/jpeg', 'image/jpg', 'image/png', 'image/gif', 'image/webp'];
     if (!allowedTypes.includes(imageFile.type)) {
-        throw new Error('Tipo de archivo no válido. Solo se permiten imágenes JPEG, PNG y GIF');
+        throw new Error('Tipo de archivo no válido. Solo se permiten imágenes JPEG, PNG, GIF y WebP');
     }
 
     // Validar tamaño de archivo (máximo 5MB)
@@ -60,36 +60,27 @@ export async function uploadProfileImage(imageFile) {
 }
 
 /**
- * Obtiene la imagen de perfil de un usuario
+ * Obtiene la URL versionada de la imagen de perfil de un usuario.
+ * La URL se asigna directamente a <img src>: no requiere token y el navegador
+ * la guarda en caché hasta que cambie la imagen (cambia el hash de ?v=).
  * @param {string} username - Nombre del usuario
- * @returns {Promise<Object>} Datos de la imagen
+ * @param {number} [size] - Tamaño de la miniatura deseada en px (48, 128, 512)
+ * @returns {Promise<Object|null>} Objeto con imageUrl, o null si no tiene imagen
  */
-export async function getProfileImage(username) {
+export async function getProfileImage(username, size) {
     if (!username) {
         throw new Error('Se requiere un nombre de usuario');
     }
 
     try {
-        const response = await fetch(`/api/profile-image/${encodeURIComponent(username)}/data`, {
-            method: 'GET',
-            headers: {
-                'Authorization': `Bearer ${localStorage.getItem('token')}`,
-                'Content-Type': 'application/json'
-            }
-        });
-
-        if (!response.ok) {
-            if (response.status === 404) {
-                return null; // No tiene imagen
-            }
-            throw new Error(`Error ${response.status}: ${response.statusText}`);
+        const data = await apiGet(`/api/profile-image/${encodeURIComponent(username)}/url`);
+        if (!data || !data.success) {
+            return null; // No tiene imagen
         }
 
-        // La respuesta es JSON con la imagen en Base64
-        const data = await response.json();
         return {
             success: true,
-            imageData: data.imageData
+            imageUrl: size ? `${data.imageUrl}&size=${size}` : data.imageUrl
         };
     } catch (error) {
         console.error('Error getting profile image:', error);
@@ -0,0 +1,42 @@
+package escom.ipn.hola_spring_6IV3.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas de la calibración del costo de BCrypt y del rehash de contraseñas
+ */
+class PasswordEncoderConfigTest {
+
+    @Test
+    void picksTheHighestStrengthWithinTheTarget() {
+        // 10 ms con costo 10: 11 -> 20 ms, 12 -> 40, 13 -> 80, 14 -> 160
+        assertEquals(14, PasswordEncoderConfig.strengthFor(10, 10, 250, 14));
+        assertEquals(12, PasswordEncoderConfig.strengthFor(10, 10, 50, 14));
+        // Si ni el mínimo cumple el objetivo se queda en el mínimo
+        assertEquals(10, PasswordEncoderConfig.strengthFor(400, 10, 250, 14));
+    }
+
+    @Test
+    void upgradesLegacyAndWeakerHashes() {
+        PasswordEncoder encoder = new PasswordEncoderConfig()
+                .passwordEncoder(new SimpleMeterRegistry(), 5, 250, 4, 14);
+        String legacy = new BCryptPasswordEncoder(5).encode("secreta");
+        String weaker = "{bcrypt}" + new BCryptPasswordEncoder(4).encode("secreta");
+        String current = encoder.encode("secreta");
+
+        assertTrue(current.startsWith("{bcrypt}$2a$05$"));
+        assertTrue(encoder.matches("secreta", legacy));
+        assertTrue(encoder.matches("secreta", weaker));
+        assertTrue(encoder.upgradeEncoding(legacy));
+        assertTrue(encoder.upgradeEncoding(weaker));
+        assertFalse(encoder.upgradeEncoding(current));
+    }
+}
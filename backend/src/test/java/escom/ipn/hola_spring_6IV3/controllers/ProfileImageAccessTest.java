@@ -0,0 +1,93 @@
+package escom.ipn.hola_spring_6IV3.controllers;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import escom.ipn.hola_spring_6IV3.domain.entity.Role;
+import escom.ipn.hola_spring_6IV3.domain.entity.User;
+import escom.ipn.hola_spring_6IV3.domain.entity.UserProfileImage;
+import escom.ipn.hola_spring_6IV3.repository.UserProfileImageRepository;
+import escom.ipn.hola_spring_6IV3.repository.UserRepository;
+import escom.ipn.hola_spring_6IV3.service.storage.ImageStore;
+
+/**
+ * Verifica que la URL versionada de la imagen de perfil se pueda cargar sin token
+ * (desde &lt;img src&gt;) solo con el hash actual, y que la caché inmutable se use
+ * únicamente cuando se sirve exactamente lo solicitado
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:profileimage;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "storage.images.dir=target/test-data/profileimage/images",
+    "storage.catalog.dir=target/test-data/profileimage/catalog",
+    "storage.search.snapshot-file=target/test-data/profileimage/books.idx",
+    "auth.password.bcrypt.strength=4"
+})
+class ProfileImageAccessTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserProfileImageRepository profileImageRepository;
+
+    @Autowired
+    private ImageStore imageStore;
+
+    private String hash;
+
+    @BeforeEach
+    void storeImage() throws Exception {
+        User user = userRepository.findByUsername("ana").orElseGet(() -> userRepository.save(User.builder()
+                .username("ana").password("x").firstname("Ana").lastname("Pérez").country("MX")
+                .role(Role.ROLE_USER).build()));
+        hash = imageStore.store(new ByteArrayInputStream("imagen".getBytes(StandardCharsets.UTF_8)));
+        profileImageRepository.save(UserProfileImage.builder()
+                .userId(user.getId()).imageHash(hash).contentType("image/png").build());
+    }
+
+    @Test
+    void servesTheCurrentVersionWithoutATokenAsImmutable() throws Exception {
+        mockMvc.perform(get("/api/profile-image/ana").param("v", hash))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")));
+    }
+
+    @Test
+    void requiresATokenWithoutTheCurrentVersion() throws Exception {
+        mockMvc.perform(get("/api/profile-image/ana"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/profile-image/ana").param("v", "0".repeat(64)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void doesNotPinTheOriginalWhenTheRenditionIsMissing() throws Exception {
+        mockMvc.perform(get("/api/profile-image/ana").param("v", hash).param("size", "48"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("no-cache")));
+    }
+}
@@ -0,0 +1,62 @@
+package escom.ipn.hola_spring_6IV3.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import escom.ipn.hola_spring_6IV3.domain.entity.Role;
+import escom.ipn.hola_spring_6IV3.domain.entity.User;
+
+/**
+ * Pruebas del resolvedor que inyecta el usuario autenticado en los controladores
+ */
+class AuthenticatedUserArgumentResolverTest {
+
+    private final AuthenticatedUserArgumentResolver resolver = new AuthenticatedUserArgumentResolver();
+    private final MockHttpServletRequest request = new MockHttpServletRequest();
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private Object resolve() {
+        return resolver.resolveArgument(null, null, new ServletWebRequest(request), null);
+    }
+
+    @Test
+    void usesTheUserLeftByTheFilter() {
+        AuthenticatedUser user = new AuthenticatedUser(7, "lector", List.of("ROLE_USER"), Map.of("uid", 7));
+        request.setAttribute(AuthenticatedUser.REQUEST_ATTRIBUTE, user);
+
+        assertSame(user, resolve());
+    }
+
+    @Test
+    void fallsBackToTheSecurityContextPrincipal() {
+        User user = User.builder().id(3).username("admin").role(Role.ROLE_ADMIN).build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+
+        AuthenticatedUser resolved = (AuthenticatedUser) resolve();
+        assertEquals(3, resolved.id());
+        assertEquals("admin", resolved.username());
+        assertEquals(List.of("ROLE_ADMIN"), resolved.roles());
+    }
+
+    @Test
+    void rejectsUnauthenticatedRequests() {
+        assertThrows(AuthenticationCredentialsNotFoundException.class, this::resolve);
+    }
+}
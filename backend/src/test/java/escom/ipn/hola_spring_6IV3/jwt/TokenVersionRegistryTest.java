@@ -0,0 +1,72 @@
+package escom.ipn.hola_spring_6IV3.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import escom.ipn.hola_spring_6IV3.repository.UserRepository;
+
+/**
+ * Pruebas del refresco de la tabla de versiones: la base de datos manda, salvo los
+ * cambios registrados mientras la consulta estaba en curso
+ */
+class TokenVersionRegistryTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private TokenVersionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new TokenVersionRegistry(userRepository);
+        ReflectionTestUtils.setField(registry, "enabled", true);
+    }
+
+    @Test
+    void refreshReplacesLocalVersionsTheDatabaseDoesNotHave() {
+        registry.revoke(1);
+        registry.update(2, 7);
+        when(userRepository.findAllTokenVersions()).thenReturn(List.of(row(1, 0), row(2, 3)));
+
+        registry.refresh();
+
+        assertTrue(registry.isCurrent(1, 0));
+        assertTrue(registry.isCurrent(2, 3));
+    }
+
+    @Test
+    void changesMadeDuringTheRefreshAreKept() {
+        when(userRepository.findAllTokenVersions()).thenAnswer(invocation -> {
+            // Confirmados después de que la consulta leyera sus filas
+            registry.revoke(1);
+            registry.update(2, 4);
+            return List.of(row(1, 0), row(2, 3));
+        });
+
+        registry.refresh();
+
+        assertFalse(registry.isCurrent(1, 0));
+        assertFalse(registry.isCurrent(2, 3));
+        assertTrue(registry.isCurrent(2, 4));
+    }
+
+    private static UserRepository.TokenVersionView row(int id, int tokenVersion) {
+        return new UserRepository.TokenVersionView() {
+            @Override
+            public Integer getId() {
+                return id;
+            }
+
+            @Override
+            public int getTokenVersion() {
+                return tokenVersion;
+            }
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package escom.ipn.hola_spring_6IV3.ratelimit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Verifica que el limitador esté registrado en la cadena de Spring Security (la aplicación
+ * arranca) y que responda 429 con los encabezados RateLimit-* al agotar la cubeta
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:ratelimit;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "storage.images.dir=target/test-data/ratelimit/images",
+    "storage.catalog.dir=target/test-data/ratelimit/catalog",
+    "storage.search.snapshot-file=target/test-data/ratelimit/books.idx",
+    "auth.password.bcrypt.strength=4",
+    "ratelimit.auth.capacity=2",
+    "ratelimit.auth.refill-per-minute=1"
+})
+class RateLimitFilterChainTest {
+
+    private static final String LOGIN = "{\"username\":\"nadie\",\"password\":\"secreta\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void rejectsLoginsOverTheLimitWithRateLimitHeaders() throws Exception {
+        mockMvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON).content(LOGIN))
+                .andExpect(header().string("RateLimit-Limit", "2"))
+                .andExpect(header().string("RateLimit-Remaining", "1"));
+        mockMvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON).content(LOGIN))
+                .andExpect(header().string("RateLimit-Remaining", "0"));
+
+        mockMvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON).content(LOGIN))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("RateLimit-Limit", "2"))
+                .andExpect(header().string("RateLimit-Remaining", "0"))
+                .andExpect(header().string("RateLimit-Reset", "120"))
+                .andExpect(header().string("Retry-After", "60"))
+                .andExpect(jsonPath("$.error").value("too_many_requests"));
+    }
+}
@@ -0,0 +1,64 @@
+package escom.ipn.hola_spring_6IV3.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark (JMH) del costo por petición del limitador: una clave muy disputada por todos
+ * los hilos y claves repartidas entre muchos clientes. No lo ejecuta surefire; se corre con
+ *
+ * mvn -q test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main TokenBucketRateLimiterBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class TokenBucketRateLimiterBenchmark {
+
+    private static final int CLIENTS = 10_000;
+
+    private TokenBucketRateLimiter limiter;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        // Recarga alta para que el benchmark mida tanto permitidas como rechazadas; los clientes
+        // caben en una generación (max-keys se dimensiona así), como en estado estable
+        limiter = new TokenBucketRateLimiter(100, 6_000_000, CLIENTS * 4);
+        keys = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            keys[i] = "ip:10.0." + (i >> 8) + "." + (i & 0xFF);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public TokenBucketRateLimiter.Decision hotKey() {
+        return limiter.tryAcquire("ip:10.0.0.1");
+    }
+
+    @Benchmark
+    public TokenBucketRateLimiter.Decision manyClients(Cursor cursor) {
+        cursor.next = (cursor.next + 1) % CLIENTS;
+        return limiter.tryAcquire(keys[cursor.next]);
+    }
+}
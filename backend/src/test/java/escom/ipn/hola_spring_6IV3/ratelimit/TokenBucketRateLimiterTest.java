@@ -0,0 +1,70 @@
+package escom.ipn.hola_spring_6IV3.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas del limitador token bucket con un reloj controlado
+ */
+class TokenBucketRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    @Test
+    void allowsTheBurstThenRefillsOneTokenPerInterval() {
+        // 3 tokens, uno cada 10 s
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(3, 6, 100, now::get);
+        for (int remaining = 2; remaining >= 0; remaining--) {
+            TokenBucketRateLimiter.Decision decision = limiter.tryAcquire("ip:1");
+            assertTrue(decision.allowed());
+            assertEquals(remaining, decision.remaining());
+        }
+        TokenBucketRateLimiter.Decision rejected = limiter.tryAcquire("ip:1");
+        assertFalse(rejected.allowed());
+        assertEquals(10, rejected.retryAfterSeconds());
+        assertEquals(30, rejected.resetSeconds());
+        // Otra clave tiene su propia cubeta
+        assertTrue(limiter.tryAcquire("ip:2").allowed());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertTrue(limiter.tryAcquire("ip:1").allowed());
+        assertFalse(limiter.tryAcquire("ip:1").allowed());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedKeysInsteadOfSharingABucket() {
+        // Máximo 4 claves: generaciones de 2
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1, 4, now::get);
+        assertTrue(limiter.tryAcquire("a").allowed());
+        assertTrue(limiter.tryAcquire("b").allowed());
+        // "a" se vuelve a usar: pasa a la generación actual conservando su cubeta vacía
+        assertFalse(limiter.tryAcquire("a").allowed());
+        assertTrue(limiter.tryAcquire("c").allowed());
+
+        // Muchas claves nuevas nunca bloquean a una clave nueva legítima
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire("atacante" + i).allowed());
+        }
+        assertTrue(limiter.tryAcquire("legitimo").allowed());
+        assertTrue(limiter.size() <= 4);
+        assertTrue(limiter.evictions() > 0);
+        // "b" no se usó en toda una generación: se desalojó y vuelve con la cubeta llena
+        assertTrue(limiter.tryAcquire("b").allowed());
+    }
+
+    @Test
+    void groupsIpv6ClientsByTheirSlash64() {
+        assertEquals("203.0.113.7", RateLimitFilter.clientAddress("203.0.113.7"));
+        assertEquals(RateLimitFilter.clientAddress("2001:db8:1:2::1"),
+                RateLimitFilter.clientAddress("2001:db8:1:2:ffff:ffff:ffff:ffff"));
+        assertNotEquals(RateLimitFilter.clientAddress("2001:db8:1:2::1"),
+                RateLimitFilter.clientAddress("2001:db8:1:3::1"));
+    }
+}
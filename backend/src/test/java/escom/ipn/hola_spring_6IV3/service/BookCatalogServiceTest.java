@@ -0,0 +1,190 @@
+package escom.ipn.hola_spring_6IV3.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpServer;
+
+import escom.ipn.hola_spring_6IV3.exception.CatalogNotFoundException;
+import escom.ipn.hola_spring_6IV3.exception.CatalogUnavailableException;
+import escom.ipn.hola_spring_6IV3.service.catalog.FileSystemCatalogStore;
+import escom.ipn.hola_spring_6IV3.service.catalog.OpenLibraryClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas del proxy del catálogo contra un servidor HTTP local que simula OpenLibrary
+ */
+class BookCatalogServiceTest {
+
+    private static final int THREADS = 16;
+
+    @TempDir
+    Path cacheDir;
+
+    private HttpServer server;
+    private final AtomicInteger upstreamHits = new AtomicInteger();
+    private volatile String workBody = "{\"title\":\"v1\"}";
+    private volatile int workStatus = 200;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/works/", exchange -> {
+            upstreamHits.incrementAndGet();
+            try {
+                Thread.sleep(200); // Ventana para que las peticiones concurrentes coincidan
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            boolean missing = exchange.getRequestURI().getPath().contains("OL404W");
+            byte[] body = (missing ? "{}" : workBody).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(missing ? 404 : workStatus, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/search.json", exchange -> {
+            upstreamHits.incrementAndGet();
+            byte[] body = "{\"docs\":[]}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    private BookCatalogService newService(long ttlMillis) throws IOException {
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        return new BookCatalogService(
+                new FileSystemCatalogStore(cacheDir.toString()),
+                new OpenLibraryClient(baseUrl, 5000, 4),
+                new SimpleMeterRegistry(),
+                100, ttlMillis, 60_000, 60_000);
+    }
+
+    @Test
+    void concurrentIdenticalFetchesHitUpstreamOnce() throws Exception {
+        BookCatalogService service = newService(60_000);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return service.getWork("OL1W");
+                }));
+            }
+            start.countDown();
+            for (Future<String> result : results) {
+                assertEquals("{\"title\":\"v1\"}", result.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, upstreamHits.get());
+        assertEquals("{\"title\":\"v1\"}", service.getWork("OL1W"));
+        assertEquals(1, upstreamHits.get());
+    }
+
+    @Test
+    void persistedResponsesSurviveRestart() throws Exception {
+        newService(60_000).getWork("OL1W");
+        assertEquals(1, upstreamHits.get());
+
+        // Una instancia nueva (memoria vacía) lee la copia en disco
+        assertEquals("{\"title\":\"v1\"}", newService(60_000).getWork("OL1W"));
+        assertEquals(1, upstreamHits.get());
+    }
+
+    @Test
+    void staleResponsesAreServedWhileRevalidating() throws Exception {
+        BookCatalogService service = newService(0);
+        service.getWork("OL1W");
+        workBody = "{\"title\":\"v2\"}";
+
+        // Vencida: se devuelve la copia anterior y se actualiza en segundo plano
+        assertEquals("{\"title\":\"v1\"}", service.getWork("OL1W"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (upstreamHits.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        Thread.sleep(500);
+        assertEquals(2, upstreamHits.get());
+
+        // Si OpenLibrary falla, se sigue sirviendo la última copia
+        workStatus = 500;
+        String served = service.getWork("OL1W");
+        assertEquals("{\"title\":\"v2\"}", served);
+    }
+
+    @Test
+    void failuresWithoutACachedCopyAreReported() throws Exception {
+        BookCatalogService service = newService(60_000);
+        workStatus = 500;
+        assertThrows(CatalogUnavailableException.class, () -> service.getWork("OL1W"));
+
+        // El error no se guarda: en cuanto OpenLibrary responde se descarga de nuevo
+        workStatus = 200;
+        assertEquals("{\"title\":\"v1\"}", service.getWork("OL1W"));
+        assertEquals(2, upstreamHits.get());
+    }
+
+    @Test
+    void searchesAreNotPersistedAndOldCopiesArePruned() throws Exception {
+        newService(60_000).search("dune", 10);
+        newService(60_000).search("dune", 10);
+        assertEquals(2, upstreamHits.get());
+
+        BookCatalogService service = newService(60_000);
+        service.getWork("OL1W");
+        try (Stream<Path> files = Files.find(cacheDir, 2, (file, attributes) -> attributes.isRegularFile())) {
+            for (Path file : files.toList()) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 120_000));
+            }
+        }
+        service.pruneDisk();
+        try (Stream<Path> files = Files.find(cacheDir, 2, (file, attributes) -> attributes.isRegularFile())) {
+            assertTrue(files.findAny().isEmpty());
+        }
+    }
+
+    @Test
+    void missingResourcesAreCachedAsNotFound() throws Exception {
+        BookCatalogService service = newService(60_000);
+        assertThrows(CatalogNotFoundException.class, () -> service.getWork("OL404W"));
+        assertThrows(CatalogNotFoundException.class, () -> service.getWork("OL404W"));
+        assertEquals(1, upstreamHits.get());
+        assertThrows(IllegalArgumentException.class, () -> service.getWork("../etc/passwd"));
+    }
+}
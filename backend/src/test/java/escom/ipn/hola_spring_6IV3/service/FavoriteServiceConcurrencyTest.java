@@ -0,0 +1,172 @@
+package escom.ipn.hola_spring_6IV3.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import escom.ipn.hola_spring_6IV3.domain.dto.FavoriteDTO;
+import escom.ipn.hola_spring_6IV3.domain.entity.Role;
+import escom.ipn.hola_spring_6IV3.domain.entity.User;
+import escom.ipn.hola_spring_6IV3.domain.request.FavoriteRequest;
+import escom.ipn.hola_spring_6IV3.domain.response.FavoriteImportResponse;
+import escom.ipn.hola_spring_6IV3.repository.FavoriteRepository;
+import escom.ipn.hola_spring_6IV3.repository.UserRepository;
+
+/**
+ * Verifica que añadir/alternar favoritos sea atómico bajo clics concurrentes:
+ * sin excepciones por la restricción única y sin filas duplicadas.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:favorites;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@Import({FavoriteService.class, BookPopularityService.class, RecommendationService.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class FavoriteServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final String USERNAME = "lector";
+    private static final FavoriteRequest BOOK = new FavoriteRequest("OL123W", "Libro", "42");
+
+    @Autowired
+    private FavoriteService favoriteService;
+
+    // La ingesta del catálogo local consulta OpenLibrary; aquí no interviene
+    @MockitoBean
+    private BookMetadataService bookMetadataService;
+
+    @Autowired
+    private FavoriteRepository favoriteRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Integer userId;
+
+    @BeforeEach
+    void setUp() {
+        favoriteRepository.deleteAll();
+        userRepository.deleteAll();
+        userId = userRepository.save(User.builder()
+                .username(USERNAME)
+                .password("x")
+                .role(Role.ROLE_USER)
+                .build()).getId();
+    }
+
+    @Test
+    void toggleAlternatesState() {
+        assertTrue(favoriteService.toggleFavorite(userId, BOOK));
+        assertFalse(favoriteService.toggleFavorite(userId, BOOK));
+        assertTrue(favoriteService.toggleFavorite(userId, BOOK));
+        assertEquals(1, favoriteService.getUserFavoritesCount(userId));
+    }
+
+    @Test
+    void concurrentAddsInsertExactlyOnce() throws Exception {
+        List<Optional<FavoriteDTO>> results = runConcurrently(() -> favoriteService.addToFavorites(userId, BOOK));
+
+        assertEquals(1, results.stream().filter(Optional::isPresent).count());
+        assertEquals(1, favoriteService.getUserFavoritesCount(userId));
+    }
+
+    @Test
+    void concurrentTogglesLeaveConsistentState() throws Exception {
+        // Cargar la caché antes para comprobar que se actualiza en sitio sin desincronizarse
+        assertEquals(0, favoriteService.getUserFavoritesCount(userId));
+
+        List<Boolean> results = runConcurrently(() -> favoriteService.toggleFavorite(userId, BOOK));
+
+        long count = favoriteService.getUserFavoritesCount(userId);
+        assertTrue(count <= 1);
+        assertEquals(favoriteRepository.countByUserId(userId), count);
+        // El estado final coincide con lo que reporta una nueva consulta y con un toggle adicional
+        assertEquals(count == 1, favoriteService.isBookInFavorites(userId, BOOK.getBookId()));
+        assertEquals(count == 0, favoriteService.toggleFavorite(userId, BOOK));
+        assertEquals(THREADS, results.size());
+    }
+
+    @Test
+    void removeReportsWhetherSomethingWasDeleted() throws Exception {
+        favoriteService.addToFavorites(userId, BOOK);
+
+        List<Boolean> results = runConcurrently(() -> favoriteService.removeFromFavorites(userId, BOOK.getBookId()));
+
+        assertEquals(1, results.stream().filter(Boolean::booleanValue).count());
+        assertEquals(0, favoriteService.getUserFavoritesCount(userId));
+    }
+
+    @Test
+    void bulkInsertReportsOnlyTheRowsItInserted() {
+        favoriteService.addToFavorites(userId, BOOK);
+
+        // Sin la consulta previa del servicio, como si otra instancia hubiera insertado antes
+        Set<String> inserted = favoriteRepository.insertAllIfAbsent(userId, List.of(
+                BOOK,
+                new FavoriteRequest("OL1W", "Uno", null),
+                new FavoriteRequest("OL2W", "Dos", null)), LocalDateTime.now().plusMinutes(1));
+        assertEquals(Set.of("OL1W", "OL2W"), inserted);
+
+        FavoriteImportResponse response = favoriteService.importFavorites(userId, List.of(
+                new FavoriteRequest("OL2W", "Dos", null),
+                new FavoriteRequest("OL3W", "Tres", null),
+                new FavoriteRequest("OL3W", "Tres", null)));
+        assertEquals(1, response.getImported());
+        assertEquals(2, response.getSkipped());
+        assertEquals(4, favoriteRepository.countByUserId(userId));
+    }
+
+    /**
+     * Ejecuta la tarea en varios hilos a la vez; falla si alguno lanza una excepción
+     */
+    private <T> List<T> runConcurrently(Callable<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package escom.ipn.hola_spring_6IV3.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import escom.ipn.hola_spring_6IV3.domain.entity.ProfileImageRendition;
+import escom.ipn.hola_spring_6IV3.domain.entity.UserProfileImage;
+import escom.ipn.hola_spring_6IV3.repository.ProfileImageRenditionRepository;
+import escom.ipn.hola_spring_6IV3.repository.UserProfileImageRepository;
+import escom.ipn.hola_spring_6IV3.service.storage.FileSystemImageStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Verifica que el recolector solo borre archivos sin referencias, aunque un mismo contenido
+ * sea a la vez miniatura de una imagen abandonada e imagen de perfil de otro usuario
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:imagegc;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "storage.images.dir=target/test-data/imagegc",
+    "storage.images.gc.grace-ms=60000"
+})
+@Import({ImageGarbageCollector.class, FileSystemImageStore.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ImageGarbageCollectorTest {
+
+    private static final Path ROOT = Paths.get("target/test-data/imagegc").toAbsolutePath();
+
+    @Autowired
+    private ImageGarbageCollector collector;
+
+    @Autowired
+    private FileSystemImageStore imageStore;
+
+    @Autowired
+    private UserProfileImageRepository profileImageRepository;
+
+    @Autowired
+    private ProfileImageRenditionRepository renditionRepository;
+
+    @Test
+    void keepsARenditionFileThatIsSomeonesLiveImage() throws Exception {
+        String abandoned = storeOld("original abandonada");
+        String rendition = storeOld("miniatura descargada y vuelta a subir");
+        String unused = storeOld("sin referencias");
+
+        // La original ya no es de nadie, pero su miniatura es la imagen de perfil de un usuario
+        renditionRepository.save(ProfileImageRendition.builder()
+                .sourceHash(abandoned).size(48).imageHash(rendition).contentType("image/jpeg").build());
+        profileImageRepository.save(UserProfileImage.builder()
+                .userId(1).imageHash(rendition).contentType("image/jpeg").build());
+
+        assertEquals(2, collector.collect());
+
+        assertTrue(renditionRepository.findBySourceHash(abandoned).isEmpty());
+        assertTrue(imageStore.load(rendition).isPresent());
+        assertTrue(imageStore.load(abandoned).isEmpty());
+        assertTrue(imageStore.load(unused).isEmpty());
+    }
+
+    private String storeOld(String content) throws Exception {
+        String hash = imageStore.store(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+        Files.setLastModifiedTime(ROOT.resolve(hash.substring(0, 2)).resolve(hash),
+                FileTime.from(Instant.now().minus(Duration.ofDays(1))));
+        return hash;
+    }
+}
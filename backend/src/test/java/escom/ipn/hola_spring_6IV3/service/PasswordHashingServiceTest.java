@@ -0,0 +1,80 @@
+package escom.ipn.hola_spring_6IV3.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import escom.ipn.hola_spring_6IV3.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas del pool acotado de hashing de contraseñas
+ */
+class PasswordHashingServiceTest {
+
+    @Test
+    void rejectsWithRetryAfterWhenTheQueueIsFull() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PasswordHashingService service = new PasswordHashingService(registry, 1, 1);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            // Una operación ocupa el único hilo y otra espera en la cola
+            Future<String> first = callers.submit(() -> service.execute(() -> {
+                running.countDown();
+                await(release);
+                return "primera";
+            }));
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+            Future<String> queued = callers.submit(() -> service.execute(() -> "segunda"));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (registry.get("auth.hashing.queue.size").gauge().value() < 1
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            TooManyRequestsException rejected = assertThrows(TooManyRequestsException.class,
+                    () -> service.execute(() -> "tercera"));
+            assertTrue(rejected.getRetryAfterSeconds() >= 1);
+            assertEquals(1.0, registry.get("auth.hashing.rejected").counter().count());
+            release.countDown();
+            assertEquals("primera", first.get(5, TimeUnit.SECONDS));
+            assertEquals("segunda", queued.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void propagatesExceptionsFromTheOperation() {
+        PasswordHashingService service = new PasswordHashingService(new SimpleMeterRegistry(), 1, 1);
+        try {
+            assertThrows(BadCredentialsException.class, () -> service.execute(() -> {
+                throw new BadCredentialsException("Credenciales inválidas");
+            }));
+            assertEquals("ok", service.execute(() -> "ok"));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package escom.ipn.hola_spring_6IV3.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import escom.ipn.hola_spring_6IV3.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas del filtro de nombres de usuario: la normalización no debe producir falsos
+ * negativos frente a la collation de MySQL, ni la reconstrucción perder nombres nuevos
+ */
+class UsernameFilterTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private UsernameFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        when(userRepository.count()).thenReturn(2L);
+        when(userRepository.streamAllUsernames()).thenAnswer(invocation -> Stream.of("Straße", "Ana"));
+        filter = new UsernameFilter(userRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new SimpleMeterRegistry(), 0.01, 100);
+        filter.load();
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void normalizationIsCoarserThanTheCollation() {
+        assertEquals("strasse", UsernameFilter.normalize("STRA\u1E9EE"));
+        assertEquals("aeon", UsernameFilter.normalize("Æon"));
+        assertEquals("jose", UsernameFilter.normalize("Jose\u0301\u200B "));
+        assertEquals("ana", UsernameFilter.normalize("ＡＮＡ"));
+
+        assertTrue(filter.mightExist("strasse"));
+        assertTrue(filter.mightExist("ÁNA "));
+        assertFalse(filter.mightExist("otro"));
+        // Lo que no se reduce a ASCII se confirma siempre en la base de datos
+        assertTrue(filter.mightExist("Σοφία"));
+    }
+
+    @Test
+    void namesAddedDuringARebuildAreKept() throws Exception {
+        CountDownLatch streaming = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(userRepository.streamAllUsernames()).thenAnswer(invocation -> Stream.of("Ana").peek(name -> {
+            streaming.countDown();
+            await(release);
+        }));
+
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(filter::load);
+        assertTrue(streaming.await(5, TimeUnit.SECONDS));
+        filter.add("durante");
+        release.countDown();
+        rebuild.get(5, TimeUnit.SECONDS);
+
+        assertTrue(filter.mightExist("durante"));
+    }
+
+    @Test
+    void namesCommittedAfterARebuildStartedAreAddedOnCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        filter.add("pendiente");
+        // La reconstrucción no ve la fila aún sin confirmar y reemplaza el filtro
+        when(userRepository.streamAllUsernames()).thenAnswer(invocation -> Stream.of("Ana"));
+        filter.load();
+        assertFalse(filter.mightExist("pendiente"));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertTrue(filter.mightExist("pendiente"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
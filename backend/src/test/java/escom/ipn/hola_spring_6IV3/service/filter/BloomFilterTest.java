@@ -0,0 +1,41 @@
+package escom.ipn.hola_spring_6IV3.service.filter;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas del filtro de Bloom: sin falsos negativos y con la tasa de falsos positivos configurada
+ */
+class BloomFilterTest {
+
+    @Test
+    void neverRejectsAnAddedValue() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put("usuario" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("usuario" + i));
+        }
+    }
+
+    @Test
+    void keepsTheFalsePositiveRateNearTheTarget() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("usuario" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("desconocido" + i)) {
+                falsePositives++;
+            }
+        }
+        double rate = falsePositives / 100_000.0;
+        assertTrue(rate < 0.02, "tasa de falsos positivos: " + rate);
+        assertTrue(Math.abs(filter.estimatedFalsePositiveRate() - 0.01) < 0.005);
+        assertFalse(new BloomFilter(10, 0.01).mightContain("nadie"));
+    }
+}
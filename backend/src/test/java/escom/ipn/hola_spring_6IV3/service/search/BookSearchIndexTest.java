@@ -0,0 +1,85 @@
+package escom.ipn.hola_spring_6IV3.service.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import escom.ipn.hola_spring_6IV3.domain.dto.BookSummaryDTO;
+
+/**
+ * Pruebas del índice invertido de búsqueda de libros
+ */
+class BookSearchIndexTest {
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex();
+        index.put(new BookDocument("OL1W", "Cien años de soledad", "11",
+                List.of("Gabriel García Márquez"), 1967, List.of("Realismo mágico")));
+        index.put(new BookDocument("OL2W", "El amor en los tiempos del cólera", null,
+                List.of("Gabriel García Márquez"), 1985, List.of()));
+        index.put(new BookDocument("OL3W", "Dune", "33",
+                List.of("Frank Herbert"), 1965, List.of("Science fiction", "Deserts")));
+        index.put(new BookDocument("OL4W", "Soledad", null, List.of(), null, List.of()));
+    }
+
+    private static List<String> ids(List<BookSummaryDTO> books) {
+        return books.stream().map(BookSummaryDTO::getBookId).toList();
+    }
+
+    @Test
+    void lastTermMatchesAsPrefixIgnoringCaseAndAccents() {
+        assertEquals(List.of("OL1W", "OL2W"), ids(index.search("garcia MARQ", 10)));
+        assertEquals(List.of("OL3W"), ids(index.search("du", 10)));
+        assertEquals(List.of("OL3W"), ids(index.search("science fic", 10)));
+        assertEquals(List.of(), ids(index.search("garcia dune", 10)));
+    }
+
+    @Test
+    void titleMatchesRankAboveOtherFieldsAndShorterTitlesFirst() {
+        index.put(new BookDocument("OL5W", "Notas", null, List.of("Ana Soledad"), null, List.of()));
+        assertEquals(List.of("OL4W", "OL1W", "OL5W"), ids(index.search("soledad", 10)));
+        assertEquals(List.of("OL4W"), ids(index.search("soledad", 1)));
+    }
+
+    @Test
+    void reindexingReplacesPreviousTerms() {
+        index.put(new BookDocument("OL3W", "Dune Messiah", "34", List.of("Frank Herbert"), 1969, List.of()));
+        assertEquals(List.of(), ids(index.search("deserts", 10)));
+        BookSummaryDTO book = index.search("messiah", 10).get(0);
+        assertEquals("34", book.getCoverId());
+        assertEquals(1969, book.getFirstPublishYear());
+        assertFalse(index.putIfAbsent(new BookDocument("OL3W", "Otro", null, List.of(), null, List.of())));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void snapshotRoundTripKeepsDocumentsAndTerms() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+
+        BookSearchIndex restored = new BookSearchIndex();
+        restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(index.size(), restored.size());
+        assertEquals(index.search("gabriel", 10), restored.search("gabriel", 10));
+        assertEquals(index.search("realismo", 10), restored.search("realismo", 10));
+
+        // Los términos por documento se reconstruyen, así que reindexar sigue funcionando
+        restored.put(new BookDocument("OL1W", "Relato de un náufrago", null, List.of(), 1970, List.of()));
+        assertEquals(List.of(), ids(restored.search("realismo", 10)));
+        assertTrue(restored.contains("OL1W"));
+        assertEquals(List.of("OL1W"), ids(restored.search("naufrago", 10)));
+    }
+}
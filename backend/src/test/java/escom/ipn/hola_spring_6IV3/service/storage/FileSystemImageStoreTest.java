@@ -0,0 +1,49 @@
+package escom.ipn.hola_spring_6IV3.service.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Pruebas del borrado condicionado a la fecha de guardado que usa el recolector de imágenes
+ */
+class FileSystemImageStoreTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void storingTheSameContentAgainProtectsItFromTheCollector() throws Exception {
+        FileSystemImageStore store = new FileSystemImageStore(root.toString());
+        String hash = store.store(new ByteArrayInputStream("imagen".getBytes(StandardCharsets.UTF_8)));
+        Path file = root.resolve(hash.substring(0, 2)).resolve(hash);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofDays(1))));
+        Instant cutoff = Instant.now().minus(Duration.ofHours(1));
+
+        try (Stream<String> candidates = store.streamStoredBefore(cutoff)) {
+            assertEquals(List.of(hash), candidates.toList());
+        }
+
+        // Otra subida del mismo contenido renueva la fecha: ya no se puede borrar
+        assertEquals(hash, store.store(new ByteArrayInputStream("imagen".getBytes(StandardCharsets.UTF_8))));
+        assertFalse(store.deleteIfStoredBefore(hash, cutoff));
+        assertTrue(store.load(hash).isPresent());
+
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofDays(1))));
+        assertTrue(store.deleteIfStoredBefore(hash, cutoff));
+        assertTrue(store.load(hash).isEmpty());
+    }
+}
@@ -0,0 +1,98 @@
+package escom.ipn.hola_spring_6IV3.service.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de la política de admisión TinyLFU y de la contabilidad de memoria de la caché
+ */
+class OffHeapImageCacheTest {
+
+    private static final int IMAGE = 100;
+
+    @Test
+    void oneHitImageDoesNotDisplacePopularOnes() {
+        OffHeapImageCache cache = new OffHeapImageCache(3 * IMAGE, 2 * IMAGE, 10 * IMAGE, 100);
+        for (String key : new String[] {"a", "b", "c"}) {
+            access(cache, key, 3);
+            assertNotNull(cache.put(key, new byte[IMAGE]));
+        }
+
+        access(cache, "d", 1);
+        assertFalse(cache.wouldAdmit("d", IMAGE));
+        assertNull(cache.put("d", new byte[IMAGE]));
+
+        assertEquals(1, cache.rejections.get());
+        assertEquals(0, cache.evictions.get());
+        assertEquals(3, cache.entryCount());
+        assertEquals(3 * IMAGE, cache.sizeInBytes());
+    }
+
+    @Test
+    void frequentImageEvictsTheLeastRecentlyUsed() {
+        OffHeapImageCache cache = new OffHeapImageCache(3 * IMAGE, 2 * IMAGE, 10 * IMAGE, 100);
+        for (String key : new String[] {"a", "b", "c"}) {
+            access(cache, key, 1);
+            cache.put(key, new byte[IMAGE]);
+        }
+        // "a" pasa a ser la más reciente: la menos reciente es ahora "b"
+        assertNotNull(cache.get("a"));
+
+        access(cache, "d", 3);
+        assertNotNull(cache.put("d", new byte[IMAGE]));
+
+        assertEquals(1, cache.evictions.get());
+        assertEquals(3, cache.entryCount());
+        assertEquals(3 * IMAGE, cache.sizeInBytes());
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    void oversizedImagesAreNeverAdmitted() {
+        OffHeapImageCache cache = new OffHeapImageCache(3 * IMAGE, 2 * IMAGE, 10 * IMAGE, 100);
+        access(cache, "grande", 10);
+
+        assertNull(cache.put("grande", new byte[2 * IMAGE + 1]));
+        assertEquals(0, cache.entryCount());
+        assertEquals(0, cache.sizeInBytes());
+    }
+
+    @Test
+    void evictedMemoryCountsUntilTheCollectorReclaimsIt() throws InterruptedException {
+        OffHeapImageCache cache = new OffHeapImageCache(3 * IMAGE, 2 * IMAGE, IMAGE, 100);
+        for (String key : new String[] {"a", "b", "c"}) {
+            access(cache, key, 1);
+            cache.put(key, new byte[IMAGE]);
+        }
+
+        access(cache, "d", 3);
+        assertNotNull(cache.put("d", new byte[IMAGE]));
+        assertEquals(IMAGE, cache.retainedBytes());
+
+        // Expulsar otra imagen superaría la memoria retenida permitida
+        access(cache, "e", 3);
+        assertNull(cache.put("e", new byte[IMAGE]));
+
+        // Nadie conserva el buffer expulsado: al reclamarlo deja de contar
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (cache.retainedBytes() > 0 && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertEquals(0, cache.retainedBytes());
+        assertNotNull(cache.put("e", new byte[IMAGE]));
+        assertEquals(IMAGE, cache.retainedBytes());
+    }
+
+    private static void access(OffHeapImageCache cache, String key, int times) {
+        for (int i = 0; i < times; i++) {
+            cache.get(key);
+        }
+    }
+}